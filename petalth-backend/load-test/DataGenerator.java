@@ -0,0 +1,475 @@
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Generador de datos sintéticos para las pruebas de carga: veterinarios, dueños, mascotas, citas y facturas con
+// un reparto desigual (unos veterinarios y mascotas acumulan muchas más citas que otros). Con la misma semilla
+// genera siempre los mismos datos. En PostgreSQL carga con COPY por lotes; en otra BDD (H2) con INSERT en lote.
+//
+//   java -cp postgresql.jar load-test/DataGenerator.java --url jdbc:postgresql://localhost:5432/petalth \
+//        --user postgres --password cursoSQL [--vets 200] [--owners 500000] [--pets 1000000] \
+//        [--appointments 10000000] [--seed 42]
+//
+// Las tablas deben existir (arrancar antes el backend con el perfil 'loadtest') y se vacían al empezar.
+// Ids y emails son deterministas para que LoadTest.java pueda iniciar sesión sin consultar la BDD:
+//   admin@petalth.com (id 1), vet<i>@petalth.test (id 1+i), owner<i>@petalth.test (id 1+vets+i). Contraseña: 123456
+// Ver docs/dev-notes.md (Pruebas de carga).
+public class DataGenerator {
+
+    // BCrypt de "123456" (el mismo que data.sql): hashear 500.000 contraseñas llevaría horas
+    private static final String PASSWORD_HASH = "$2a$10$hMUPRf1IlgCit6gLOOr//urXBwe.c7XZ7OiHuj17cmrDnPzQw9ZjG";
+
+    // Filas por cada COPY
+    private static final int BATCH_ROWS = 100_000;
+    private static final int SLOT_MINUTES = 15;
+    private static final LocalTime OPENING = LocalTime.of(9, 0);
+    private static final LocalTime CLOSING = LocalTime.of(18, 0);
+
+    // Los mismos tratamientos que data.sql: id, nombre, descripción, duración, activo, precio y peso en el reparto
+    private static final Object[][] TREATMENTS = {
+            {1L, "Consulta General", "Revisión básica de salud y constantes", 30, true, "45.00", 50},
+            {2L, "Vacunación Rabia", "Administración de vacuna anual obligatoria", 15, true, "30.00", 25},
+            {3L, "Cirugía Tejidos Blandos", "Esterilizaciones y suturas complejas", 120, true, "250.00", 10},
+            {4L, "Limpieza Dental", "Limpieza con ultrasonidos bajo sedación", 60, true, "80.00", 10},
+            {5L, "Fisioterapia", "Rehabilitación post-operatoria", 45, false, "60.00", 5},
+    };
+
+    private static final String[] FIRST_NAMES = {"Ana", "Luis", "María", "Carlos", "Laura", "Javier", "Lucía",
+            "Pablo", "Elena", "Sergio", "Marta", "David", "Paula", "Jorge", "Sara", "Diego"};
+    private static final String[] LAST_NAMES = {"García", "Rodríguez", "López", "Martínez", "Sánchez", "Pérez",
+            "Gómez", "Ruiz", "Díaz", "Moreno", "Álvarez", "Romero", "Navarro", "Torres"};
+    private static final String[] PET_NAMES = {"Toby", "Luna", "Max", "Michi", "Rocky", "Nala", "Coco", "Lola",
+            "Simba", "Kira", "Bruno", "Mia", "Thor", "Canela", "Zeus", "Nube"};
+    private static final String[] SPECIALITIES = {"Medicina Interna", "Cirugía y Traumatología", "Odontología",
+            "Dermatología", "Cardiología", "Exóticos"};
+
+    private final Map<String, String> options;
+    private final int vets;
+    private final int owners;
+    private final int pets;
+    private final long appointments;
+    private final SplittableRandom random;
+    private final LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+
+    private DataGenerator(Map<String, String> options) {
+        this.options = options;
+        this.vets = Integer.parseInt(options.getOrDefault("vets", "200"));
+        this.owners = Integer.parseInt(options.getOrDefault("owners", "500000"));
+        this.pets = Integer.parseInt(options.getOrDefault("pets", "1000000"));
+        this.appointments = Long.parseLong(options.getOrDefault("appointments", "10000000"));
+        this.random = new SplittableRandom(Long.parseLong(options.getOrDefault("seed", "42")));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+        }
+        if (!options.containsKey("url")) {
+            System.err.println("Uso: java -cp <driver JDBC> DataGenerator.java --url <jdbc> [--user u] [--password p] "
+                    + "[--vets n] [--owners n] [--pets n] [--appointments n] [--seed n]");
+            System.exit(1);
+        }
+        new DataGenerator(options).run();
+    }
+
+    private void run() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(options.get("url"),
+                options.getOrDefault("user", ""), options.getOrDefault("password", ""))) {
+            connection.setAutoCommit(false);
+            boolean postgres = connection.getMetaData().getDatabaseProductName().equalsIgnoreCase("PostgreSQL");
+            System.out.printf("Generando en %s: %d veterinarios, %d dueños, %d mascotas, %d citas%n",
+                    connection.getMetaData().getDatabaseProductName(), vets, owners, pets, appointments);
+
+            long start = System.nanoTime();
+            truncate(connection, postgres);
+            writeTreatments(open(connection, postgres, "medical_treatment",
+                    "id, name, description, duration_minutes, price, active"));
+            writeUsers(open(connection, postgres, "petalth_user",
+                    "id, email, password, first_name, last_name, rol, active, token_version"));
+            writeVets(open(connection, postgres, "veterinarian", "user_id, speciality"));
+            writeOwners(open(connection, postgres, "owner", "user_id, phone, address"));
+            writePets(open(connection, postgres, "pet", "id, name, photo_url, birth_date, active, owner_id"));
+            TableWriter appointmentWriter = open(connection, postgres, "appointment",
+                    "id, date_time, diagnosis, status, pet_id, medicaltreatment_id, veterinarian_id");
+            TableWriter invoiceWriter = open(connection, postgres, "invoice",
+                    "id, issue_date, amount, status, appointment_id").after(appointmentWriter);
+            long invoices = writeAppointments(appointmentWriter, invoiceWriter);
+            resetSequences(connection, invoices);
+            if (postgres) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("ANALYZE");
+                }
+            }
+            connection.commit();
+            System.out.printf("Hecho en %d s (%d facturas)%n",
+                    TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start), invoices);
+        }
+    }
+
+    private void truncate(Connection connection, boolean postgres) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            if (postgres) {
+                statement.execute("TRUNCATE invoice, appointment, pet, owner, veterinarian, petalth_user, "
+                        + "medical_treatment CASCADE");
+            } else {
+                for (String table : new String[]{"invoice", "appointment", "pet", "owner", "veterinarian",
+                        "petalth_user", "medical_treatment"}) {
+                    statement.execute("DELETE FROM " + table);
+                }
+            }
+            // Tablas derivadas (histórico, resúmenes del panel, bandeja de facturas), si el backend ya las ha creado
+            for (String table : new String[]{"invoice_archive", "appointment_archive", "daily_revenue_rollup",
+                    "daily_workload_rollup", "invoice_outbox"}) {
+                if (tableExists(connection, table)) {
+                    statement.execute((postgres ? "TRUNCATE " : "DELETE FROM ") + table);
+                }
+            }
+        }
+        connection.commit();
+    }
+
+    private static boolean tableExists(Connection connection, String table) throws SQLException {
+        try (ResultSet rs = connection.getMetaData().getTables(null, null, table, null)) {
+            return rs.next();
+        }
+    }
+
+    private void writeTreatments(TableWriter writer) throws SQLException {
+        for (Object[] t : TREATMENTS) {
+            writer.row(t[0], t[1], t[2], t[3], new BigDecimal((String) t[5]), t[4]);
+        }
+        writer.close();
+    }
+
+    private void writeUsers(TableWriter writer) throws SQLException {
+        writer.row(1L, "admin@petalth.com", PASSWORD_HASH, "Luis", "Admin", "ADMIN", true, 0);
+        for (int i = 1; i <= vets; i++) {
+            writer.row(vetId(i), "vet" + i + "@petalth.test", PASSWORD_HASH, pick(FIRST_NAMES), pick(LAST_NAMES),
+                    "VET", true, 0);
+        }
+        for (int i = 1; i <= owners; i++) {
+            writer.row(ownerId(i), "owner" + i + "@petalth.test", PASSWORD_HASH, pick(FIRST_NAMES), pick(LAST_NAMES),
+                    "OWNER", true, 0);
+        }
+        writer.close();
+    }
+
+    private void writeVets(TableWriter writer) throws SQLException {
+        for (int i = 1; i <= vets; i++) {
+            writer.row(vetId(i), SPECIALITIES[i % SPECIALITIES.length]);
+        }
+        writer.close();
+    }
+
+    private void writeOwners(TableWriter writer) throws SQLException {
+        for (int i = 1; i <= owners; i++) {
+            writer.row(ownerId(i), "6" + (10_000_000 + random.nextInt(89_999_999)),
+                    "Calle " + pick(LAST_NAMES) + " " + (1 + random.nextInt(200)));
+        }
+        writer.close();
+    }
+
+    // Cada dueño tiene al menos una mascota (si hay suficientes); el resto se reparte con sesgo: pocos dueños
+    // (criadores, protectoras) acumulan muchas
+    private void writePets(TableWriter writer) throws SQLException {
+        for (int i = 1; i <= pets; i++) {
+            int owner = i <= owners ? i : 1 + skewed(owners, 3.0);
+            writer.row((long) i, pick(PET_NAMES), null, LocalDate.now().minusDays(random.nextInt(15 * 365)),
+                    random.nextInt(50) != 0, ownerId(owner));
+        }
+        writer.close();
+    }
+
+    // Cada veterinario llena su agenda hacia atrás desde dentro de 60 días, en horario laboral y sin solapes,
+    // con huecos aleatorios. Los veterinarios "populares" tienen más citas y su historial llega más atrás.
+    private long writeAppointments(TableWriter appointmentWriter, TableWriter invoiceWriter) throws SQLException {
+        double[] weights = new double[vets];
+        double total = 0;
+        for (int v = 0; v < vets; v++) {
+            weights[v] = 1.0 / Math.sqrt(v + 5);
+            total += weights[v];
+        }
+
+        long appointmentId = 0;
+        long invoiceId = 0;
+        long remaining = appointments;
+        for (int v = 0; v < vets; v++) {
+            long count = v == vets - 1 ? remaining : Math.round(appointments * weights[v] / total);
+            remaining -= count;
+            LocalDateTime cursor = alignToWorkingHours(now.plusDays(60));
+            for (long n = 0; n < count; n++) {
+                Object[] treatment = pickTreatment();
+                int duration = (int) treatment[3];
+                cursor = previousStart(cursor, duration + SLOT_MINUTES * random.nextInt(3));
+                AppointmentStatusChoice status = statusFor(cursor);
+
+                long id = ++appointmentId;
+                appointmentWriter.row(id, cursor, status.completed ? "Revisión sin incidencias" : null,
+                        status.name, 1L + skewed(pets, 2.0), treatment[0], vetId(v + 1));
+                if (status.completed) {
+                    invoiceWriter.row(++invoiceId, cursor.plusMinutes(duration), price(treatment),
+                            cursor.isBefore(now.minusDays(30)) || random.nextInt(2) == 0 ? "PAID" : "UNPAID", id);
+                }
+            }
+            System.out.printf("  veterinario %d/%d: %d citas desde %s%n", v + 1, vets, count, cursor.toLocalDate());
+        }
+        appointmentWriter.close();
+        invoiceWriter.close();
+        return invoiceId;
+    }
+
+    private void resetSequences(Connection connection, long invoices) throws SQLException {
+        // pooled-lo: el siguiente bloque de ids de Hibernate empieza justo en el valor del RESTART
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ALTER SEQUENCE medical_treatment_id_seq RESTART WITH " + (TREATMENTS.length + 1));
+            statement.execute("ALTER SEQUENCE petalth_user_id_seq RESTART WITH " + (ownerId(owners) + 1));
+            statement.execute("ALTER SEQUENCE pet_id_seq RESTART WITH " + (pets + 1L));
+            statement.execute("ALTER SEQUENCE appointment_id_seq RESTART WITH " + (appointments + 1));
+            statement.execute("ALTER SEQUENCE invoice_id_seq RESTART WITH " + (invoices + 1));
+        }
+    }
+
+    private long vetId(int i) {
+        return 1L + i;
+    }
+
+    private long ownerId(int i) {
+        return 1L + vets + i;
+    }
+
+    // Índice en [0, n) con más probabilidad para los primeros (cuanto mayor el exponente, más sesgo)
+    private int skewed(int n, double exponent) {
+        return (int) Math.min(n - 1, Math.floor(n * Math.pow(random.nextDouble(), exponent)));
+    }
+
+    private String pick(String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private Object[] pickTreatment() {
+        int roll = random.nextInt(100);
+        for (Object[] treatment : TREATMENTS) {
+            roll -= (int) treatment[6];
+            if (roll < 0) {
+                return treatment;
+            }
+        }
+        return TREATMENTS[0];
+    }
+
+    private BigDecimal price(Object[] treatment) {
+        double factor = 0.9 + random.nextDouble() * 0.3;
+        return new BigDecimal((String) treatment[5]).multiply(BigDecimal.valueOf(factor)).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private AppointmentStatusChoice statusFor(LocalDateTime dateTime) {
+        if (dateTime.isAfter(now)) {
+            return AppointmentStatusChoice.PENDING;
+        }
+        return random.nextInt(10) == 0 ? AppointmentStatusChoice.CANCELLED : AppointmentStatusChoice.COMPLETED;
+    }
+
+    // Inicio de la cita anterior: 'minutes' antes del cursor, saltando noches y fines de semana
+    private static LocalDateTime previousStart(LocalDateTime cursor, int minutes) {
+        LocalDateTime start = cursor.minusMinutes(minutes);
+        while (start.toLocalTime().isBefore(OPENING) || isWeekend(start.toLocalDate())) {
+            LocalDate day = start.toLocalDate().minusDays(1);
+            while (isWeekend(day)) {
+                day = day.minusDays(1);
+            }
+            start = day.atTime(CLOSING).minusMinutes(minutes);
+        }
+        return start;
+    }
+
+    private static LocalDateTime alignToWorkingHours(LocalDateTime dateTime) {
+        LocalDate day = dateTime.toLocalDate();
+        while (isWeekend(day)) {
+            day = day.plusDays(1);
+        }
+        return day.atTime(CLOSING);
+    }
+
+    private static boolean isWeekend(LocalDate day) {
+        return day.getDayOfWeek() == DayOfWeek.SATURDAY || day.getDayOfWeek() == DayOfWeek.SUNDAY;
+    }
+
+    private enum AppointmentStatusChoice {
+        PENDING("PENDING", false), COMPLETED("COMPLETED", true), CANCELLED("CANCELLED", false);
+
+        private final String name;
+        private final boolean completed;
+
+        AppointmentStatusChoice(String name, boolean completed) {
+            this.name = name;
+            this.completed = completed;
+        }
+    }
+
+    // ============================================================
+    // ESCRITURA: COPY en PostgreSQL, INSERT en lote en el resto
+    // ============================================================
+
+    private TableWriter open(Connection connection, boolean postgres, String table, String columns)
+            throws SQLException {
+        return postgres
+                ? new CopyWriter(connection, table, columns)
+                : new BatchInsertWriter(connection, table, columns);
+    }
+
+    private abstract static class TableWriter {
+        private TableWriter parent;
+
+        abstract void row(Object... values) throws SQLException;
+
+        abstract void close() throws SQLException;
+
+        abstract void write() throws SQLException;
+
+        // Las filas de esta tabla referencian a las de 'parent' (FK): el lote del padre se manda siempre antes
+        TableWriter after(TableWriter parent) {
+            this.parent = parent;
+            return this;
+        }
+
+        final void flush() throws SQLException {
+            if (parent != null) {
+                parent.flush();
+            }
+            write();
+        }
+    }
+
+    // Acumula BATCH_ROWS filas en CSV y las manda con un COPY ... FROM STDIN
+    private static final class CopyWriter extends TableWriter {
+        private final Connection connection;
+        private final CopyManager copyManager;
+        private final String table;
+        private final String sql;
+        private final StringBuilder buffer = new StringBuilder(1 << 20);
+        private int buffered;
+        private long written;
+
+        private CopyWriter(Connection connection, String table, String columns) throws SQLException {
+            this.connection = connection;
+            this.copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+            this.table = table;
+            this.sql = "COPY " + table + " (" + columns + ") FROM STDIN WITH (FORMAT csv)";
+        }
+
+        @Override
+        void row(Object... values) throws SQLException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    buffer.append(',');
+                }
+                appendCsv(values[i]);
+            }
+            buffer.append('\n');
+            if (++buffered == BATCH_ROWS) {
+                flush();
+            }
+        }
+
+        private void appendCsv(Object value) {
+            if (value == null) {
+                return; // En CSV de COPY, un campo vacío sin comillas es NULL
+            }
+            String text = value instanceof LocalDateTime dateTime ? Timestamp.valueOf(dateTime).toString() : value.toString();
+            if (value instanceof String) {
+                buffer.append('"').append(text.replace("\"", "\"\"")).append('"');
+            } else {
+                buffer.append(text);
+            }
+        }
+
+        @Override
+        void write() throws SQLException {
+            if (buffered == 0) {
+                return;
+            }
+            try {
+                copyManager.copyIn(sql, new StringReader(buffer.toString()));
+            } catch (java.io.IOException e) {
+                throw new SQLException(e);
+            }
+            written += buffered;
+            buffer.setLength(0);
+            buffered = 0;
+        }
+
+        @Override
+        void close() throws SQLException {
+            flush();
+            connection.commit();
+            System.out.printf("%s: %d filas%n", table, written);
+        }
+    }
+
+    private static final class BatchInsertWriter extends TableWriter {
+        private final Connection connection;
+        private final String table;
+        private final PreparedStatement statement;
+        private int batched;
+        private long written;
+
+        private BatchInsertWriter(Connection connection, String table, String columns) throws SQLException {
+            this.connection = connection;
+            this.table = table;
+            String placeholders = "?" + ",?".repeat(columns.split(",").length - 1);
+            this.statement = connection.prepareStatement(
+                    "INSERT INTO " + table + " (" + columns + ") VALUES (" + placeholders + ")");
+        }
+
+        @Override
+        void row(Object... values) throws SQLException {
+            for (int i = 0; i < values.length; i++) {
+                Object value = values[i];
+                statement.setObject(i + 1, value instanceof LocalDateTime dateTime ? Timestamp.valueOf(dateTime) : value);
+            }
+            statement.addBatch();
+            // Lotes JDBC más pequeños que los de COPY: H2 guarda en memoria todo el lote pendiente
+            if (++batched == 1_000) {
+                flush();
+            }
+        }
+
+        @Override
+        void write() throws SQLException {
+            if (batched == 0) {
+                return;
+            }
+            statement.executeBatch();
+            written += batched;
+            batched = 0;
+        }
+
+        @Override
+        void close() throws SQLException {
+            flush();
+            connection.commit();
+            statement.close();
+            System.out.printf("%s: %d filas%n", table, written);
+        }
+    }
+}
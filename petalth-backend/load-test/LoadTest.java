@@ -0,0 +1,283 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Prueba de carga de bucle cerrado: N clientes concurrentes lanzan GET contra la URL sin pausa durante un tiempo
+// y al final se imprimen throughput y percentiles de latencia. Sin dependencias, se ejecuta con el launcher de Java:
+//
+//   java load-test/LoadTest.java <url> <token JWT> [clientes=200] [segundos=30] [calentamiento=10]
+//
+// Modo escenario: mezcla de usuarios sobre los datos de DataGenerator.java (70% dueños que consultan sus
+// mascotas, 25% veterinarios que consultan su agenda y 5% administradores que paginan facturas). Cada cliente
+// inicia sesión al empezar y vuelve a hacerlo de vez en cuando; se informa de cada paso por separado:
+//
+//   java load-test/LoadTest.java scenario <url base> [clientes=200] [segundos=60] [calentamiento=10] \
+//        [veterinarios=200] [dueños=500000]
+//
+// Ver docs/dev-notes.md (Pruebas de carga) para comparar el modo normal y el de hilos virtuales.
+public class LoadTest {
+
+    // Uno de cada RELOGIN_EVERY pasos de cada cliente es un nuevo login (BCrypt), como las sesiones que caducan
+    private static final int RELOGIN_EVERY = 50;
+    private static final String PASSWORD = "123456";
+    private static final Pattern TOKEN = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"");
+
+    public static void main(String[] args) throws Exception {
+        if (args.length >= 2 && args[0].equals("scenario")) {
+            scenario(args);
+            return;
+        }
+        if (args.length < 2) {
+            System.err.println("Uso: java LoadTest.java <url> <token> [clientes] [segundos] [calentamiento]");
+            System.err.println("     java LoadTest.java scenario <url base> [clientes] [segundos] [calentamiento] "
+                    + "[veterinarios] [dueños]");
+            System.exit(1);
+        }
+        URI uri = URI.create(args[0]);
+        String token = args[1];
+        int clients = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 30;
+        int warmup = args.length > 4 ? Integer.parseInt(args[4]) : 10;
+
+        HttpClient http = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+
+        System.out.printf("Calentamiento %ds...%n", warmup);
+        run(http, request, clients, warmup);
+        System.out.printf("Midiendo %ds con %d clientes contra %s%n", seconds, clients, uri);
+        Result result = run(http, request, clients, seconds);
+        result.print(seconds);
+    }
+
+    // ============================================================
+    // MODO ESCENARIO
+    // ============================================================
+
+    private enum Step { LOGIN, OWNER_PETS, VET_AGENDA, ADMIN_INVOICES }
+
+    private enum Role { OWNER, VET, ADMIN }
+
+    private static void scenario(String[] args) throws Exception {
+        String baseUrl = args[1].replaceAll("/+$", "");
+        int clients = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 60;
+        int warmup = args.length > 4 ? Integer.parseInt(args[4]) : 10;
+        int vets = args.length > 5 ? Integer.parseInt(args[5]) : 200;
+        int owners = args.length > 6 ? Integer.parseInt(args[6]) : 500_000;
+
+        HttpClient http = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        Scenario scenario = new Scenario(http, baseUrl, vets, owners);
+
+        System.out.printf("Calentamiento %ds...%n", warmup);
+        scenario.run(clients, warmup);
+        System.out.printf("Escenario %ds con %d clientes contra %s%n", seconds, clients, baseUrl);
+        Map<Step, Result> results = scenario.run(clients, seconds);
+
+        long total = 0;
+        for (Map.Entry<Step, Result> entry : results.entrySet()) {
+            System.out.printf("%n[%s]%n", entry.getKey());
+            entry.getValue().print(seconds);
+            total += entry.getValue().sortedNanos.length;
+        }
+        System.out.printf("%nTotal: %d peticiones, %.1f req/s%n", total, total / (double) seconds);
+    }
+
+    private record Scenario(HttpClient http, String baseUrl, int vets, int owners) {
+
+        Map<Step, Result> run(int clients, int seconds) throws Exception {
+            long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+            AtomicLongArray errors = new AtomicLongArray(Step.values().length);
+            List<Map<Step, LatencyRecorder>> recorders = new ArrayList<>();
+
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < clients; i++) {
+                    Map<Step, LatencyRecorder> clientRecorders = new EnumMap<>(Step.class);
+                    for (Step step : Step.values()) {
+                        clientRecorders.put(step, new LatencyRecorder());
+                    }
+                    recorders.add(clientRecorders);
+                    Role role = roleFor(i);
+                    executor.submit(() -> {
+                        runClient(role, deadline, clientRecorders, errors);
+                        return null;
+                    });
+                }
+            }
+
+            Map<Step, Result> results = new EnumMap<>(Step.class);
+            for (Step step : Step.values()) {
+                long[] merged = recorders.stream()
+                        .flatMapToLong(r -> Arrays.stream(r.get(step).toArray()))
+                        .sorted().toArray();
+                results.put(step, new Result(merged, errors.get(step.ordinal())));
+            }
+            return results;
+        }
+
+        // 70% dueños, 25% veterinarios, 5% administradores (reparto fijo por índice para que sea repetible)
+        private static Role roleFor(int client) {
+            int bucket = client % 20;
+            return bucket == 0 ? Role.ADMIN : bucket <= 5 ? Role.VET : Role.OWNER;
+        }
+
+        private void runClient(Role role, long deadline, Map<Step, LatencyRecorder> recorders,
+                               AtomicLongArray errors) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            // Ids y emails que genera DataGenerator.java
+            int index = role == Role.VET ? 1 + random.nextInt(vets) : 1 + random.nextInt(owners);
+            String email = switch (role) {
+                case ADMIN -> "admin@petalth.com";
+                case VET -> "vet" + index + "@petalth.test";
+                case OWNER -> "owner" + index + "@petalth.test";
+            };
+            HttpRequest read = switch (role) {
+                case ADMIN -> get("/api/invoices/page?size=20");
+                case VET -> get("/api/appointments/my-agenda");
+                case OWNER -> get("/api/pets/owner/" + (1L + vets + index));
+            };
+            Step readStep = switch (role) {
+                case ADMIN -> Step.ADMIN_INVOICES;
+                case VET -> Step.VET_AGENDA;
+                case OWNER -> Step.OWNER_PETS;
+            };
+
+            String token = null;
+            for (long n = 0; System.nanoTime() < deadline; n++) {
+                boolean login = token == null || n % RELOGIN_EVERY == 0;
+                Step step = login ? Step.LOGIN : readStep;
+                long start = System.nanoTime();
+                try {
+                    if (login) {
+                        token = login(email);
+                        if (token == null) {
+                            errors.incrementAndGet(step.ordinal());
+                        }
+                    } else {
+                        HttpRequest request = HttpRequest.newBuilder(read, (name, value) -> true)
+                                .header("Authorization", "Bearer " + token)
+                                .build();
+                        HttpResponse<Void> response = http.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() != 200) {
+                            errors.incrementAndGet(step.ordinal());
+                        }
+                    }
+                } catch (Exception e) {
+                    errors.incrementAndGet(step.ordinal());
+                }
+                recorders.get(step).add(System.nanoTime() - start);
+            }
+        }
+
+        private String login(String email) throws Exception {
+            String body = "{\"email\":\"" + email + "\",\"password\":\"" + PASSWORD + "\"}";
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/auth/login"))
+                    .header("Content-Type", "application/json")
+                    .timeout(Duration.ofSeconds(30))
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+            HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+            Matcher matcher = TOKEN.matcher(response.body());
+            return response.statusCode() == 200 && matcher.find() ? matcher.group(1) : null;
+        }
+
+        private HttpRequest get(String path) {
+            return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .timeout(Duration.ofSeconds(30))
+                    .GET()
+                    .build();
+        }
+    }
+
+    private static Result run(HttpClient http, HttpRequest request, int clients, int seconds) throws Exception {
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        List<long[]> perClient = new ArrayList<>();
+        AtomicLong errors = new AtomicLong();
+        List<LatencyRecorder> recorders = new ArrayList<>();
+
+        // Un hilo virtual por cliente: el generador de carga no debe ser el cuello de botella
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                LatencyRecorder recorder = new LatencyRecorder();
+                recorders.add(recorder);
+                executor.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = http.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 200) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                        recorder.add(System.nanoTime() - start);
+                    }
+                    return null;
+                });
+            }
+        }
+        for (LatencyRecorder recorder : recorders) {
+            perClient.add(recorder.toArray());
+        }
+        return new Result(perClient.stream().flatMapToLong(Arrays::stream).sorted().toArray(), errors.get());
+    }
+
+    private static final class LatencyRecorder {
+        private long[] values = new long[1024];
+        private int size;
+
+        void add(long nanos) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = nanos;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    private record Result(long[] sortedNanos, long errors) {
+
+        void print(int seconds) {
+            System.out.printf("Peticiones: %d  Errores: %d  Throughput: %.1f req/s%n",
+                    sortedNanos.length, errors, sortedNanos.length / (double) seconds);
+            System.out.printf("Latencia ms  p50=%.2f  p90=%.2f  p99=%.2f  p99.9=%.2f  max=%.2f%n",
+                    percentile(0.50), percentile(0.90), percentile(0.99), percentile(0.999),
+                    sortedNanos.length == 0 ? 0 : sortedNanos[sortedNanos.length - 1] / 1e6);
+        }
+
+        double percentile(double p) {
+            if (sortedNanos.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(p * sortedNanos.length) - 1;
+            return sortedNanos[Math.max(0, index)] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.luis.petalthbackend.dto;
+
+import com.luis.petalthbackend.dto.response.AppointmentDTO;
+import com.luis.petalthbackend.dto.response.InvoiceDTO;
+import com.luis.petalthbackend.entity.AppointmentStatus;
+import org.openjdk.jmh.annotations.*;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Serialización JSON de listados grandes (10.000 elementos), lo que escribe el conversor HTTP en la respuesta.
+// Usamos un ObjectWriter del tipo concreto, como hace Spring al conocer el tipo de retorno del controller.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class JacksonSerializationBenchmark {
+
+    private static final int ELEMENTS = 10_000;
+
+    private ObjectWriter appointmentWriter;
+    private ObjectWriter invoiceWriter;
+    private List<AppointmentDTO> appointments;
+    private List<InvoiceDTO> invoices;
+
+    @Setup
+    public void setup() {
+        JsonMapper jsonMapper = JsonMapper.builder().build();
+        appointmentWriter = jsonMapper.writerFor(jsonMapper.getTypeFactory()
+                .constructCollectionType(List.class, AppointmentDTO.class));
+        invoiceWriter = jsonMapper.writerFor(jsonMapper.getTypeFactory()
+                .constructCollectionType(List.class, InvoiceDTO.class));
+
+        LocalDateTime start = LocalDateTime.of(2025, 10, 20, 9, 0);
+        appointments = new ArrayList<>(ELEMENTS);
+        invoices = new ArrayList<>(ELEMENTS);
+        for (int i = 0; i < ELEMENTS; i++) {
+            appointments.add(new AppointmentDTO((long) i, start.plusMinutes(30L * i), "Consulta General",
+                    AppointmentStatus.values()[i % AppointmentStatus.values().length], "Pet " + i, "Ana Pérez"));
+            invoices.add(new InvoiceDTO((long) i, start.plusMinutes(30L * i), BigDecimal.valueOf(3550 + i % 100 * 100, 2), "PENDING"));
+        }
+    }
+
+    @Benchmark
+    public byte[] appointments() {
+        return appointmentWriter.writeValueAsBytes(appointments);
+    }
+
+    @Benchmark
+    public byte[] invoices() {
+        return invoiceWriter.writeValueAsBytes(invoices);
+    }
+}
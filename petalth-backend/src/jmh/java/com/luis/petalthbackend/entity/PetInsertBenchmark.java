@@ -0,0 +1,95 @@
+package com.luis.petalthbackend.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.boot.model.naming.PhysicalNamingStrategySnakeCaseImpl;
+import org.hibernate.jpa.HibernatePersistenceConfiguration;
+import org.hibernate.tool.schema.Action;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+// Inserción de 100.000 mascotas con Hibernate. Por defecto contra una H2 en memoria (modo PostgreSQL);
+// para medir contra PostgreSQL: -Djmh.args="PetInsertBenchmark -jvmArgs -Dbench.jdbc.url=jdbc:postgresql://..."
+//  - identity:  ids IDENTITY como antes (LegacyPet), Hibernate hace un INSERT por fila.
+//  - sequence:  el mapeo actual de Pet (secuencia pooled-lo de 50) con los INSERT agrupados en lotes de 50.
+// En H2 en memoria un INSERT no cuesta un viaje de red, así que ambos quedan parecidos. Contra PostgreSQL
+// cada INSERT suelto es un viaje de red y el driver reescribe los lotes en INSERTs multi-fila.
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class PetInsertBenchmark {
+
+    private static final int PETS = 100_000;
+    private static final int CHUNK = 1_000;
+
+    @Param({"identity", "sequence"})
+    public String idGeneration;
+
+    private EntityManagerFactory entityManagerFactory;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        entityManagerFactory = new HibernatePersistenceConfiguration("pet-insert-benchmark")
+                .managedClasses(Pet.class, LegacyPet.class, Owner.class, User.class, Appointment.class,
+                        Veterinarian.class, MedicalTreatment.class, Invoice.class)
+                .jdbcUrl(System.getProperty("bench.jdbc.url", "jdbc:h2:mem:pets;MODE=PostgreSQL;DB_CLOSE_DELAY=-1"))
+                .jdbcCredentials(System.getProperty("bench.jdbc.username", "sa"),
+                        System.getProperty("bench.jdbc.password", ""))
+                .property("hibernate.connection.reWriteBatchedInserts", "true")
+                .schemaToolingAction(Action.CREATE_DROP)
+                // Mismo nombrado de columnas que Spring Boot (birthDate -> birth_date)
+                .property("hibernate.physical_naming_strategy", PhysicalNamingStrategySnakeCaseImpl.class.getName())
+                .property("hibernate.jdbc.batch_size", "50")
+                .property("hibernate.order_inserts", "true")
+                .property("hibernate.id.optimizer.pooled.preferred", "pooled-lo")
+                .createEntityManagerFactory();
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        entityManagerFactory.close();
+    }
+
+    @Benchmark
+    public int insert100kPets() {
+        boolean identity = idGeneration.equals("identity");
+        try (EntityManager em = entityManagerFactory.createEntityManager()) {
+            for (int chunk = 0; chunk < PETS; chunk += CHUNK) {
+                em.getTransaction().begin();
+                for (int i = chunk; i < chunk + CHUNK; i++) {
+                    em.persist(identity
+                            ? new LegacyPet("Pet " + i, LocalDate.of(2020, 1, 1))
+                            : Pet.builder().name("Pet " + i).birthDate(LocalDate.of(2020, 1, 1)).build());
+                }
+                em.getTransaction().commit();
+                // Vaciamos el contexto para que no crezca con cada bloque
+                em.clear();
+            }
+        }
+        return PETS;
+    }
+
+    // Misma tabla que Pet pero con el id IDENTITY de antes de este cambio
+    @Entity
+    @Table(name = "legacy_pet")
+    public static class LegacyPet {
+        @Id
+        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        private Long id;
+        private String name;
+        private String photoUrl;
+        private LocalDate birthDate;
+        private boolean active = true;
+
+        protected LegacyPet() {
+        }
+
+        LegacyPet(String name, LocalDate birthDate) {
+            this.name = name;
+            this.birthDate = birthDate;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.luis.petalthbackend.schedule;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+// Búsqueda de huecos sobre el índice en memoria con 50 veterinarios y 10.000 citas pendientes
+// repartidas al azar en los próximos 90 días.
+// scanAllAppointments reproduce el enfoque ingenuo: recorrer todas las citas para cada hueco candidato.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class VetScheduleRegistryBenchmark {
+
+    private static final int VETS = 50;
+    private static final int APPOINTMENTS = 10_000;
+    private static final int DURATION = 30;
+
+    @Param({"1", "10"})
+    public int k;
+
+    private VetScheduleRegistry registry;
+    private WorkingHours workingHours;
+    private List<Long> vetIds;
+    private List<ScheduledInterval> appointments;
+    private LocalDateTime from;
+
+    @Setup
+    public void setup() {
+        workingHours = new WorkingHours(LocalTime.of(9, 0), LocalTime.of(18, 0), Duration.ofMinutes(15),
+                EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY));
+        registry = new VetScheduleRegistry(null, null, workingHours);
+        vetIds = LongStream.rangeClosed(1, VETS).boxed().toList();
+        from = LocalDate.of(2030, 1, 7).atStartOfDay();
+
+        // Citas en huecos de 30 minutos elegidos al azar (semilla fija para que las ejecuciones sean comparables)
+        Random random = new Random(42);
+        Set<String> taken = new HashSet<>();
+        appointments = new ArrayList<>(APPOINTMENTS);
+        while (appointments.size() < APPOINTMENTS) {
+            long vetId = 1 + random.nextInt(VETS);
+            LocalDate day = from.toLocalDate().plusDays(random.nextInt(VetScheduleRegistry.SEARCH_HORIZON_DAYS));
+            List<LocalDateTime> starts = workingHours.slotStarts(day, DURATION);
+            if (starts.isEmpty()) {
+                continue;
+            }
+            LocalDateTime start = starts.get(random.nextInt(starts.size() / 2) * 2);
+            if (taken.add(vetId + "|" + start)) {
+                appointments.add(new ScheduledInterval((long) appointments.size(), vetId, start, DURATION));
+            }
+        }
+        registry.rebuild(appointments);
+    }
+
+    @Benchmark
+    public List<SlotCandidate> earliestSlots() {
+        return registry.earliestSlots(vetIds, DURATION, from, k);
+    }
+
+    @Benchmark
+    public int monthAvailabilityOneVet() {
+        return registry.freeSlots(1L, from.toLocalDate(), from.toLocalDate().plusDays(30), DURATION, from).size();
+    }
+
+    @Benchmark
+    public List<SlotCandidate> scanAllAppointments() {
+        List<SlotCandidate> result = new ArrayList<>(k);
+        for (LocalDate day = from.toLocalDate(); result.size() < k; day = day.plusDays(1)) {
+            for (LocalDateTime start : workingHours.slotStarts(day, DURATION)) {
+                TimeInterval slot = TimeInterval.of(start, DURATION);
+                for (Long vetId : vetIds) {
+                    boolean free = appointments.stream()
+                            .noneMatch(a -> a.veterinarianId().equals(vetId) && a.toInterval(DURATION).overlaps(slot));
+                    if (free && result.size() < k) {
+                        result.add(new SlotCandidate(vetId, start));
+                    }
+                }
+                if (result.size() >= k) {
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+}
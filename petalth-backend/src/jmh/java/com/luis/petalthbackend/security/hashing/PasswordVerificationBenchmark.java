@@ -0,0 +1,31 @@
+package com.luis.petalthbackend.security.hashing;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+// Coste de verificar una contraseña en el login (lo que ocupa un hilo del pool de hashing por cada intento).
+// Con el encoder delegante de la aplicación y los costes 10 (por defecto) y 12.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class PasswordVerificationBenchmark {
+
+    @Param({"10", "12"})
+    public int bcryptStrength;
+
+    private PasswordEncoder passwordEncoder;
+    private String hash;
+
+    @Setup
+    public void setup() {
+        passwordEncoder = PasswordEncoders.create(PasswordEncoders.BCRYPT, bcryptStrength);
+        hash = passwordEncoder.encode("123456");
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return passwordEncoder.matches("123456", hash);
+    }
+}
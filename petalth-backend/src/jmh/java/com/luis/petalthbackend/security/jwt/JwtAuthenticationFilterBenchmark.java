@@ -0,0 +1,70 @@
+package com.luis.petalthbackend.security.jwt;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Filtro JWT completo por petición: cabecera -> parseo -> usuario -> validación -> SecurityContext (+ timers).
+// selfContained=false simula un acierto de PrincipalCache (sin BDD); true construye el principal desde los claims.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class JwtAuthenticationFilterBenchmark {
+
+    private static final String SECRET = "benchmark-secret-benchmark-secret-benchmark-secret-0123456789";
+
+    @Param({"false", "true"})
+    public boolean selfContained;
+
+    private JwtAuthenticationFilter filter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private final FilterChain chain = (req, res) -> { };
+
+    @Setup
+    public void setup() {
+        JwtService jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtService, "expiration", 3_600_000L);
+        ReflectionTestUtils.setField(jwtService, "selfContained", selfContained);
+        jwtService.init();
+
+        com.luis.petalthbackend.entity.User user = com.luis.petalthbackend.entity.User.builder()
+                .id(1L)
+                .email("ana@vet.com")
+                .password("")
+                .rol(com.luis.petalthbackend.entity.Rol.VET)
+                .build();
+        UserDetails cachedPrincipal = User.withUsername("ana@vet.com")
+                .password("")
+                .authorities(List.of(new SimpleGrantedAuthority("ROLE_VET")))
+                .build();
+
+        // Sin revocaciones: el registro no llega a consultar el repositorio
+        filter = new JwtAuthenticationFilter(jwtService, email -> cachedPrincipal,
+                new TokenRevocationRegistry(null), new SimpleMeterRegistry());
+
+        request = new MockHttpServletRequest("GET", "/api/appointments/my-agenda");
+        request.addHeader("Authorization", "Bearer " + jwtService.generateToken(user));
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public Authentication filter() throws Exception {
+        filter.doFilter(request, response, chain);
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+}
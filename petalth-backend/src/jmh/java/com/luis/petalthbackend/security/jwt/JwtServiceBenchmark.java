@@ -0,0 +1,81 @@
+package com.luis.petalthbackend.security.jwt;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Coste de cada operación de JwtService: generar (login), parsear (firma HMAC) y validar un token ya parseado.
+// legacyValidation reproduce el camino anterior: 3 parseos + 3 verificaciones HMAC + 3 claves nuevas.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class JwtServiceBenchmark {
+
+    private static final String SECRET = "benchmark-secret-benchmark-secret-benchmark-secret-0123456789";
+
+    private JwtService jwtService;
+    private UserDetails user;
+    private String token;
+    private ValidatedToken parsedToken;
+
+    @Setup
+    public void setup() {
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtService, "expiration", 3_600_000L);
+        jwtService.init();
+
+        user = User.withUsername("ana@vet.com")
+                .password("")
+                .authorities(List.of(new SimpleGrantedAuthority("ROLE_VET")))
+                .build();
+        token = jwtService.generateToken(user);
+        parsedToken = jwtService.parseToken(token);
+    }
+
+    @Benchmark
+    public String generate() {
+        return jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public ValidatedToken parse() {
+        return jwtService.parseToken(token);
+    }
+
+    @Benchmark
+    public boolean validate() {
+        return jwtService.isTokenValid(parsedToken, user);
+    }
+
+    @Benchmark
+    public boolean legacyValidation() {
+        String email = legacyClaims(token).getSubject();
+        return email.equals(user.getUsername())
+                && legacyClaims(token).getSubject().equals(user.getUsername())
+                && !legacyClaims(token).getExpiration().before(new Date());
+    }
+
+    @Benchmark
+    public boolean singleParseValidation() {
+        ValidatedToken validatedToken = jwtService.parseToken(token);
+        return jwtService.isTokenValid(validatedToken, user);
+    }
+
+    private static Claims legacyClaims(String token) {
+        return Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+}
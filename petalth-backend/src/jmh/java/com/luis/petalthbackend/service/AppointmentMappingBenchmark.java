@@ -0,0 +1,64 @@
+package com.luis.petalthbackend.service;
+
+import com.luis.petalthbackend.dto.response.AppointmentDTO;
+import com.luis.petalthbackend.entity.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Coste de AppointmentService.convertToDTO (entidad -> DTO) sobre 1.000 citas ya cargadas en memoria.
+// Solo la parte de CPU: con la caché de segundo nivel las relaciones ya no pasan por la BDD.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class AppointmentMappingBenchmark {
+
+    private static final int APPOINTMENTS = 1_000;
+
+    private AppointmentService appointmentService;
+    private MethodHandle convertToDTO;
+    private List<Appointment> appointments;
+
+    @Setup
+    public void setup() throws ReflectiveOperationException {
+        appointmentService = new AppointmentService(null, null, null, null);
+        // convertToDTO es privado: lo invocamos con un MethodHandle en lugar de abrirlo solo para el benchmark
+        convertToDTO = MethodHandles.privateLookupIn(AppointmentService.class, MethodHandles.lookup())
+                .findVirtual(AppointmentService.class, "convertToDTO",
+                        MethodType.methodType(AppointmentDTO.class, Appointment.class));
+
+        MedicalTreatment treatment = MedicalTreatment.builder().id(1L).name("Consulta General").durationMinutes(30).build();
+        Veterinarian vet = Veterinarian.builder()
+                .id(1L)
+                .user(User.builder().id(1L).firstName("Ana").lastName("Pérez").rol(Rol.VET).build())
+                .build();
+        appointments = new ArrayList<>(APPOINTMENTS);
+        for (int i = 0; i < APPOINTMENTS; i++) {
+            Pet pet = Pet.builder().id((long) i).name("Pet " + i).birthDate(LocalDate.of(2020, 1, 1)).build();
+            appointments.add(Appointment.builder()
+                    .id((long) i)
+                    .dateTime(LocalDateTime.of(2025, 10, 20, 9, 0).plusMinutes(30L * i))
+                    .service(treatment)
+                    .pet(pet)
+                    .veterinarian(vet)
+                    .status(AppointmentStatus.PENDING)
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public List<AppointmentDTO> convertToDTO() throws Throwable {
+        List<AppointmentDTO> dtos = new ArrayList<>(APPOINTMENTS);
+        for (Appointment appointment : appointments) {
+            dtos.add((AppointmentDTO) convertToDTO.invoke(appointmentService, appointment));
+        }
+        return dtos;
+    }
+}
@@ -0,0 +1,15 @@
+package com.luis.petalthbackend.cache;
+
+// Nombres de las regiones de la caché de segundo nivel. Se usan en las anotaciones @Cache de las entidades
+// y al crear las cachés en EntityCacheConfig, así ambos lados no se pueden desincronizar.
+public final class CacheRegions {
+
+    public static final String MEDICAL_TREATMENT = "medicalTreatment";
+    public static final String VETERINARIAN = "veterinarian";
+    public static final String USER = "user";
+
+    public static final String[] ALL = {MEDICAL_TREATMENT, VETERINARIAN, USER};
+
+    private CacheRegions() {
+    }
+}
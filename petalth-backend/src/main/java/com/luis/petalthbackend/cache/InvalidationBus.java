@@ -0,0 +1,388 @@
+package com.luis.petalthbackend.cache;
+
+import com.luis.petalthbackend.event.AppointmentChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Invalidación de cachés entre nodos con LISTEN/NOTIFY de PostgreSQL. Cada nodo cachea en memoria principals,
+// usuarios/veterinarios/tratamientos (segundo nivel), ETags de listados, revocaciones y agendas: con varias
+// instancias, un cambio en una deja a las demás con datos viejos. Tras cada commit se envía un NOTIFY y cada
+// nodo, que escucha el canal en una conexión propia, aplica el cambio en sus cachés (InvalidationHandler).
+//  - Orden: la secuencia se asigna y el mensaje se encola bajo un mismo cerrojo, un único hilo envía los mensajes
+//    de este nodo y PostgreSQL entrega los NOTIFY de una sesión en orden: los demás los reciben numerados en orden.
+//  - Pérdidas: cada mensaje lleva el id del nodo y una secuencia. Un hueco (mensaje no enviado, cola llena)
+//    o una reconexión del listener significan que algo se ha podido perder: se descartan todas las cachés locales.
+//  - Latido: sin nada que enviar durante 'poll-interval', el nodo envía su secuencia actual sin mensaje. Así una
+//    pérdida al final (el último mensaje antes de un rato sin cambios) se detecta en poll-interval, no en el
+//    siguiente cambio de ese nodo.
+// Sin PostgreSQL (H2 en tests y pruebas de carga) o con cache-invalidation.enabled=false no hace nada.
+@Component
+public class InvalidationBus {
+
+    private static final Logger log = LoggerFactory.getLogger(InvalidationBus.class);
+
+    public static final String CHANNEL = "petalth_invalidation";
+    public static final String APPLICATION_NAME = "petalth-invalidation";
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final boolean enabled;
+    private final Duration pollInterval;
+    private final Duration reconnectDelay;
+    private final InvalidationHandler handler;
+    private final JsonMapper jsonMapper;
+
+    // Id de este arranque: la secuencia vuelve a empezar con cada uno
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ReentrantLock enqueueLock = new ReentrantLock();
+    private long sequence; // Protegida por enqueueLock
+    private final BlockingQueue<Envelope> outgoing;
+    // Última secuencia recibida de cada nodo (solo la toca el hilo del listener)
+    private final Map<String, Long> lastSequences = new HashMap<>();
+
+    private final Counter published;
+    private final Counter received;
+    private final Counter dropped;
+    private final Counter gapResyncs;
+    private final Counter reconnectResyncs;
+
+    private final List<Thread> threads = new ArrayList<>();
+    private volatile boolean running;
+    private volatile boolean listening;
+
+    public InvalidationBus(@Value("${spring.datasource.url}") String url,
+                           @Value("${spring.datasource.username:}") String username,
+                           @Value("${spring.datasource.password:}") String password,
+                           @Value("${cache-invalidation.enabled:true}") boolean enabled,
+                           @Value("${cache-invalidation.queue-size:10000}") int queueSize,
+                           @Value("${cache-invalidation.poll-interval:10s}") Duration pollInterval,
+                           @Value("${cache-invalidation.reconnect-delay:5s}") Duration reconnectDelay,
+                           InvalidationHandler handler,
+                           JsonMapper jsonMapper,
+                           MeterRegistry meterRegistry) {
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.enabled = enabled && url.startsWith("jdbc:postgresql:");
+        this.pollInterval = pollInterval;
+        this.reconnectDelay = reconnectDelay;
+        this.handler = handler;
+        this.jsonMapper = jsonMapper;
+        this.outgoing = new ArrayBlockingQueue<>(queueSize);
+        this.published = Counter.builder("cache.invalidation.published")
+                .description("Mensajes de invalidación enviados a los demás nodos")
+                .register(meterRegistry);
+        this.received = Counter.builder("cache.invalidation.received")
+                .description("Mensajes de invalidación de otros nodos aplicados en este")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("cache.invalidation.dropped")
+                .description("Mensajes no enviados (cola llena o error de BDD); los demás nodos resincronizan")
+                .register(meterRegistry);
+        this.gapResyncs = resyncs(meterRegistry, "gap");
+        this.reconnectResyncs = resyncs(meterRegistry, "reconnect");
+    }
+
+    private static Counter resyncs(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("cache.invalidation.resyncs")
+                .description("Resincronizaciones completas de las cachés locales")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        ThreadFactory threadFactory = new CustomizableThreadFactory("invalidation-");
+        threads.add(threadFactory.newThread(this::listen));
+        threads.add(threadFactory.newThread(this::send));
+        threads.forEach(Thread::start);
+        log.info("Bus de invalidación escuchando en el canal {} (nodo {})", CHANNEL, nodeId);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        for (Thread thread : threads) {
+            thread.interrupt();
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        threads.clear();
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    // true mientras el listener tiene hecho el LISTEN: lo que se notifique entonces le llega
+    public boolean isListening() {
+        return listening;
+    }
+
+    // Envía el mensaje cuando (y solo si) la transacción actual hace commit. Sin transacción, al momento.
+    public void publishAfterCommit(InvalidationMessage message) {
+        if (!enabled) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            enqueue(message);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                enqueue(message);
+            }
+        });
+    }
+
+    // Citas creadas o que cambian de estado (AppointmentService, BookingService, ImportService)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        if (enabled) {
+            enqueue(InvalidationMessage.appointment(event));
+        }
+    }
+
+    // Numerar y encolar en un solo paso: si no, con commits concurrentes el N+1 podía entrar en la cola antes que
+    // el N y los demás nodos veían un hueco que no existe. La secuencia se consume aunque el mensaje no quepa en
+    // la cola: así el hueco lo detectan los demás nodos.
+    private void enqueue(InvalidationMessage message) {
+        enqueueLock.lock();
+        try {
+            if (!outgoing.offer(new Envelope(nodeId, ++sequence, message))) {
+                dropped.increment();
+            }
+        } finally {
+            enqueueLock.unlock();
+        }
+    }
+
+    // Latido con la cola vacía: todo lo numerado hasta aquí ya se ha enviado o se ha perdido. null si mientras
+    // tanto se ha encolado algo (sale en la siguiente vuelta y anuncia él la secuencia)
+    private Envelope heartbeat() {
+        enqueueLock.lock();
+        try {
+            return outgoing.isEmpty() ? new Envelope(nodeId, sequence, null) : null;
+        } finally {
+            enqueueLock.unlock();
+        }
+    }
+
+    // Vacía la cola en el orden en que saldría, sin enviar nada (tests sin PostgreSQL)
+    List<String> drainOutgoing() {
+        List<Envelope> envelopes = new ArrayList<>();
+        outgoing.drainTo(envelopes);
+        return envelopes.stream().map(jsonMapper::writeValueAsString).toList();
+    }
+
+    // ============================================================
+    // ENVÍO: un solo hilo y una conexión propia, los mensajes salen en el orden en que se encolaron
+    // ============================================================
+
+    private void send() {
+        Connection connection = null;
+        List<Envelope> batch = new ArrayList<>();
+        long lastSent = System.nanoTime();
+        while (running) {
+            try {
+                Envelope first = outgoing.poll(1, TimeUnit.SECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    outgoing.drainTo(batch, 99);
+                } else if (System.nanoTime() - lastSent < pollInterval.toNanos()) {
+                    continue;
+                }
+                if (connection == null) {
+                    connection = connect();
+                }
+                try (PreparedStatement statement = connection.prepareStatement("SELECT pg_notify(?, ?)")) {
+                    Envelope heartbeat = batch.isEmpty() ? heartbeat() : null;
+                    if (heartbeat != null) {
+                        pgNotify(statement, heartbeat);
+                    }
+                    for (Envelope envelope : batch) {
+                        pgNotify(statement, envelope);
+                        published.increment();
+                    }
+                }
+                lastSent = System.nanoTime();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (SQLException | RuntimeException e) {
+                // Lo que no ha salido se pierde: los demás nodos verán el hueco (con el siguiente mensaje o latido)
+                dropped.increment(batch.size());
+                log.warn("Error enviando al canal {} ({} invalidaciones perdidas): {}", CHANNEL, batch.size(),
+                        e.getMessage());
+                closeQuietly(connection);
+                connection = null;
+                sleep(reconnectDelay);
+            } finally {
+                batch.clear();
+            }
+        }
+        closeQuietly(connection);
+    }
+
+    private void pgNotify(PreparedStatement statement, Envelope envelope) throws SQLException {
+        statement.setString(1, CHANNEL);
+        statement.setString(2, jsonMapper.writeValueAsString(envelope));
+        statement.executeQuery().close();
+    }
+
+    // ============================================================
+    // RECEPCIÓN: LISTEN en una conexión propia, reconectando si se cae
+    // ============================================================
+
+    private void listen() {
+        boolean connectedBefore = false;
+        while (running) {
+            try (Connection connection = connect()) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                if (connectedBefore) {
+                    // Mientras estábamos desconectados nos hemos podido perder cualquier cosa
+                    lastSequences.clear();
+                    resync(reconnectResyncs, "reconexión");
+                }
+                connectedBefore = true;
+                listening = true;
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications((int) pollInterval.toMillis());
+                    if (notifications == null || notifications.length == 0) {
+                        // Sin tráfico: comprobamos que la conexión sigue viva (una caída de red no lanza excepción)
+                        if (!connection.isValid(5)) {
+                            throw new SQLException("La conexión del listener ya no es válida");
+                        }
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        receive(notification.getParameter());
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                listening = false;
+                if (running) {
+                    log.warn("Listener de invalidaciones desconectado, reintentando en {}: {}",
+                            reconnectDelay, e.getMessage());
+                    sleep(reconnectDelay);
+                }
+            }
+        }
+        listening = false;
+    }
+
+    void receive(String payload) {
+        Envelope envelope;
+        try {
+            envelope = jsonMapper.readValue(payload, Envelope.class);
+        } catch (JacksonException e) {
+            log.warn("Mensaje de invalidación ilegible, se ignora: {}", payload);
+            return;
+        }
+        if (nodeId.equals(envelope.node())) {
+            return; // Los nuestros ya se aplicaron localmente tras el commit
+        }
+        Long last = lastSequences.get(envelope.node());
+        if (last != null && envelope.sequence() <= last) {
+            return; // Repetido, o latido sin novedades
+        }
+        lastSequences.put(envelope.node(), envelope.sequence());
+        // Lo que el nodo había enviado antes de esto: el latido no consume secuencia, un mensaje sí
+        boolean heartbeat = envelope.message() == null;
+        long sentBefore = heartbeat ? envelope.sequence() : envelope.sequence() - 1;
+        if (last != null && sentBefore > last) {
+            resync(gapResyncs, "hueco en la secuencia del nodo " + envelope.node());
+        }
+        if (heartbeat) {
+            return;
+        }
+        try {
+            handler.apply(envelope.message());
+            received.increment();
+        } catch (RuntimeException e) {
+            log.warn("Error aplicando la invalidación {}: {}", envelope.message().type(), e.getMessage());
+        }
+    }
+
+    private void resync(Counter counter, String reason) {
+        log.warn("Resincronizando cachés locales: {}", reason);
+        counter.increment();
+        try {
+            handler.resyncAll();
+        } catch (RuntimeException e) {
+            log.error("Error resincronizando las cachés locales", e);
+        }
+    }
+
+    private Connection connect() throws SQLException {
+        Properties properties = new Properties();
+        properties.setProperty("user", username);
+        properties.setProperty("password", password);
+        properties.setProperty("ApplicationName", APPLICATION_NAME);
+        Connection connection = DriverManager.getConnection(url, properties);
+        connection.setAutoCommit(true);
+        return connection;
+    }
+
+    private static void closeQuietly(Connection connection) {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException ignored) {
+                // La conexión ya estaba rota
+            }
+        }
+    }
+
+    private static void sleep(Duration delay) {
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Lo que viaja en el payload del NOTIFY (JSON, muy por debajo del límite de 8000 bytes).
+    // Sin mensaje es un latido: solo anuncia la última secuencia del nodo.
+    record Envelope(String node, long sequence, InvalidationMessage message) {}
+}
@@ -0,0 +1,10 @@
+package com.luis.petalthbackend.cache;
+
+// Lo que hace un nodo con los cambios que le llegan de los demás por InvalidationBus
+public interface InvalidationHandler {
+
+    void apply(InvalidationMessage message);
+
+    // Se han podido perder mensajes (hueco en la secuencia de un nodo o reconexión): se descarta todo lo cacheado
+    void resyncAll();
+}
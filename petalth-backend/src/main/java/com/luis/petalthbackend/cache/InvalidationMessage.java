@@ -0,0 +1,37 @@
+package com.luis.petalthbackend.cache;
+
+import com.luis.petalthbackend.event.AppointmentChangedEvent;
+
+// Cambio confirmado en un nodo que los demás nodos deben aplicar en sus cachés locales.
+// Cada tipo usa solo sus campos; el resto van a null.
+public record InvalidationMessage(
+        Type type,
+        Long id,                    // USER: id del usuario; OWNER_PETS: id del dueño
+        String email,               // USER: clave de PrincipalCache
+        Integer tokenVersion,       // USER: versión vigente de sus tokens (0 si nunca se ha revocado)
+        AppointmentChangedEvent appointment
+) {
+
+    public enum Type {
+        USER,           // principal, usuario/veterinario de la caché de segundo nivel y revocación de tokens
+        VETERINARIANS,  // ETag del listado de veterinarios
+        OWNER_PETS,     // ETag del listado de mascotas de un dueño
+        APPOINTMENT     // agendas en memoria (disponibilidad) y agendas en tiempo real (SSE)
+    }
+
+    public static InvalidationMessage user(Long userId, String email, int tokenVersion) {
+        return new InvalidationMessage(Type.USER, userId, email, tokenVersion, null);
+    }
+
+    public static InvalidationMessage veterinarians() {
+        return new InvalidationMessage(Type.VETERINARIANS, null, null, null, null);
+    }
+
+    public static InvalidationMessage ownerPets(Long ownerId) {
+        return new InvalidationMessage(Type.OWNER_PETS, ownerId, null, null, null);
+    }
+
+    public static InvalidationMessage appointment(AppointmentChangedEvent event) {
+        return new InvalidationMessage(Type.APPOINTMENT, null, null, null, event);
+    }
+}
@@ -0,0 +1,73 @@
+package com.luis.petalthbackend.cache;
+
+import com.luis.petalthbackend.event.AgendaEventBus;
+import com.luis.petalthbackend.schedule.VetScheduleRegistry;
+import com.luis.petalthbackend.security.PrincipalCache;
+import com.luis.petalthbackend.security.jwt.TokenRevocationRegistry;
+import com.luis.petalthbackend.service.AgendaStreamService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+// Aplica en las cachés de este nodo los cambios confirmados en otro. Son las mismas operaciones que el nodo
+// de origen hace tras su commit, pero inmediatas: el mensaje solo se envía cuando el commit ya ha ocurrido.
+@Component
+public class LocalCacheInvalidator implements InvalidationHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalCacheInvalidator.class);
+
+    private final PrincipalCache principalCache;
+    private final ReferenceDataCache referenceDataCache;
+    private final ResourceVersions resourceVersions;
+    private final TokenRevocationRegistry tokenRevocationRegistry;
+    private final VetScheduleRegistry vetScheduleRegistry;
+    private final AgendaStreamService agendaStreamService;
+    private final AgendaEventBus agendaEventBus;
+
+    public LocalCacheInvalidator(PrincipalCache principalCache,
+                                 ReferenceDataCache referenceDataCache,
+                                 ResourceVersions resourceVersions,
+                                 TokenRevocationRegistry tokenRevocationRegistry,
+                                 VetScheduleRegistry vetScheduleRegistry,
+                                 AgendaStreamService agendaStreamService,
+                                 AgendaEventBus agendaEventBus) {
+        this.principalCache = principalCache;
+        this.referenceDataCache = referenceDataCache;
+        this.resourceVersions = resourceVersions;
+        this.tokenRevocationRegistry = tokenRevocationRegistry;
+        this.vetScheduleRegistry = vetScheduleRegistry;
+        this.agendaStreamService = agendaStreamService;
+        this.agendaEventBus = agendaEventBus;
+    }
+
+    @Override
+    public void apply(InvalidationMessage message) {
+        switch (message.type()) {
+            case USER -> {
+                if (message.tokenVersion() != null && message.tokenVersion() > 0) {
+                    tokenRevocationRegistry.revoke(message.id(), message.tokenVersion());
+                }
+                principalCache.invalidate(message.email());
+                referenceDataCache.evictUser(message.id());
+            }
+            case VETERINARIANS -> resourceVersions.veterinariansChanged();
+            case OWNER_PETS -> resourceVersions.ownerPetsChanged(message.id());
+            case APPOINTMENT -> {
+                vetScheduleRegistry.onAppointmentChanged(message.appointment());
+                agendaStreamService.onAppointmentChanged(message.appointment());
+            }
+        }
+    }
+
+    @Override
+    public void resyncAll() {
+        principalCache.invalidateAll();
+        referenceDataCache.evictAll();
+        resourceVersions.invalidateAll();
+        tokenRevocationRegistry.loadFromDatabase();
+        vetScheduleRegistry.rebuildFromDatabase();
+        // Las conexiones SSE abiertas vuelven a recibir la agenda completa
+        agendaEventBus.resyncAll();
+        log.info("Cachés locales descartadas y recargadas (resincronización con el resto de nodos)");
+    }
+}
@@ -0,0 +1,106 @@
+package com.luis.petalthbackend.cache;
+
+import com.luis.petalthbackend.dto.response.EntityCacheStatsDTO;
+import com.luis.petalthbackend.entity.MedicalTreatment;
+import com.luis.petalthbackend.entity.User;
+import com.luis.petalthbackend.entity.Veterinarian;
+import com.luis.petalthbackend.replica.RecentInvalidations;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+
+import java.util.Arrays;
+import java.util.List;
+
+// Invalidación explícita y estadísticas de la caché de segundo nivel.
+// Hibernate ya actualiza la caché cuando la entidad cambia por JPA; evictamos a mano para los cambios
+// que no pasan por la entidad (consultas bulk, SQL nativo) y para que una baja no dependa de ello.
+// Tras evictar, cualquier consulta puede volver a cargar la entidad: durante un rato todas las lecturas van a
+// la primaria (RecentInvalidations), o una réplica retrasada volvería a cachear la fila de antes del cambio.
+@Component
+public class ReferenceDataCache {
+
+    private final EntityManagerFactory entityManagerFactory;
+    // No existe si la caché está desactivada (entity-cache.enabled=false)
+    private final ObjectProvider<CacheManager> entityCacheManager;
+    private final RecentInvalidations recentInvalidations;
+
+    public ReferenceDataCache(EntityManagerFactory entityManagerFactory,
+                              ObjectProvider<CacheManager> entityCacheManager,
+                              RecentInvalidations recentInvalidations) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.entityCacheManager = entityCacheManager;
+        this.recentInvalidations = recentInvalidations;
+    }
+
+    // El veterinario comparte id con su usuario (@MapsId), así que evictamos ambos
+    public void evictUser(Long userId) {
+        recentInvalidations.invalidatedAll();
+        entityManagerFactory.getCache().evict(User.class, userId);
+        entityManagerFactory.getCache().evict(Veterinarian.class, userId);
+    }
+
+    // Como en PrincipalCache: si evictamos antes del commit, otra petición podría volver a cachear el dato viejo
+    public void evictUserAfterCommit(Long userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evictUser(userId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evictUser(userId);
+            }
+        });
+    }
+
+    public void evictTreatments() {
+        recentInvalidations.invalidatedAll();
+        entityManagerFactory.getCache().evict(MedicalTreatment.class);
+    }
+
+    public void evictAll() {
+        recentInvalidations.invalidatedAll();
+        entityManagerFactory.getCache().evict(User.class);
+        entityManagerFactory.getCache().evict(Veterinarian.class);
+        evictTreatments();
+    }
+
+    public List<EntityCacheStatsDTO> stats() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        return Arrays.stream(CacheRegions.ALL)
+                .map(region -> toDTO(region, statistics.getCacheRegionStatistics(region)))
+                .toList();
+    }
+
+    private EntityCacheStatsDTO toDTO(String region, CacheRegionStatistics regionStats) {
+        if (regionStats == null) {
+            // Caché desactivada (entity-cache.enabled=false) o región aún no usada
+            return new EntityCacheStatsDTO(region, 0, 0, 0, 0.0, 0);
+        }
+        long hits = regionStats.getHitCount();
+        long misses = regionStats.getMissCount();
+        long requests = hits + misses;
+        return new EntityCacheStatsDTO(region, hits, misses, regionStats.getPutCount(),
+                requests == 0 ? 0.0 : (double) hits / requests,
+                size(region));
+    }
+
+    // Hibernate no sabe el tamaño de una región JCache: se lo preguntamos directamente a Caffeine
+    private long size(String region) {
+        CacheManager cacheManager = entityCacheManager.getIfAvailable();
+        Cache<Object, Object> cache = cacheManager != null ? cacheManager.getCache(region) : null;
+        if (cache == null) {
+            return 0;
+        }
+        return cache.unwrap(com.github.benmanes.caffeine.cache.Cache.class).estimatedSize();
+    }
+}
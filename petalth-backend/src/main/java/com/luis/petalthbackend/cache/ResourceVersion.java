@@ -0,0 +1,4 @@
+package com.luis.petalthbackend.cache;
+
+// ETag (entre comillas, listo para la cabecera) y Last-Modified en milisegundos de un listado
+public record ResourceVersion(String etag, long lastModified) {}
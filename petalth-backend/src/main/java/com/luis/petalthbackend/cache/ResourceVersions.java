@@ -0,0 +1,132 @@
+package com.luis.petalthbackend.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.luis.petalthbackend.replica.RecentInvalidations;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Versiones en memoria de los listados que el front pide en cada carga de página (veterinarios y mascotas
+// de cada dueño). Con ellas respondemos a los GET condicionales (ETag / Last-Modified) sin consultar la BDD.
+// Los servicios que modifican esos datos suben la versión tras el commit.
+// Cada subida abre además una ventana en la que ese listado se lee de la primaria (RecentInvalidations): leído de
+// una réplica retrasada, el ETag nuevo iría con los datos viejos.
+@Component
+public class ResourceVersions {
+
+    // Nombre de cada listado en su ETag y en RecentInvalidations
+    public static final String VETERINARIANS = "vets";
+
+    public static String ownerPetsResource(Long ownerId) {
+        return "pets-" + ownerId;
+    }
+
+    // Distingue los ETag de cada arranque: tras reiniciar, los contadores vuelven a empezar
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    // Todas las versiones salen de la misma secuencia, así nunca se repite un valor ya entregado.
+    // Cada versión nueva se calcula sobre la anterior de forma atómica: dos commits simultáneos no pueden
+    // hacer retroceder la versión
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final AtomicReference<Version> veterinarians;
+
+    // Solo los dueños con cambios desde el arranque. Si uno se expulsa de la caché, su versión pasa
+    // a ser 'evictedFloor' (la mayor expulsada): puede provocar un 200 de más, pero nunca un 304 con datos viejos.
+    private final Cache<Long, Version> ownerPets;
+    private final AtomicReference<Version> evictedFloor;
+
+    private final RecentInvalidations recentInvalidations;
+
+    public ResourceVersions(@Value("${http.resource-versions.max-owners:100000}") long maxOwners,
+                            RecentInvalidations recentInvalidations) {
+        this.recentInvalidations = recentInvalidations;
+        Version initial = new Version(0, nextSecond(0));
+        this.veterinarians = new AtomicReference<>(initial);
+        this.evictedFloor = new AtomicReference<>(initial);
+        this.ownerPets = Caffeine.newBuilder()
+                .maximumSize(maxOwners)
+                .<Long, Version>evictionListener((ownerId, version, cause) ->
+                        evictedFloor.accumulateAndGet(version, Version::max))
+                .build();
+    }
+
+    public ResourceVersion veterinarians() {
+        return toResourceVersion(VETERINARIANS, veterinarians.get());
+    }
+
+    public void veterinariansChangedAfterCommit() {
+        afterCommit(this::veterinariansChanged);
+    }
+
+    public void veterinariansChanged() {
+        // Primero la ventana: quien vea ya la versión nueva tiene que leer de la primaria
+        recentInvalidations.invalidated(VETERINARIANS);
+        veterinarians.updateAndGet(this::next);
+    }
+
+    public ResourceVersion ownerPets(Long ownerId) {
+        Version version = ownerPets.getIfPresent(ownerId);
+        return toResourceVersion(ownerPetsResource(ownerId), version != null ? version : evictedFloor.get());
+    }
+
+    public void ownerPetsChangedAfterCommit(Long ownerId) {
+        afterCommit(() -> ownerPetsChanged(ownerId));
+    }
+
+    public void ownerPetsChanged(Long ownerId) {
+        recentInvalidations.invalidated(ownerPetsResource(ownerId));
+        ownerPets.asMap().compute(ownerId, (id, previous) -> next(previous != null ? previous : evictedFloor.get()));
+    }
+
+    // Todas las versiones cambian: el siguiente GET condicional de cualquier listado recibe un 200
+    public void invalidateAll() {
+        recentInvalidations.invalidatedAll();
+        veterinariansChanged();
+        ownerPets.asMap().values().forEach(version -> evictedFloor.accumulateAndGet(version, Version::max));
+        evictedFloor.updateAndGet(this::next);
+        ownerPets.invalidateAll();
+    }
+
+    // Last-Modified viaja en segundos: lo redondeamos al segundo siguiente y siempre por encima del anterior
+    // de ese listado. Con dos cambios en el mismo segundo, un cliente que solo envía If-Modified-Since con la
+    // fecha del primero recibiría un 304 con los datos anteriores al segundo.
+    private Version next(Version previous) {
+        return new Version(sequence.incrementAndGet(), nextSecond(previous.lastModified()));
+    }
+
+    private static long nextSecond(long previousLastModified) {
+        long roundedUp = (System.currentTimeMillis() / 1000 + 1) * 1000;
+        return Math.max(roundedUp, previousLastModified + 1000);
+    }
+
+    private ResourceVersion toResourceVersion(String resource, Version version) {
+        return new ResourceVersion("\"" + resource + "-" + epoch + "-" + version.value() + "\"",
+                version.lastModified());
+    }
+
+    // Antes del commit otra petición podría leer los datos viejos y guardarlos con la versión nueva
+    private static void afterCommit(Runnable bump) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            bump.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                bump.run();
+            }
+        });
+    }
+
+    private record Version(long value, long lastModified) {
+        static Version max(Version a, Version b) {
+            return new Version(Math.max(a.value, b.value), Math.max(a.lastModified, b.lastModified));
+        }
+    }
+}
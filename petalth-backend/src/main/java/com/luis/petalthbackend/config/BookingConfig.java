@@ -0,0 +1,27 @@
+package com.luis.petalthbackend.config;
+
+import com.luis.petalthbackend.schedule.WorkingHours;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.EnumSet;
+import java.util.Set;
+
+// Horario de la clínica que usa el motor de reservas (configurable en application.properties)
+@Configuration
+public class BookingConfig {
+
+    @Bean
+    public WorkingHours workingHours(@Value("${booking.opening-time:09:00}") String openingTime,
+                                     @Value("${booking.closing-time:18:00}") String closingTime,
+                                     @Value("${booking.slot-step:15m}") Duration slotStep,
+                                     @Value("${booking.working-days:MONDAY,TUESDAY,WEDNESDAY,THURSDAY,FRIDAY}")
+                                     Set<DayOfWeek> workingDays) {
+        return new WorkingHours(LocalTime.parse(openingTime), LocalTime.parse(closingTime), slotStep,
+                EnumSet.copyOf(workingDays));
+    }
+}
@@ -0,0 +1,57 @@
+package com.luis.petalthbackend.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import com.luis.petalthbackend.cache.CacheRegions;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.hibernate.autoconfigure.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.time.Duration;
+import java.util.OptionalLong;
+
+// Caché de segundo nivel de Hibernate para los datos de referencia: tratamientos, veterinarios y sus usuarios.
+// Cambian muy poco y se leen en cada cita que pasamos a DTO. Es una caché local (Caffeine vía JCache)
+// con tamaño máximo por región; el TTL acota lo que puede durar un dato modificado por fuera de Hibernate.
+@Configuration
+@ConditionalOnProperty(name = "entity-cache.enabled", havingValue = "true", matchIfMissing = true)
+public class EntityCacheConfig {
+
+    @Bean
+    public CacheManager entityCacheManager(@Value("${entity-cache.max-size:10000}") long maxSize,
+                                           @Value("${entity-cache.ttl:1h}") Duration ttl) {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager();
+        for (String region : CacheRegions.ALL) {
+            if (cacheManager.getCache(region) == null) {
+                cacheManager.createCache(region, regionConfiguration(maxSize, ttl));
+            }
+        }
+        return cacheManager;
+    }
+
+    // Hibernate usa nuestro CacheManager ya configurado. Activar la caché y fallar si falta una región
+    // (missing_cache_strategy=fail) va en application.properties: tiene que valer también sin esta clase.
+    @Bean
+    public HibernatePropertiesCustomizer entityCacheHibernateProperties(CacheManager entityCacheManager) {
+        return properties -> {
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, ConfigSettings.SIMPLE_FACTORY_NAME);
+            properties.put(ConfigSettings.CACHE_MANAGER, entityCacheManager);
+            // Necesario para las estadísticas por región (hits, misses, puts)
+            properties.put(AvailableSettings.GENERATE_STATISTICS, true);
+        };
+    }
+
+    private static CaffeineConfiguration<Object, Object> regionConfiguration(long maxSize, Duration ttl) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maxSize));
+        configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+        return configuration;
+    }
+}
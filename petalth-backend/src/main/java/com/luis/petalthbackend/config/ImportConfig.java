@@ -0,0 +1,28 @@
+package com.luis.petalthbackend.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Pool acotado para el BCrypt de las contraseñas importadas. BCrypt usa CPU al 100%: más hilos que núcleos
+// no acelera nada y dejaría sin CPU al resto de peticiones. Con la cola llena, el hilo de la importación
+// hashea él mismo (CallerRunsPolicy), lo que frena la lectura del CSV en lugar de acumular trabajo.
+@Configuration
+public class ImportConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService importHashingExecutor(@Value("${import.hashing-threads:0}") int threads,
+                                                 @Value("${import.chunk-size:500}") int chunkSize) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(chunkSize),
+                new CustomizableThreadFactory("import-hash-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+}
@@ -0,0 +1,73 @@
+package com.luis.petalthbackend.config;
+
+import com.luis.petalthbackend.replica.RecentInvalidations;
+import com.luis.petalthbackend.replica.ReplicaLagMonitor;
+import com.luis.petalthbackend.replica.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+// Réplica de lectura. Solo se activa si hay 'read-replica.url'; sin ella el DataSource es el de Spring Boot.
+// Dos pools Hikari (primaria con spring.datasource.*, réplica con read-replica.*), cada uno con sus métricas
+// hikaricp.connections{pool=...}, y por delante el DataSource que reparte entre ellos (ReplicaRoutingDataSource).
+@Configuration
+@ConditionalOnProperty(name = "read-replica.url")
+public class ReadReplicaConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    // Por defecto con las credenciales de la primaria. Conexiones de solo lectura: una escritura que
+    // llegase aquí por error falla en lugar de intentarse contra la réplica.
+    @Bean
+    @ConfigurationProperties("read-replica.hikari")
+    public HikariDataSource replicaDataSource(@Value("${read-replica.url}") String url,
+                                              @Value("${read-replica.username:${spring.datasource.username:}}") String username,
+                                              @Value("${read-replica.password:${spring.datasource.password:}}") String password) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        dataSource.setPoolName("petalth-replica-pool");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(@Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                               @Value("${read-replica.max-lag:5s}") Duration maxLag,
+                                               MeterRegistry meterRegistry) {
+        return new ReplicaLagMonitor(replicaDataSource, maxLag, meterRegistry);
+    }
+
+    // El que usan JPA, JdbcTemplate y la inicialización de la BDD
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                 ReplicaLagMonitor replicaLagMonitor,
+                                 RecentInvalidations recentInvalidations,
+                                 @Value("${read-replica.read-your-writes:5s}") Duration readYourWrites,
+                                 MeterRegistry meterRegistry) {
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(
+                primaryDataSource, replicaDataSource, replicaLagMonitor, recentInvalidations, readYourWrites,
+                meterRegistry));
+    }
+}
@@ -0,0 +1,10 @@
+package com.luis.petalthbackend.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Activa los @Scheduled (trabajos en segundo plano como InvoiceOutboxWorker)
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
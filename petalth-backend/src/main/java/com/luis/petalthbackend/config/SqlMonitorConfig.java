@@ -0,0 +1,24 @@
+package com.luis.petalthbackend.config;
+
+import com.luis.petalthbackend.monitoring.SqlStatementInspector;
+import com.luis.petalthbackend.monitoring.SqlTimingSessionListener;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.hibernate.autoconfigure.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Engancha el monitor de SQL a Hibernate: el inspector cuenta cada sentencia y el listener de sesión mide
+// cuánto tarda en ejecutarse. Sin petición en curso (arranque, tareas programadas) no hacen nada.
+@Configuration
+@ConditionalOnProperty(name = "sql-monitor.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlMonitorConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer sqlMonitorHibernateProperties() {
+        return properties -> {
+            properties.put(AvailableSettings.STATEMENT_INSPECTOR, new SqlStatementInspector());
+            properties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, SqlTimingSessionListener.class.getName());
+        };
+    }
+}
@@ -1,13 +1,28 @@
 package com. luis.petalthbackend. controller;
 
 import com.luis. petalthbackend.dto. response.AppointmentDTO;
+import com.luis.petalthbackend.dto.request.BookingRequest;
+import com.luis.petalthbackend.dto.response.CursorPage;
+import com.luis.petalthbackend.dto.response.NextAvailableSlotDTO;
+import com.luis.petalthbackend.dto.response.VetAvailabilityDTO;
 import com.luis.petalthbackend.entity.AppointmentStatus;
+import com.luis.petalthbackend.export.ExportFormat;
+import com.luis.petalthbackend.service.AgendaStreamService;
 import com.luis.petalthbackend.service.AppointmentService;
+import com.luis.petalthbackend.service.BookingService;
+import com.luis.petalthbackend.service.ExportService;
 import io.swagger.v3.oas.annotations.Operation;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework. http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework. web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -16,26 +31,103 @@ import java.util.List;
 public class AppointmentController {
 
     private final AppointmentService appointmentService;
+    private final ExportService exportService;
+    private final BookingService bookingService;
+    private final AgendaStreamService agendaStreamService;
 
-    public AppointmentController(AppointmentService appointmentService) {
+    public AppointmentController(AppointmentService appointmentService, ExportService exportService,
+                                 BookingService bookingService, AgendaStreamService agendaStreamService) {
         this.appointmentService = appointmentService;
+        this.exportService = exportService;
+        this.bookingService = bookingService;
+        this.agendaStreamService = agendaStreamService;
     }
 
-    @Operation(summary = "Listar citas", description = "Obtiene todas las citas")
+    @Operation(summary = "Listar citas",
+            description = "Obtiene todas las citas; con includeHistory=true también las archivadas")
     @GetMapping
-    public ResponseEntity<List<AppointmentDTO>> getAllAppointments() {
-        List<AppointmentDTO> appointments = appointmentService.getAllAppointments();
+    public ResponseEntity<List<AppointmentDTO>> getAllAppointments(
+            @RequestParam(defaultValue = "false") boolean includeHistory) {
+        List<AppointmentDTO> appointments = appointmentService.getAllAppointments(includeHistory);
         return ResponseEntity.ok(appointments);
     }
 
-    @Operation(summary = "Listar mi agenda", description = "Obtiene las citas del veterinario logueado")
+    @Operation(summary = "Listar citas paginadas",
+            description = "Obtiene las citas por páginas (cursor), con filtros opcionales de estado y rango de fechas")
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<AppointmentDTO>> getAppointmentsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) AppointmentStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return ResponseEntity.ok(appointmentService.getAppointmentsPage(cursor, size, status, from, to));
+    }
+
+    @Operation(summary = "Exportar citas",
+            description = "Descarga las citas en streaming (NDJSON o CSV) con memoria constante; " +
+                    "con includeHistory=true también las archivadas")
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportAppointments(
+            @RequestParam(defaultValue = "NDJSON") ExportFormat format,
+            @RequestParam(defaultValue = "false") boolean includeHistory) {
+        // El cuerpo se escribe fuera del hilo del controller, a medida que se leen las filas de la BDD
+        StreamingResponseBody body = out -> exportService.exportAppointments(format, includeHistory, out);
+        return ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"appointments." + format.getExtension() + "\"")
+                .body(body);
+    }
+
+    @Operation(summary = "Listar mi agenda",
+            description = "Obtiene las citas del veterinario logueado; con includeHistory=true también las archivadas")
     @GetMapping("/my-agenda")
-    public ResponseEntity<List<AppointmentDTO>> getMyAgenda() {
+    public ResponseEntity<List<AppointmentDTO>> getMyAgenda(
+            @RequestParam(defaultValue = "false") boolean includeHistory) {
         // Extraemos el email del contexto de seguridad (del Token)
         String email = SecurityContextHolder.getContext().getAuthentication().getName();
 
         // Llamamos al servicio para que filtre en la base de datos
-        return ResponseEntity.ok(appointmentService.getAppointmentsByVetEmail(email));
+        return ResponseEntity.ok(appointmentService.getAppointmentsByVetEmail(email, includeHistory));
+    }
+
+    @Operation(summary = "Mi agenda en tiempo real",
+            description = "Server-Sent Events: la agenda completa al conectar y después cada cita nueva o que cambia de estado")
+    @GetMapping(value = "/my-agenda/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamMyAgenda() {
+        String email = SecurityContextHolder.getContext().getAuthentication().getName();
+        return agendaStreamService.open(email);
+    }
+
+    @Operation(summary = "Consultar disponibilidad",
+            description = "Huecos libres por veterinario para un tratamiento entre dos fechas (incluidas)")
+    @GetMapping("/availability")
+    public ResponseEntity<List<VetAvailabilityDTO>> getAvailability(
+            @RequestParam Long treatmentId,
+            @RequestParam(required = false) List<Long> vetIds,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(bookingService.getAvailability(treatmentId, vetIds, from, to));
+    }
+
+    @Operation(summary = "Siguiente hueco libre",
+            description = "Los k huecos libres más tempranos para un tratamiento entre todos los veterinarios activos, " +
+                    "opcionalmente filtrando por especialidad")
+    @GetMapping("/next-available")
+    public ResponseEntity<List<NextAvailableSlotDTO>> getNextAvailable(
+            @RequestParam Long treatmentId,
+            @RequestParam(required = false) String speciality,
+            @RequestParam(required = false) Integer k,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from) {
+        return ResponseEntity.ok(bookingService.findNextAvailable(treatmentId, speciality, k, from));
+    }
+
+    @Operation(summary = "Reservar cita",
+            description = "Crea una cita PENDING para una mascota del usuario. Rechaza (409) si se solapa con otra")
+    @PostMapping
+    public ResponseEntity<AppointmentDTO> bookAppointment(@RequestBody BookingRequest request) {
+        String userEmail = SecurityContextHolder.getContext().getAuthentication().getName();
+        return ResponseEntity.ok(bookingService.book(request, userEmail));
     }
 
     @Operation(summary = "Cambiar estado", description = "Permite marcar una cita como completada o cancelada")
@@ -5,10 +5,13 @@ import com.luis.petalthbackend.dto.request.RegisterRequest;
 import com.luis.petalthbackend.dto.response.AuthResponse;
 import com.luis.petalthbackend.service.AuthService;
 import io.swagger.v3.oas.annotations.Operation;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequestMapping("/auth")
 @RequiredArgsConstructor
@@ -19,14 +22,16 @@ public class AuthController {
     @Operation(summary = "Iniciar sesión", description = "Verifica las credenciales y devuelve el DTO" +
             " AuthResponse que contiene el token JWT")
     @PostMapping("/login")
-    public ResponseEntity<AuthResponse> login(@RequestBody LoginRequest loginRequest) {
-        return ResponseEntity.ok(authService.login(loginRequest));
+    public CompletableFuture<ResponseEntity<AuthResponse>> login(@RequestBody LoginRequest loginRequest,
+                                                                 HttpServletRequest request) {
+        // Respuesta asíncrona: el hilo de Tomcat queda libre mientras se verifica la contraseña
+        return authService.login(loginRequest, request.getRemoteAddr()).thenApply(ResponseEntity::ok);
     }
 
     @Operation(summary = "Registrar usuario", description = "Crea una cuenta nueva y devuelve el DTO" +
             " AuthResponse que contiene el token JWT")
     @PostMapping("/register")
-    public ResponseEntity<AuthResponse> register(@RequestBody RegisterRequest registerRequest) {
-        return ResponseEntity.ok(authService.register(registerRequest));
+    public CompletableFuture<ResponseEntity<AuthResponse>> register(@RequestBody RegisterRequest registerRequest) {
+        return authService.register(registerRequest).thenApply(ResponseEntity::ok);
     }
 }
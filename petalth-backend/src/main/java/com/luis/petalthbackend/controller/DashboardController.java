@@ -0,0 +1,67 @@
+package com.luis.petalthbackend.controller;
+
+import com.luis.petalthbackend.dto.request.RollupGroupBy;
+import com.luis.petalthbackend.dto.response.RevenueRollupDTO;
+import com.luis.petalthbackend.dto.response.RollupRebuildStatusDTO;
+import com.luis.petalthbackend.dto.response.WorkloadRollupDTO;
+import com.luis.petalthbackend.entity.AppointmentStatus;
+import com.luis.petalthbackend.entity.InvoiceStatus;
+import com.luis.petalthbackend.service.RollupRebuildJob;
+import com.luis.petalthbackend.service.RollupService;
+import io.swagger.v3.oas.annotations.Operation;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("api/dashboard")
+@CrossOrigin(origins = "http://localhost:4200")
+public class DashboardController {
+    private final RollupService rollupService;
+    private final RollupRebuildJob rollupRebuildJob;
+
+    public DashboardController(RollupService rollupService, RollupRebuildJob rollupRebuildJob) {
+        this.rollupService = rollupService;
+        this.rollupRebuildJob = rollupRebuildJob;
+    }
+
+    @Operation(summary = "Facturación",
+            description = "Importe y número de facturas por día, veterinario, tratamiento o estado (por defecto, últimos 30 días)")
+    @GetMapping("/revenue")
+    public ResponseEntity<List<RevenueRollupDTO>> getRevenue(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "DAY") RollupGroupBy groupBy,
+            @RequestParam(required = false) InvoiceStatus status) {
+        return ResponseEntity.ok(rollupService.getRevenue(from, to, groupBy, status));
+    }
+
+    @Operation(summary = "Carga de trabajo",
+            description = "Citas y minutos por día, veterinario, tratamiento o estado (por defecto, últimos 30 días)")
+    @GetMapping("/workload")
+    public ResponseEntity<List<WorkloadRollupDTO>> getWorkload(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "DAY") RollupGroupBy groupBy,
+            @RequestParam(required = false) AppointmentStatus status) {
+        return ResponseEntity.ok(rollupService.getWorkload(from, to, groupBy, status));
+    }
+
+    @Operation(summary = "Recalcular resúmenes",
+            description = "Recalcula en segundo plano los resúmenes diarios del rango (por defecto, todo el histórico)")
+    @PostMapping("/rollups/rebuild")
+    public ResponseEntity<RollupRebuildStatusDTO> rebuildRollups(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.accepted().body(rollupRebuildJob.start(from, to));
+    }
+
+    @Operation(summary = "Estado del recálculo", description = "Progreso del último recálculo de resúmenes")
+    @GetMapping("/rollups/rebuild")
+    public ResponseEntity<RollupRebuildStatusDTO> getRebuildStatus() {
+        return ResponseEntity.ok(rollupRebuildJob.status());
+    }
+}
@@ -0,0 +1,45 @@
+package com.luis.petalthbackend.controller;
+
+import com.luis.petalthbackend.dto.response.ImportReportDTO;
+import com.luis.petalthbackend.service.ImportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.InputStream;
+
+// El cuerpo de la petición es el CSV tal cual (text/csv, UTF-8, con cabecera). Se lee en streaming.
+@RestController
+@RequestMapping("api/import")
+@CrossOrigin(origins = "http://localhost:4200")
+@Tag(name = "Importación", description = "Carga masiva de datos desde CSV al dar de alta una clínica")
+public class ImportController {
+
+    private final ImportService importService;
+
+    public ImportController(ImportService importService) {
+        this.importService = importService;
+    }
+
+    @Operation(summary = "Importar dueños",
+            description = "Columnas: email,password,firstName,lastName,phone,address")
+    @PostMapping("/owners")
+    public ResponseEntity<ImportReportDTO> importOwners(InputStream csv) {
+        return ResponseEntity.ok(importService.importOwners(csv));
+    }
+
+    @Operation(summary = "Importar mascotas",
+            description = "Columnas: ownerEmail,name,birthDate,photoUrl")
+    @PostMapping("/pets")
+    public ResponseEntity<ImportReportDTO> importPets(InputStream csv) {
+        return ResponseEntity.ok(importService.importPets(csv));
+    }
+
+    @Operation(summary = "Importar citas históricas",
+            description = "Columnas: ownerEmail,petName,veterinarianEmail,treatmentName,dateTime,status,diagnosis")
+    @PostMapping("/appointments")
+    public ResponseEntity<ImportReportDTO> importAppointments(InputStream csv) {
+        return ResponseEntity.ok(importService.importAppointments(csv));
+    }
+}
@@ -1,10 +1,19 @@
 package com.luis.petalthbackend.controller;
 
+import com.luis.petalthbackend.dto.response.CursorPage;
 import com.luis.petalthbackend.dto.response.InvoiceDTO;
+import com.luis.petalthbackend.entity.InvoiceStatus;
+import com.luis.petalthbackend.export.ExportFormat;
+import com.luis.petalthbackend.service.ExportService;
 import com.luis.petalthbackend.service.InvoiceService;
+import io.swagger.v3.oas.annotations.Operation;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -12,13 +21,51 @@ import java.util.List;
 @CrossOrigin(origins = "http://localhost:4200")
 public class InvoiceController {
     private final InvoiceService invoiceService;
+    private final ExportService exportService;
 
-    public InvoiceController(InvoiceService invoiceService) {
+    public InvoiceController(InvoiceService invoiceService, ExportService exportService) {
         this.invoiceService = invoiceService;
+        this.exportService = exportService;
     }
 
+    @Operation(summary = "Listar facturas",
+            description = "Obtiene todas las facturas; con includeHistory=true también las archivadas")
     @GetMapping
-    public ResponseEntity<List<InvoiceDTO>> getAllInvoices() {
-        return ResponseEntity.ok(invoiceService.getAllInvoices());
+    public ResponseEntity<List<InvoiceDTO>> getAllInvoices(
+            @RequestParam(defaultValue = "false") boolean includeHistory) {
+        return ResponseEntity.ok(invoiceService.getAllInvoices(includeHistory));
+    }
+
+    @Operation(summary = "Listar facturas paginadas",
+            description = "Obtiene las facturas por páginas (cursor), con filtros opcionales de estado y rango de fechas")
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<InvoiceDTO>> getInvoicesPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) InvoiceStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return ResponseEntity.ok(invoiceService.getInvoicesPage(cursor, size, status, from, to));
+    }
+
+    @Operation(summary = "Marcar factura como pagada",
+            description = "Pasa la factura de UNPAID a PAID. Si ya estaba pagada no hace nada")
+    @PutMapping("/{id}/pay")
+    public ResponseEntity<InvoiceDTO> payInvoice(@PathVariable Long id) {
+        return ResponseEntity.ok(invoiceService.markAsPaid(id));
+    }
+
+    @Operation(summary = "Exportar facturas",
+            description = "Descarga las facturas en streaming (NDJSON o CSV) con memoria constante; " +
+                    "con includeHistory=true también las archivadas")
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportInvoices(
+            @RequestParam(defaultValue = "NDJSON") ExportFormat format,
+            @RequestParam(defaultValue = "false") boolean includeHistory) {
+        StreamingResponseBody body = out -> exportService.exportInvoices(format, includeHistory, out);
+        return ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"invoices." + format.getExtension() + "\"")
+                .body(body);
     }
 }
\ No newline at end of file
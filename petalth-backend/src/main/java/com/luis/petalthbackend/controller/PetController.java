@@ -1,13 +1,17 @@
 package com.luis.petalthbackend.controller;
 
+import com.luis.petalthbackend.cache.ResourceVersion;
+import com.luis.petalthbackend.cache.ResourceVersions;
 import com.luis.petalthbackend.dto.request.PetRequest;
 import com.luis.petalthbackend.dto.response.PetResponse;
 import com.luis.petalthbackend.service.PetService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -17,17 +21,29 @@ import java.util.List;
 @Tag(name = "Mascotas", description = "Gestión de Mascotas") // Swagger Annotation
 public class PetController {
     private final PetService petService;
+    private final ResourceVersions resourceVersions;
 
-    public PetController(PetService petService) {
+    public PetController(PetService petService, ResourceVersions resourceVersions) {
         this.petService = petService;
+        this.resourceVersions = resourceVersions;
     }
 
     // Swagger Annotation
     @Operation(summary = "Listar mascotas del dueño",
             description = "Obtiene las mascotas específicas a partir del Id del dueño")
     @GetMapping("owner/{ownerId}")
-    public ResponseEntity<List<PetResponse>> getOwnerPets(@PathVariable Long ownerId) {
-        return ResponseEntity.ok(petService.getOwnerPets(ownerId));
+    public ResponseEntity<List<PetResponse>> getOwnerPets(@PathVariable Long ownerId, WebRequest request) {
+        // GET condicional con la versión de las mascotas de este dueño (igual que en VeterinarianController)
+        ResourceVersion version = resourceVersions.ownerPets(ownerId);
+        if (request.checkNotModified(version.etag(), version.lastModified())) {
+            return null;
+        }
+        // private: son datos de un usuario, ningún proxy compartido debe guardarlos
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .eTag(version.etag())
+                .lastModified(version.lastModified())
+                .body(petService.getOwnerPets(ownerId));
     }
 
     @Operation(summary = "Crear una nueva mascota", description = "Registra una mascota y la asocia al usuario actual")
@@ -1,14 +1,25 @@
 // UserController.java
 package com.luis.petalthbackend.controller;
 
+import com.luis.petalthbackend.cache.InvalidationBus;
+import com.luis.petalthbackend.cache.InvalidationMessage;
+import com.luis.petalthbackend.cache.ReferenceDataCache;
+import com.luis.petalthbackend.cache.ResourceVersions;
+import com.luis.petalthbackend.dto.response.EntityCacheStatsDTO;
+import com.luis.petalthbackend.dto.response.PrincipalCacheStatsDTO;
+import com.luis.petalthbackend.entity.Rol;
 import com.luis.petalthbackend.entity.User;
 import com.luis.petalthbackend.repository.UserRepository;
+import com.luis.petalthbackend.security.PrincipalCache;
+import com.luis.petalthbackend.security.jwt.TokenRevocationRegistry;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("api/users")
 @CrossOrigin(origins = "http://localhost:4200")
@@ -16,9 +27,21 @@ import org.springframework.web.bind.annotation.*;
 public class UserController {
 
     private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
+    private final TokenRevocationRegistry tokenRevocationRegistry;
+    private final ReferenceDataCache referenceDataCache;
+    private final ResourceVersions resourceVersions;
+    private final InvalidationBus invalidationBus;
 
-    public UserController(UserRepository userRepository) {
+    public UserController(UserRepository userRepository, PrincipalCache principalCache,
+                          TokenRevocationRegistry tokenRevocationRegistry, ReferenceDataCache referenceDataCache,
+                          ResourceVersions resourceVersions, InvalidationBus invalidationBus) {
         this.userRepository = userRepository;
+        this.principalCache = principalCache;
+        this.tokenRevocationRegistry = tokenRevocationRegistry;
+        this.referenceDataCache = referenceDataCache;
+        this.resourceVersions = resourceVersions;
+        this.invalidationBus = invalidationBus;
     }
 
     @Operation(
@@ -32,8 +55,46 @@ public class UserController {
                 .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
         
         user.setActive(!user.isActive());
+        if (!user.isActive()) {
+            // Subimos la versión de la cuenta: los JWT self-contained ya emitidos dejan de valer
+            user.setTokenVersion(user.getTokenVersion() + 1);
+            tokenRevocationRegistry.revokeAfterCommit(user.getId(), user.getTokenVersion());
+        }
         userRepository.save(user);
+
+        // Invalidamos el principal cacheado para que la baja tenga efecto en la siguiente petición
+        principalCache.invalidateAfterCommit(user.getEmail());
+        // Y el usuario/veterinario de la caché de segundo nivel (listados de veterinarios, DTOs de citas)
+        referenceDataCache.evictUserAfterCommit(user.getId());
+        if (user.getRol() == Rol.VET) {
+            // El listado público de veterinarios muestra el estado: cambia su ETag
+            resourceVersions.veterinariansChangedAfterCommit();
+        }
+        // Lo mismo en el resto de nodos
+        invalidationBus.publishAfterCommit(
+                InvalidationMessage.user(user.getId(), user.getEmail(), user.getTokenVersion()));
+        if (user.getRol() == Rol.VET) {
+            invalidationBus.publishAfterCommit(InvalidationMessage.veterinarians());
+        }
         
         return ResponseEntity.ok().build();
     }
+
+    @Operation(
+        summary = "Estadísticas de la caché de usuarios",
+        description = "Hits, misses y tamaño de la caché de principals del filtro JWT"
+    )
+    @GetMapping("/principal-cache/stats")
+    public ResponseEntity<PrincipalCacheStatsDTO> getPrincipalCacheStats() {
+        return ResponseEntity.ok(principalCache.stats());
+    }
+
+    @Operation(
+        summary = "Estadísticas de la caché de entidades",
+        description = "Hits, misses, puts y tamaño por región de la caché de segundo nivel de Hibernate"
+    )
+    @GetMapping("/entity-cache/stats")
+    public ResponseEntity<List<EntityCacheStatsDTO>> getEntityCacheStats() {
+        return ResponseEntity.ok(referenceDataCache.stats());
+    }
 }
\ No newline at end of file
@@ -1,15 +1,20 @@
 package com.luis.petalthbackend.controller;
 
+import com.luis.petalthbackend.cache.ResourceVersion;
+import com.luis.petalthbackend.cache.ResourceVersions;
+import com.luis.petalthbackend.dto.response.CursorPage;
 import com.luis.petalthbackend.dto.response.VeterinarianDTO;
-import com.luis.petalthbackend.repository.VeterinarianRepository;
 import com.luis.petalthbackend.service.VeterinarianService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -20,19 +25,41 @@ import java.util.List;
 public class VeterinarianController {
 
     private final VeterinarianService veterinarianService;
+    private final ResourceVersions resourceVersions;
 
-    public VeterinarianController(VeterinarianService veterinarianService) {
+    public VeterinarianController(VeterinarianService veterinarianService, ResourceVersions resourceVersions) {
         this.veterinarianService = veterinarianService;
+        this.resourceVersions = resourceVersions;
     }
 
     @Operation(summary = "Listar todos los veterinarios",
             description = "Obtenemos todos los veterinarios del sistema")
     @GetMapping
-    public ResponseEntity<List<VeterinarianDTO>> getAllVeterinarians() {
+    public ResponseEntity<List<VeterinarianDTO>> getAllVeterinarians(WebRequest request) {
+        // GET condicional: la versión se lee ANTES de consultar, así un cambio a mitad de la consulta
+        // hace que el siguiente If-None-Match no coincida. Con 304 no se toca la BDD ni se serializa nada.
+        ResourceVersion version = resourceVersions.veterinarians();
+        if (request.checkNotModified(version.etag(), version.lastModified())) {
+            return null; // Spring ya ha preparado la respuesta 304
+        }
         List<VeterinarianDTO> vetList = veterinarianService.getAllVets();
-        return ResponseEntity.ok(vetList);
+        // no-cache: el navegador guarda la respuesta pero la revalida siempre con el ETag
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(version.etag())
+                .lastModified(version.lastModified())
+                .body(vetList);
 
     }
 
+    @Operation(summary = "Listar veterinarios paginados",
+            description = "Obtiene los veterinarios por páginas (cursor), opcionalmente solo activos o inactivos")
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<VeterinarianDTO>> getVeterinariansPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) Boolean active) {
+        return ResponseEntity.ok(veterinarianService.getVetsPage(cursor, size, active));
+    }
 
 }
@@ -0,0 +1,10 @@
+package com.luis.petalthbackend.dto.request;
+
+import java.time.LocalDateTime;
+
+public record BookingRequest(
+        Long petId,
+        Long veterinarianId,
+        Long treatmentId,
+        LocalDateTime dateTime) {
+}
@@ -0,0 +1,9 @@
+package com.luis.petalthbackend.dto.request;
+
+// Agrupación de los resúmenes del panel (?groupBy=)
+public enum RollupGroupBy {
+    DAY,
+    VETERINARIAN,
+    TREATMENT,
+    STATUS
+}
@@ -0,0 +1,10 @@
+package com.luis.petalthbackend.dto.response;
+
+import com.luis.petalthbackend.entity.AppointmentStatus;
+
+// Cambio en la agenda de un veterinario que se envía por SSE. previousStatus es null en las citas nuevas;
+// el cliente sustituye (o añade) la cita por su id.
+public record AgendaChangeDTO(
+    AppointmentStatus previousStatus,
+    AppointmentDTO appointment
+) {}
@@ -0,0 +1,11 @@
+package com.luis.petalthbackend.dto.response;
+
+import java.util.List;
+
+// Página de resultados con paginación por cursor (keyset).
+// nextCursor es opaco para el cliente: basta con reenviarlo en ?cursor= para pedir la siguiente página.
+public record CursorPage<T>(
+        List<T> items,
+        String nextCursor,
+        boolean hasMore
+) {}
@@ -0,0 +1,10 @@
+package com.luis.petalthbackend.dto.response;
+
+public record EntityCacheStatsDTO(
+        String region,
+        long hits,
+        long misses,
+        long puts,
+        double hitRate,
+        long size
+) {}
@@ -0,0 +1,13 @@
+package com.luis.petalthbackend.dto.response;
+
+import java.util.List;
+
+// Resultado de una importación CSV. 'errors' se corta en un máximo (ver ImportReport), 'failed' es el total real.
+public record ImportReportDTO(
+    long totalRows,
+    long imported,
+    long failed,
+    List<ImportRowError> errors
+) {
+    public record ImportRowError(long line, String message) {}
+}
@@ -1,10 +1,11 @@
 package com.luis.petalthbackend.dto.response;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 public record InvoiceDTO(
     Long id,
     LocalDateTime issueDate,
-    Double amount,
+    BigDecimal amount, // Importe exacto (sin pasar por double)
     String status
 ) {}
\ No newline at end of file
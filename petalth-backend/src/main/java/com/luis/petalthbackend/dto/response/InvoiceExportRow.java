@@ -0,0 +1,15 @@
+package com.luis.petalthbackend.dto.response;
+
+import com.luis.petalthbackend.entity.InvoiceStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Fila de exportación contable: mantenemos el importe como BigDecimal para no perder precisión.
+public record InvoiceExportRow(
+        Long id,
+        LocalDateTime issueDate,
+        BigDecimal amount,
+        InvoiceStatus status,
+        Long appointmentId
+) {}
@@ -0,0 +1,9 @@
+package com.luis.petalthbackend.dto.response;
+
+import java.time.LocalDateTime;
+
+public record NextAvailableSlotDTO(
+    Long veterinarianId,
+    String veterinarianName,
+    LocalDateTime start
+) {}
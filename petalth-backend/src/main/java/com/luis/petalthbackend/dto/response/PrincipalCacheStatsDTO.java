@@ -0,0 +1,9 @@
+package com.luis.petalthbackend.dto.response;
+
+public record PrincipalCacheStatsDTO(
+        long hits,
+        long misses,
+        double hitRate,
+        long evictions,
+        long size
+) {}
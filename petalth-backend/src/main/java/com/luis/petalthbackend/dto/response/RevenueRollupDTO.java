@@ -0,0 +1,11 @@
+package com.luis.petalthbackend.dto.response;
+
+import java.math.BigDecimal;
+
+// Una fila del panel de facturación. key/label: día, id y nombre del veterinario o del tratamiento, o estado
+public record RevenueRollupDTO(
+    String key,
+    String label,
+    Long invoiceCount,
+    BigDecimal amount
+) {}
@@ -0,0 +1,16 @@
+package com.luis.petalthbackend.dto.response;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Estado del último recálculo de los resúmenes del panel
+public record RollupRebuildStatusDTO(
+    boolean running,
+    LocalDate from,
+    LocalDate to,
+    int daysDone,
+    int daysTotal,
+    LocalDateTime startedAt,
+    LocalDateTime finishedAt,
+    String error
+) {}
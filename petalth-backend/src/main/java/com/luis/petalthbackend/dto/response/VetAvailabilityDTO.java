@@ -0,0 +1,10 @@
+package com.luis.petalthbackend.dto.response;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record VetAvailabilityDTO(
+    Long veterinarianId,
+    String veterinarianName,
+    List<LocalDateTime> freeSlots
+) {}
@@ -0,0 +1,9 @@
+package com.luis.petalthbackend.dto.response;
+
+// Una fila del panel de carga de trabajo (citas y minutos reservados). key/label como en RevenueRollupDTO
+public record WorkloadRollupDTO(
+    String key,
+    String label,
+    Long appointmentCount,
+    Long minutes
+) {}
@@ -11,10 +11,16 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @Builder
 @Entity
+@Table(indexes = {
+        // Índices para la paginación por cursor (ORDER BY date_time, id) con y sin filtro de estado
+        @Index(name = "idx_appointment_date_time_id", columnList = "date_time, id"),
+        @Index(name = "idx_appointment_status_date_time_id", columnList = "status, date_time, id")
+})
 public class Appointment {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "appointment_seq")
+    @SequenceGenerator(name = "appointment_seq", sequenceName = "appointment_id_seq", allocationSize = 50)
     private Long id;
 
     // Usamos LocalDateTime para guardar Fecha y Hora juntas
@@ -0,0 +1,25 @@
+package com.luis.petalthbackend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+
+// Resumen diario de facturación (nº de facturas e importe exacto) por veterinario, tratamiento y estado.
+// Se mantiene de forma incremental con upserts (RollupRepository), nunca a través de JPA: aquí solo se lee.
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Immutable
+@Table(name = "daily_revenue_rollup")
+public class DailyRevenueRollup {
+
+    @EmbeddedId
+    private RevenueRollupKey id;
+
+    private long invoiceCount;
+
+    private BigDecimal amount;
+}
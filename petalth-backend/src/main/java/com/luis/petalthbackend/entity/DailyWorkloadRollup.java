@@ -0,0 +1,23 @@
+package com.luis.petalthbackend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+// Resumen diario de carga de trabajo (nº de citas y minutos reservados) por veterinario, tratamiento y estado.
+// Se mantiene de forma incremental con upserts (RollupRepository), nunca a través de JPA: aquí solo se lee.
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Immutable
+@Table(name = "daily_workload_rollup")
+public class DailyWorkloadRollup {
+
+    @EmbeddedId
+    private WorkloadRollupKey id;
+
+    private long appointmentCount;
+
+    private long minutes;
+}
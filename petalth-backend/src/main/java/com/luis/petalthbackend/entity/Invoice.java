@@ -12,10 +12,16 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @Builder
 @Entity
+@Table(indexes = {
+        // Índices para la paginación por cursor (ORDER BY issue_date, id) con y sin filtro de estado
+        @Index(name = "idx_invoice_issue_date_id", columnList = "issue_date, id"),
+        @Index(name = "idx_invoice_status_issue_date_id", columnList = "status, issue_date, id")
+})
 public class Invoice {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "invoice_seq")
+    @SequenceGenerator(name = "invoice_seq", sequenceName = "invoice_id_seq", allocationSize = 50)
     private Long id;
 
     private LocalDateTime issueDate; // Fecha de emisión
@@ -0,0 +1,30 @@
+package com.luis.petalthbackend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Bandeja de salida (transactional outbox) de facturas: se escribe en la MISMA transacción que marca la cita
+// como COMPLETED y la vacía InvoiceOutboxWorker en segundo plano. Si la transacción hace rollback no queda
+// entrada; si el worker falla, la entrada sigue ahí y se reintenta. Se borra al procesarla.
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "invoice_outbox")
+public class InvoiceOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "invoice_outbox_seq")
+    @SequenceGenerator(name = "invoice_outbox_seq", sequenceName = "invoice_outbox_id_seq", allocationSize = 50)
+    private Long id;
+
+    // Sin FK ni unique: una cita puede volver a COMPLETED y generar otra entrada; el worker la descarta
+    @Column(nullable = false)
+    private Long appointmentId;
+
+    private LocalDateTime createdAt;
+}
@@ -1,10 +1,16 @@
 package com.luis.petalthbackend.entity;
 
+import com.luis.petalthbackend.cache.CacheRegions;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import java.math.BigDecimal;
 
 @Getter
 @Setter
@@ -15,15 +21,21 @@ import lombok.*;
 // El Owner tendrá un elegirá un "motivo" (Quizás en un desplegable) de consulta cuando agende su la cita para su mascota.
 // Relación unidireccional ya que solo queremos navegar del padre a la hija
 // La haríamos bidireccional si por ejemplo queremos obtener todas las citas que tengan el nombre vacunación
+// Dato de referencia: casi solo se lee, lo guardamos en la caché de segundo nivel (ver EntityCacheConfig)
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.MEDICAL_TREATMENT)
 public class MedicalTreatment {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "medical_treatment_seq")
+    @SequenceGenerator(name = "medical_treatment_seq", sequenceName = "medical_treatment_id_seq", allocationSize = 50)
     private Long id;
 
     private String name; // Vacunación, Cirugía, Consulta...
     private String description;
     private Integer durationMinutes;
 
+    // Precio base: importe con el que se genera la factura al completar la cita (se puede ajustar después)
+    private BigDecimal price;
+
     @Builder.Default
     private boolean active = true; // Si dejamos de ofrecer el servicio en concreto
 }
@@ -15,7 +15,10 @@ import java.util.List;
 @Entity
 public class Pet {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Con IDENTITY Hibernate no puede agrupar INSERTs (necesita el id de cada fila al momento).
+    // La secuencia reserva 50 ids por llamada y permite enviar los INSERT en lotes.
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pet_seq")
+    @SequenceGenerator(name = "pet_seq", sequenceName = "pet_id_seq", allocationSize = 50)
     private Long id;
 
     private String name;
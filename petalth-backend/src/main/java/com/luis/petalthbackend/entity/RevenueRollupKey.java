@@ -0,0 +1,29 @@
+package com.luis.petalthbackend.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+
+// Clave de DailyRevenueRollup: día de emisión, veterinario, tratamiento y estado de la factura
+@Embeddable
+public record RevenueRollupKey(
+        @Column(name = "rollup_date") LocalDate date,
+        Long veterinarianId,
+        Long treatmentId,
+        @Enumerated(EnumType.STRING) InvoiceStatus status
+) implements Comparable<RevenueRollupKey> {
+
+    private static final Comparator<RevenueRollupKey> ORDER = Comparator.comparing(RevenueRollupKey::date)
+            .thenComparing(RevenueRollupKey::veterinarianId)
+            .thenComparing(RevenueRollupKey::treatmentId)
+            .thenComparing(RevenueRollupKey::status);
+
+    @Override
+    public int compareTo(RevenueRollupKey other) {
+        return ORDER.compare(this, other);
+    }
+}
@@ -1,7 +1,11 @@
 package com.luis.petalthbackend.entity;
 
+import com.luis.petalthbackend.cache.CacheRegions;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -16,9 +20,11 @@ import java.util.List;
 @Builder
 @Entity
 @Table(name = "petalth_user")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.USER)
 public class User implements UserDetails {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "petalth_user_seq")
+    @SequenceGenerator(name = "petalth_user_seq", sequenceName = "petalth_user_id_seq", allocationSize = 50)
     private Long id;
 
     private String firstName;
@@ -39,6 +45,12 @@ public class User implements UserDetails {
     @Builder.Default
     private boolean active = true;
 
+    // Versión de la cuenta que viaja en el JWT (modo self-contained). Al desactivar al usuario la subimos
+    // y los tokens emitidos con la versión anterior dejan de ser válidos.
+    @Builder.Default
+    @ColumnDefault("0")
+    private int tokenVersion = 0;
+
     // Metodos de UserDetails -- Importante para Spring Security
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
@@ -0,0 +1,29 @@
+package com.luis.petalthbackend.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+
+// Clave de DailyWorkloadRollup: día de la cita, veterinario, tratamiento y estado de la cita
+@Embeddable
+public record WorkloadRollupKey(
+        @Column(name = "rollup_date") LocalDate date,
+        Long veterinarianId,
+        Long treatmentId,
+        @Enumerated(EnumType.STRING) AppointmentStatus status
+) implements Comparable<WorkloadRollupKey> {
+
+    private static final Comparator<WorkloadRollupKey> ORDER = Comparator.comparing(WorkloadRollupKey::date)
+            .thenComparing(WorkloadRollupKey::veterinarianId)
+            .thenComparing(WorkloadRollupKey::treatmentId)
+            .thenComparing(WorkloadRollupKey::status);
+
+    @Override
+    public int compareTo(WorkloadRollupKey other) {
+        return ORDER.compare(this, other);
+    }
+}
@@ -0,0 +1,122 @@
+package com.luis.petalthbackend.event;
+
+import com.luis.petalthbackend.dto.response.AgendaChangeDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Bus en memoria que reparte los cambios de agenda entre los suscriptores de cada veterinario (una pestaña
+// abierta = una suscripción). Cada suscriptor tiene su propio buffer acotado: publicar nunca bloquea, así que
+// un cliente lento no frena a quien cambia la cita ni al resto de suscriptores. Si su buffer se llena se descartan
+// sus cambios pendientes y se le marca para resincronizar (volver a recibir la agenda completa).
+@Component
+public class AgendaEventBus {
+
+    private final ConcurrentHashMap<Long, Set<Subscription>> subscriptions = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final int bufferSize;
+    private final Counter published;
+    private final Counter overflows;
+
+    public AgendaEventBus(@Value("${agenda-stream.buffer-size:256}") int bufferSize,
+                          MeterRegistry meterRegistry) {
+        this.bufferSize = bufferSize;
+        this.published = Counter.builder("agenda.stream.published")
+                .description("Cambios de agenda entregados a buffers de suscriptores")
+                .register(meterRegistry);
+        this.overflows = Counter.builder("agenda.stream.overflows")
+                .description("Buffers de suscriptor llenos (el cliente recibe de nuevo la agenda completa)")
+                .register(meterRegistry);
+        Gauge.builder("agenda.stream.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Conexiones SSE de agenda abiertas")
+                .register(meterRegistry);
+    }
+
+    public Subscription subscribe(Long vetId) {
+        Subscription subscription = new Subscription(vetId);
+        subscriptions.computeIfAbsent(vetId, id -> ConcurrentHashMap.newKeySet()).add(subscription);
+        subscriberCount.incrementAndGet();
+        return subscription;
+    }
+
+    public boolean hasSubscribers(Long vetId) {
+        Set<Subscription> set = subscriptions.get(vetId);
+        return set != null && !set.isEmpty();
+    }
+
+    public void publish(Long vetId, AgendaChangeDTO change) {
+        Set<Subscription> set = subscriptions.get(vetId);
+        if (set == null) {
+            return;
+        }
+        for (Subscription subscription : set) {
+            if (subscription.buffer.offer(change)) {
+                published.increment();
+            } else {
+                subscription.overflow();
+                overflows.increment();
+            }
+        }
+    }
+
+    // Todos los suscriptores vuelven a recibir la agenda completa (p.ej. tras perder cambios de otro nodo)
+    public void resyncAll() {
+        subscriptions.values().forEach(set -> set.forEach(Subscription::overflow));
+    }
+
+    private void unsubscribe(Subscription subscription) {
+        subscriptions.computeIfPresent(subscription.vetId, (id, set) -> {
+            set.remove(subscription);
+            return set.isEmpty() ? null : set;
+        });
+        subscriberCount.decrementAndGet();
+    }
+
+    public final class Subscription implements AutoCloseable {
+        private final Long vetId;
+        private final BlockingQueue<AgendaChangeDTO> buffer = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean resyncNeeded = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Subscription(Long vetId) {
+            this.vetId = vetId;
+        }
+
+        // Siguiente cambio, o null si no llega ninguno en 'timeout' (el llamador aprovecha para el heartbeat)
+        public AgendaChangeDTO poll(Duration timeout) throws InterruptedException {
+            return buffer.poll(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        // true una sola vez tras desbordarse el buffer: el llamador debe reenviar la agenda completa
+        public boolean consumeResync() {
+            return resyncNeeded.getAndSet(false);
+        }
+
+        public boolean isClosed() {
+            return closed.get();
+        }
+
+        private void overflow() {
+            resyncNeeded.set(true);
+            buffer.clear();
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                unsubscribe(this);
+            }
+        }
+    }
+}
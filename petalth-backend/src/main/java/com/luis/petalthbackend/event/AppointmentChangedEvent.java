@@ -0,0 +1,18 @@
+package com.luis.petalthbackend.event;
+
+import com.luis.petalthbackend.entity.AppointmentStatus;
+
+import java.time.LocalDateTime;
+
+// Se publica cada vez que se crea una cita o cambia su estado. previousStatus es null en las citas nuevas.
+// Los listeners que mantienen estructuras en memoria deben escuchar AFTER_COMMIT para no ver cambios
+// que luego se deshacen con un rollback.
+public record AppointmentChangedEvent(
+        Long appointmentId,
+        Long veterinarianId,
+        Long treatmentId,
+        LocalDateTime dateTime,
+        Integer durationMinutes,
+        AppointmentStatus previousStatus,
+        AppointmentStatus newStatus
+) {}
@@ -0,0 +1,16 @@
+package com.luis.petalthbackend.importer;
+
+import java.util.List;
+
+// Una fila del CSV y la línea del fichero en la que empieza (para los informes de error)
+public record CsvRow(long line, List<String> values) {
+
+    // Valor de la columna sin espacios; null si la columna no existe o está vacía
+    public String get(int index) {
+        if (index >= values.size()) {
+            return null;
+        }
+        String value = values.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+}
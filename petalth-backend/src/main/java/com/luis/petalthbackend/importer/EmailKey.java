@@ -0,0 +1,4 @@
+package com.luis.petalthbackend.importer;
+
+// Id de un dueño o veterinario a partir de su email (resolución en bloque durante la importación)
+public record EmailKey(String email, Long id) {}
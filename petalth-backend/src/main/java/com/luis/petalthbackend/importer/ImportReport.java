@@ -0,0 +1,42 @@
+package com.luis.petalthbackend.importer;
+
+import com.luis.petalthbackend.dto.response.ImportReportDTO;
+import com.luis.petalthbackend.dto.response.ImportReportDTO.ImportRowError;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+// Acumula el resultado de una importación. Guardamos como mucho MAX_ERRORS mensajes para que un fichero
+// completamente erróneo no llene la memoria (el contador de fallos sí es exacto).
+public class ImportReport {
+
+    static final int MAX_ERRORS = 1000;
+
+    private long totalRows;
+    private long imported;
+    private long failed;
+    private final List<ImportRowError> errors = new ArrayList<>();
+
+    public void row() {
+        totalRows++;
+    }
+
+    public void imported(int rows) {
+        imported += rows;
+    }
+
+    public void fail(long line, String message) {
+        failed++;
+        if (errors.size() < MAX_ERRORS) {
+            errors.add(new ImportRowError(line, message));
+        }
+    }
+
+    public ImportReportDTO toDTO() {
+        // Dentro de un bloque los fallos se detectan por fases: los devolvemos ordenados por línea
+        List<ImportRowError> sorted = new ArrayList<>(errors);
+        sorted.sort(Comparator.comparingLong(ImportRowError::line));
+        return new ImportReportDTO(totalRows, imported, failed, sorted);
+    }
+}
@@ -0,0 +1,9 @@
+package com.luis.petalthbackend.importer;
+
+// Fila que no pasa la validación: se informa en el resultado y la importación continúa con la siguiente
+public class InvalidRowException extends RuntimeException {
+
+    public InvalidRowException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,4 @@
+package com.luis.petalthbackend.importer;
+
+// Una mascota identificada por el email de su dueño y su nombre (los CSV de otras clínicas no traen nuestros ids)
+public record PetKey(String ownerEmail, String petName, Long petId) {}
@@ -0,0 +1,126 @@
+package com.luis.petalthbackend.monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+
+// Cuenta las sentencias SQL de cada petición y avisa de las sospechosas:
+//  - demasiadas sentencias, o la misma sentencia repetida muchas veces (N+1 típico: una consulta por fila)
+//  - sentencias más lentas que 'slow-statement'
+// Va antes que Spring Security para contar también la carga del usuario del filtro JWT.
+// Con fail-on-violation=true (tests de integración) un N+1 lanza una excepción en lugar de solo avisar.
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "sql-monitor.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlMonitorFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(SqlMonitorFilter.class);
+
+    private static final int MAX_LOGGED_SQL = 500;
+
+    private final int maxStatements;
+    private final int maxRepeated;
+    private final Duration slowStatement;
+    private final boolean failOnViolation;
+    private final MeterRegistry meterRegistry;
+    private final Counter nPlusOneRequests;
+    private final Counter slowRequests;
+
+    public SqlMonitorFilter(@Value("${sql-monitor.max-statements-per-request:20}") int maxStatements,
+                            @Value("${sql-monitor.max-repeated-statements:5}") int maxRepeated,
+                            @Value("${sql-monitor.slow-statement:200ms}") Duration slowStatement,
+                            @Value("${sql-monitor.fail-on-violation:false}") boolean failOnViolation,
+                            MeterRegistry meterRegistry) {
+        this.maxStatements = maxStatements;
+        this.maxRepeated = maxRepeated;
+        this.slowStatement = slowStatement;
+        this.failOnViolation = failOnViolation;
+        this.meterRegistry = meterRegistry;
+        this.nPlusOneRequests = flaggedCounter("n_plus_one");
+        this.slowRequests = flaggedCounter("slow_statement");
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        SqlStatementStats.begin();
+        SqlStatementStats stats;
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            stats = SqlStatementStats.end();
+        }
+        report(request, stats);
+    }
+
+    private void report(HttpServletRequest request, SqlStatementStats stats) {
+        String endpoint = request.getMethod() + " " + uriPattern(request);
+        DistributionSummary.builder("sql.statements.per.request")
+                .description("Sentencias SQL por petición")
+                .tag("uri", uriPattern(request))
+                .register(meterRegistry)
+                .record(stats.statements());
+
+        boolean slow = false;
+        for (SqlStatementStats.TimedStatement statement : stats.slowest()) {
+            if (statement.duration().compareTo(slowStatement) >= 0) {
+                slow = true;
+                log.warn("Sentencia lenta ({} ms) en {}: {}",
+                        statement.duration().toMillis(), endpoint, truncate(statement.shape()));
+            }
+        }
+        if (slow) {
+            slowRequests.increment();
+        }
+
+        Map.Entry<String, Integer> mostRepeated = stats.mostRepeated().orElse(null);
+        boolean tooMany = stats.statements() > maxStatements;
+        boolean repeated = mostRepeated != null && mostRepeated.getValue() > maxRepeated;
+        if (!tooMany && !repeated) {
+            return;
+        }
+        nPlusOneRequests.increment();
+        String message = String.format("Posible N+1 en %s: %d sentencias, la más repetida (%dx): %s",
+                endpoint, stats.statements(), mostRepeated.getValue(), truncate(mostRepeated.getKey()));
+        if (failOnViolation) {
+            throw new IllegalStateException(message);
+        }
+        log.warn(message);
+    }
+
+    // El patrón del endpoint (/api/pets/owner/{ownerId}) y no la URL real, para no crear una serie por id
+    private static String uriPattern(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : "UNKNOWN";
+    }
+
+    private static String truncate(String sql) {
+        return sql.length() > MAX_LOGGED_SQL ? sql.substring(0, MAX_LOGGED_SQL) + "..." : sql;
+    }
+
+    private Counter flaggedCounter(String reason) {
+        return Counter.builder("sql.requests.flagged")
+                .description("Peticiones marcadas por el monitor de SQL")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
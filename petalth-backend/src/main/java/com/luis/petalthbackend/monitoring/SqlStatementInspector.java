@@ -0,0 +1,16 @@
+package com.luis.petalthbackend.monitoring;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+// Hibernate nos pasa cada sentencia antes de prepararla. Solo la contamos, el SQL sale sin cambios.
+public class SqlStatementInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        SqlStatementStats stats = SqlStatementStats.current();
+        if (stats != null) {
+            stats.statementPrepared(sql);
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,85 @@
+package com.luis.petalthbackend.monitoring;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.regex.Pattern;
+
+// Sentencias SQL lanzadas durante una petición (o un bloque de código en los tests).
+// Vive en un ThreadLocal: lo abre SqlMonitorFilter y lo alimentan SqlStatementInspector y SqlTimingSessionListener.
+// Agrupamos por "forma" (el SQL con sus '?', sin valores) para ver qué sentencia se repite.
+public final class SqlStatementStats {
+
+    private static final ThreadLocal<SqlStatementStats> CURRENT = new ThreadLocal<>();
+
+    // Cuántas sentencias lentas guardamos por petición para el log
+    private static final int SLOWEST_KEPT = 3;
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    // "in (?, ?, ?)" -> "in (?...)": el tamaño de la lista no cambia la forma de la consulta
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(\\s*,\\s*\\?)+\\s*\\)");
+
+    private int statements;
+    private final Map<String, Integer> shapes = new HashMap<>();
+    private final List<TimedStatement> slowest = new ArrayList<>(SLOWEST_KEPT + 1);
+    private String lastShape;
+
+    public static SqlStatementStats begin() {
+        SqlStatementStats stats = new SqlStatementStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    public static SqlStatementStats end() {
+        SqlStatementStats stats = CURRENT.get();
+        CURRENT.remove();
+        return stats;
+    }
+
+    static SqlStatementStats current() {
+        return CURRENT.get();
+    }
+
+    static String shapeOf(String sql) {
+        String shape = WHITESPACE.matcher(sql.trim()).replaceAll(" ");
+        return IN_LIST.matcher(shape).replaceAll("(?...)");
+    }
+
+    void statementPrepared(String sql) {
+        statements++;
+        lastShape = shapeOf(sql);
+        shapes.merge(lastShape, 1, Integer::sum);
+    }
+
+    // Hibernate avisa del inicio/fin de la ejecución pero no del SQL: es el último que se ha preparado
+    void statementExecuted(long nanos) {
+        if (lastShape == null) {
+            return;
+        }
+        if (slowest.size() < SLOWEST_KEPT || nanos > slowest.get(slowest.size() - 1).nanos()) {
+            slowest.add(new TimedStatement(lastShape, nanos));
+            slowest.sort(Comparator.comparingLong(TimedStatement::nanos).reversed());
+            if (slowest.size() > SLOWEST_KEPT) {
+                slowest.remove(SLOWEST_KEPT);
+            }
+        }
+    }
+
+    public int statements() {
+        return statements;
+    }
+
+    // La sentencia que más veces se ha repetido (la firma típica de un N+1)
+    public Optional<Map.Entry<String, Integer>> mostRepeated() {
+        return shapes.entrySet().stream().max(Map.Entry.comparingByValue());
+    }
+
+    public List<TimedStatement> slowest() {
+        return List.copyOf(slowest);
+    }
+
+    public record TimedStatement(String shape, long nanos) {
+        public Duration duration() {
+            return Duration.ofNanos(nanos);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.luis.petalthbackend.monitoring;
+
+import org.hibernate.SessionEventListener;
+
+// Hibernate crea una instancia por sesión (hibernate.session.events.auto) y una sesión no se comparte
+// entre hilos, así que el instante de inicio puede ser un campo normal.
+public class SqlTimingSessionListener implements SessionEventListener {
+
+    private long start;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        start = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        executed();
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        start = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        executed();
+    }
+
+    private void executed() {
+        SqlStatementStats stats = SqlStatementStats.current();
+        if (stats != null) {
+            stats.statementExecuted(System.nanoTime() - start);
+        }
+    }
+}
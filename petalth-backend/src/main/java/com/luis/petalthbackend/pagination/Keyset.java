@@ -0,0 +1,32 @@
+package com.luis.petalthbackend.pagination;
+
+import com.luis.petalthbackend.dto.response.CursorPage;
+
+import java.util.List;
+import java.util.function.Function;
+
+// Utilidades comunes de la paginación por cursor.
+public final class Keyset {
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private Keyset() {
+    }
+
+    // Limitamos el tamaño de página para que ninguna petición pueda volver a traerse la tabla entera
+    public static int pageSize(Integer requested) {
+        if (requested == null || requested <= 0) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(requested, MAX_PAGE_SIZE);
+    }
+
+    // Las consultas piden size + 1 filas: si llega la fila extra sabemos que hay más páginas sin hacer un COUNT
+    public static <T> CursorPage<T> toPage(List<T> rows, int size, Function<T, KeysetCursor> cursorOf) {
+        boolean hasMore = rows.size() > size;
+        List<T> items = hasMore ? rows.subList(0, size) : rows;
+        String nextCursor = hasMore ? cursorOf.apply(items.get(items.size() - 1)).encode() : null;
+        return new CursorPage<>(List.copyOf(items), nextCursor, hasMore);
+    }
+}
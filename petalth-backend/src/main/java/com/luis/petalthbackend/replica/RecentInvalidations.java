@@ -0,0 +1,71 @@
+package com.luis.petalthbackend.replica;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+// Cachés invalidadas hace poco. Tras invalidar, la réplica puede tardar hasta 'read-replica.max-lag' en tener el
+// cambio: una lectura de la réplica en ese tiempo devolvería las filas viejas con el ETag nuevo, o las volvería a
+// guardar en la caché de segundo nivel, y así se quedarían hasta el siguiente cambio. Durante esa ventana esas
+// lecturas van a la primaria (ReplicaRoutingDataSource):
+//  - Un listado con ETag (ResourceVersions): solo las lecturas de ese listado.
+//  - La caché de segundo nivel o todas las versiones (ReferenceDataCache, resincronizaciones): todas, porque
+//    cualquier consulta puede cargar un usuario o un veterinario.
+// Sin réplica (no hay 'read-replica.url') no hace nada.
+@Component
+public class RecentInvalidations {
+
+    private static final String ALL = "*";
+
+    private final boolean enabled;
+    private final Cache<String, Boolean> recent;
+
+    // La ventana es max-lag más el intervalo de comprobación: entre dos comprobaciones el retraso puede
+    // superar max-lag sin que ReplicaLagMonitor lo haya visto todavía
+    public RecentInvalidations(@Value("${read-replica.url:}") String replicaUrl,
+                               @Value("${read-replica.max-lag:5s}") Duration maxLag,
+                               @Value("${read-replica.lag-check-interval:5s}") Duration lagCheckInterval) {
+        this.enabled = !replicaUrl.isBlank();
+        this.recent = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(maxLag.plus(lagCheckInterval))
+                .build();
+    }
+
+    // Tras el commit del cambio (o al recibirlo de otro nodo, cuando el commit ya ha ocurrido)
+    public void invalidated(String resource) {
+        if (enabled) {
+            recent.put(resource, Boolean.TRUE);
+        }
+    }
+
+    public void invalidatedAll() {
+        invalidated(ALL);
+    }
+
+    // Al principio de la transacción readOnly que lee 'resource', antes de su primera consulta: la conexión
+    // se pide en la primera sentencia (LazyConnectionDataSourceProxy) y entonces ya sabemos a dónde ir
+    public void readFromPrimaryIfInvalidated(String resource) {
+        if (!enabled || recent.getIfPresent(resource) == null
+                || !TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(this)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(RecentInvalidations.this);
+            }
+        });
+    }
+
+    boolean isPrimaryRequired() {
+        return recent.getIfPresent(ALL) != null || TransactionSynchronizationManager.hasResource(this);
+    }
+}
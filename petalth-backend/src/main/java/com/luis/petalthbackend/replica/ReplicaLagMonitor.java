@@ -0,0 +1,84 @@
+package com.luis.petalthbackend.replica;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+// Vigila el retraso de la réplica. Si se retrasa más de 'read-replica.max-lag' (o no responde) las lecturas
+// vuelven a la primaria hasta que se ponga al día: nadie lee datos de hace minutos por una réplica atascada.
+public class ReplicaLagMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    // Réplica al día (ha aplicado todo lo recibido) = 0. Si no, antigüedad de la última transacción aplicada.
+    // Sin la primera condición una réplica al día de una primaria sin escrituras parecería cada vez más retrasada.
+    private static final String LAG_SQL = """
+            SELECT CASE
+                       WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                       ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0)
+                   END
+            """;
+
+    private final DataSource replica;
+    private final Duration maxLag;
+
+    // Hasta la primera comprobación no se usa la réplica
+    private volatile double lagSeconds = Double.NaN;
+    private volatile boolean usable;
+
+    public ReplicaLagMonitor(DataSource replica, Duration maxLag, MeterRegistry meterRegistry) {
+        this.replica = replica;
+        this.maxLag = maxLag;
+        Gauge.builder("datasource.replica.lag", this, monitor -> monitor.lagSeconds)
+                .description("Retraso de la réplica de lectura (NaN si no responde)")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    public boolean isReplicaUsable() {
+        return usable;
+    }
+
+    @Scheduled(fixedDelayString = "${read-replica.lag-check-interval:5s}")
+    public void check() {
+        boolean wasUsable = usable;
+        try (Connection connection = replica.getConnection()) {
+            lagSeconds = isPostgres(connection) ? queryLag(connection) : 0;
+            usable = lagSeconds <= maxLag.toMillis() / 1000.0;
+            if (wasUsable && !usable) {
+                log.warn("La réplica lleva {} s de retraso (máximo {}): las lecturas van a la primaria",
+                        lagSeconds, maxLag);
+            }
+        } catch (SQLException e) {
+            lagSeconds = Double.NaN;
+            usable = false;
+            if (wasUsable) {
+                log.warn("La réplica no responde, las lecturas van a la primaria: {}", e.getMessage());
+            }
+        }
+        if (!wasUsable && usable) {
+            log.info("Réplica disponible para lecturas (retraso {} s)", lagSeconds);
+        }
+    }
+
+    private static boolean isPostgres(Connection connection) throws SQLException {
+        return "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName());
+    }
+
+    private static double queryLag(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(LAG_SQL)) {
+            rs.next();
+            return rs.getDouble(1);
+        }
+    }
+}
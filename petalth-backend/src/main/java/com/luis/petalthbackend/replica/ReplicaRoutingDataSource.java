@@ -0,0 +1,115 @@
+package com.luis.petalthbackend.replica;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+
+// Reparte las conexiones entre la primaria y la réplica de lectura. Van a la réplica solo las transacciones
+// @Transactional(readOnly = true), y no siempre:
+//  - Read-your-writes: tras el commit de una escritura, ese usuario lee de la primaria durante
+//    'read-replica.read-your-writes'. Así ve lo que acaba de guardar aunque la réplica aún no lo tenga.
+//  - Invalidaciones: lo que respalda un ETag o la caché de segundo nivel recién invalidados se lee de la
+//    primaria (RecentInvalidations), para no servir ni volver a cachear lo de antes del cambio.
+//  - Retraso: si la réplica va retrasada o no responde (ReplicaLagMonitor) todo va a la primaria.
+// Necesita ir detrás de un LazyConnectionDataSourceProxy: Hibernate pide la conexión al empezar la
+// transacción, antes de que Spring la marque como readOnly. El proxy la pide en la primera sentencia.
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Target { PRIMARY, REPLICA }
+
+    private final ReplicaLagMonitor lagMonitor;
+    private final RecentInvalidations recentInvalidations;
+    // Usuarios que han escrito hace menos de 'read-your-writes' (caduca sola)
+    private final Cache<String, Boolean> recentWriters;
+
+    private final Counter readWrite;
+    private final Counter readYourWrites;
+    private final Counter recentInvalidation;
+    private final Counter replicaLag;
+    private final Counter readOnly;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor lagMonitor,
+                                    RecentInvalidations recentInvalidations, Duration readYourWritesWindow,
+                                    MeterRegistry meterRegistry) {
+        this.lagMonitor = lagMonitor;
+        this.recentInvalidations = recentInvalidations;
+        this.recentWriters = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(readYourWritesWindow)
+                .build();
+        this.readWrite = routed(meterRegistry, "primary", "read-write");
+        this.readYourWrites = routed(meterRegistry, "primary", "read-your-writes");
+        this.recentInvalidation = routed(meterRegistry, "primary", "recent-invalidation");
+        this.replicaLag = routed(meterRegistry, "primary", "replica-lag");
+        this.readOnly = routed(meterRegistry, "replica", "read-only");
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        initialize();
+    }
+
+    private static Counter routed(MeterRegistry meterRegistry, String pool, String reason) {
+        return Counter.builder("datasource.routing")
+                .description("Conexiones pedidas a cada pool y por qué")
+                .tag("pool", pool)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String user = currentUser();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            rememberWriterAfterCommit(user);
+            readWrite.increment();
+            return Target.PRIMARY;
+        }
+        if (user != null && recentWriters.getIfPresent(user) != null) {
+            readYourWrites.increment();
+            return Target.PRIMARY;
+        }
+        if (recentInvalidations.isPrimaryRequired()) {
+            recentInvalidation.increment();
+            return Target.PRIMARY;
+        }
+        if (!lagMonitor.isReplicaUsable()) {
+            replicaLag.increment();
+            return Target.PRIMARY;
+        }
+        readOnly.increment();
+        return Target.REPLICA;
+    }
+
+    // La ventana empieza con el commit: es entonces cuando la réplica empieza a ir por detrás
+    private void rememberWriterAfterCommit(String user) {
+        if (user == null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recentWriters.put(user, Boolean.TRUE);
+            }
+        });
+    }
+
+    // Sin usuario (arranque, tareas programadas, peticiones anónimas) no hay nada que fijar
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken
+                || !authentication.isAuthenticated()) {
+            return null;
+        }
+        return authentication.getName();
+    }
+}
@@ -1,11 +1,74 @@
 package com.luis.petalthbackend.repository;
 
+import com.luis.petalthbackend.dto.response.AppointmentDTO;
 import com.luis.petalthbackend.entity.Appointment;
+import com.luis.petalthbackend.entity.AppointmentStatus;
+import com.luis.petalthbackend.schedule.ScheduledInterval;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
-    // Spring Data JPA hace la magia: busca en la relación veterinarian -> user -> email
-    List<Appointment> findByVeterinarianUserEmail(String email);
+public interface AppointmentRepository extends JpaRepository<Appointment, Long>, AppointmentRepositoryCustom {
+
+    // Proyección directa al DTO con JOINs: una única SELECT en lugar de cargar service, pet,
+    // veterinarian y veterinarian.user de forma perezosa por cada cita (N+1 Queries)
+    @Query("SELECT new com.luis.petalthbackend.dto.response.AppointmentDTO(" +
+            "a.id, a.dateTime, s.name, a.status, p.name, CONCAT(u.firstName, ' ', u.lastName)) " +
+            "FROM Appointment a JOIN a.service s JOIN a.pet p JOIN a.veterinarian v JOIN v.user u")
+    List<AppointmentDTO> findAllAsDTO();
+
+    // Agenda de un veterinario: filtra por la relación veterinarian -> user -> email
+    @Query("SELECT new com.luis.petalthbackend.dto.response.AppointmentDTO(" +
+            "a.id, a.dateTime, s.name, a.status, p.name, CONCAT(u.firstName, ' ', u.lastName)) " +
+            "FROM Appointment a JOIN a.service s JOIN a.pet p JOIN a.veterinarian v JOIN v.user u " +
+            "WHERE u.email = :email ORDER BY a.dateTime")
+    List<AppointmentDTO> findAgendaByVeterinarianEmail(@Param("email") String email);
+
+    // Una cita ya proyectada al DTO (cambios de agenda enviados por SSE)
+    @Query("SELECT new com.luis.petalthbackend.dto.response.AppointmentDTO(" +
+            "a.id, a.dateTime, s.name, a.status, p.name, CONCAT(u.firstName, ' ', u.lastName)) " +
+            "FROM Appointment a JOIN a.service s JOIN a.pet p JOIN a.veterinarian v JOIN v.user u " +
+            "WHERE a.id = :id")
+    Optional<AppointmentDTO> findDTOById(@Param("id") Long id);
+
+    // Citas a facturar con su tratamiento (precio) y su factura si ya la tienen, en una sola SELECT
+    @Query("SELECT a FROM Appointment a JOIN FETCH a.service LEFT JOIN FETCH a.invoice WHERE a.id IN :ids")
+    List<Appointment> findForInvoicing(@Param("ids") Collection<Long> ids);
+
+    // Exportación: cursor de solo avance (fetch size) para leer por bloques sin cargar la tabla en memoria.
+    // Hay que consumirlo dentro de una transacción y cerrarlo (try-with-resources).
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.luis.petalthbackend.dto.response.AppointmentDTO(" +
+            "a.id, a.dateTime, s.name, a.status, p.name, CONCAT(u.firstName, ' ', u.lastName)) " +
+            "FROM Appointment a JOIN a.service s JOIN a.pet p JOIN a.veterinarian v JOIN v.user u ORDER BY a.id")
+    Stream<AppointmentDTO> streamAllForExport();
+
+    // Intervalos ocupados (inicio + duración del tratamiento) de varios veterinarios en una sola consulta.
+    // Para no perder citas que empiezan antes de 'from' y terminan dentro, el llamador resta la duración máxima.
+    @Query("SELECT new com.luis.petalthbackend.schedule.ScheduledInterval(a.id, v.id, a.dateTime, s.durationMinutes) " +
+            "FROM Appointment a JOIN a.veterinarian v JOIN a.service s " +
+            "WHERE v.id IN :vetIds AND a.status = :status AND a.dateTime >= :from AND a.dateTime < :to")
+    List<ScheduledInterval> findSchedule(@Param("vetIds") Collection<Long> vetIds,
+                                         @Param("status") AppointmentStatus status,
+                                         @Param("from") LocalDateTime from,
+                                         @Param("to") LocalDateTime to);
+
+    // Todas las citas con ese estado desde una fecha (para reconstruir el índice de agendas al arrancar)
+    @Query("SELECT new com.luis.petalthbackend.schedule.ScheduledInterval(a.id, v.id, a.dateTime, s.durationMinutes) " +
+            "FROM Appointment a JOIN a.veterinarian v JOIN a.service s " +
+            "WHERE a.status = :status AND a.dateTime >= :from")
+    List<ScheduledInterval> findScheduleFrom(@Param("status") AppointmentStatus status,
+                                             @Param("from") LocalDateTime from);
 }
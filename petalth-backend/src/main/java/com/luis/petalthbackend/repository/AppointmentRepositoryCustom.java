@@ -0,0 +1,16 @@
+package com.luis.petalthbackend.repository;
+
+import com.luis.petalthbackend.dto.response.AppointmentDTO;
+import com.luis.petalthbackend.entity.AppointmentStatus;
+import com.luis.petalthbackend.pagination.KeysetCursor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Consultas que Spring Data no puede derivar del nombre del método (filtros opcionales + keyset)
+public interface AppointmentRepositoryCustom {
+
+    // Citas ordenadas por (dateTime, id) descendente a partir del cursor. Los filtros a null se ignoran.
+    List<AppointmentDTO> findPage(AppointmentStatus status, LocalDateTime from, LocalDateTime to,
+                                  KeysetCursor after, int limit);
+}
@@ -0,0 +1,58 @@
+package com.luis.petalthbackend.repository;
+
+import com.luis.petalthbackend.dto.response.AppointmentDTO;
+import com.luis.petalthbackend.entity.AppointmentStatus;
+import com.luis.petalthbackend.pagination.KeysetCursor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class AppointmentRepositoryCustomImpl implements AppointmentRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<AppointmentDTO> findPage(AppointmentStatus status, LocalDateTime from, LocalDateTime to,
+                                         KeysetCursor after, int limit) {
+        // Solo añadimos los filtros que vienen informados, así el planner usa los índices (date_time, id)
+        // y (status, date_time, id) en lugar de evaluar condiciones ":param IS NULL".
+        StringBuilder jpql = new StringBuilder(
+                "SELECT new com.luis.petalthbackend.dto.response.AppointmentDTO(" +
+                "a.id, a.dateTime, s.name, a.status, p.name, CONCAT(u.firstName, ' ', u.lastName)) " +
+                "FROM Appointment a JOIN a.service s JOIN a.pet p JOIN a.veterinarian v JOIN v.user u " +
+                "WHERE 1 = 1");
+        if (status != null) {
+            jpql.append(" AND a.status = :status");
+        }
+        if (from != null) {
+            jpql.append(" AND a.dateTime >= :from");
+        }
+        if (to != null) {
+            jpql.append(" AND a.dateTime < :to");
+        }
+        if (after != null) {
+            jpql.append(" AND (a.dateTime < :cursorDate OR (a.dateTime = :cursorDate AND a.id < :cursorId))");
+        }
+        jpql.append(" ORDER BY a.dateTime DESC, a.id DESC");
+
+        TypedQuery<AppointmentDTO> query = entityManager.createQuery(jpql.toString(), AppointmentDTO.class);
+        if (status != null) {
+            query.setParameter("status", status);
+        }
+        if (from != null) {
+            query.setParameter("from", from);
+        }
+        if (to != null) {
+            query.setParameter("to", to);
+        }
+        if (after != null) {
+            query.setParameter("cursorDate", after.position());
+            query.setParameter("cursorId", after.id());
+        }
+        return query.setMaxResults(limit).getResultList();
+    }
+}
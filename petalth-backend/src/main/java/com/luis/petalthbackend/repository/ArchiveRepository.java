@@ -0,0 +1,291 @@
+package com.luis.petalthbackend.repository;
+
+import com.luis.petalthbackend.dto.response.AppointmentDTO;
+import com.luis.petalthbackend.dto.response.InvoiceDTO;
+import com.luis.petalthbackend.dto.response.InvoiceExportRow;
+import com.luis.petalthbackend.entity.AppointmentStatus;
+import com.luis.petalthbackend.entity.InvoiceStatus;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Histórico frío de citas y facturas cerradas (appointment_archive e invoice_archive). No son entidades JPA:
+// en PostgreSQL son tablas particionadas por mes (PARTITION BY RANGE) que Hibernate no sabe crear, así que el
+// esquema y las particiones se crean aquí. En el resto (H2 en tests) son tablas normales con las mismas columnas.
+// Las consultas normales solo leen appointment e invoice; el histórico solo se lee si se pide (includeHistory).
+@Repository
+public class ArchiveRepository {
+
+    private static final String APPOINTMENT_ARCHIVE_DDL =
+            "CREATE TABLE IF NOT EXISTS appointment_archive (id BIGINT NOT NULL, date_time TIMESTAMP(6) NOT NULL, " +
+            "diagnosis VARCHAR(255), status VARCHAR(32), medicaltreatment_id BIGINT, pet_id BIGINT, " +
+            "veterinarian_id BIGINT, archived_at TIMESTAMP(6) NOT NULL, PRIMARY KEY (id, date_time))";
+
+    private static final String INVOICE_ARCHIVE_DDL =
+            "CREATE TABLE IF NOT EXISTS invoice_archive (id BIGINT NOT NULL, issue_date TIMESTAMP(6) NOT NULL, " +
+            "amount NUMERIC(38, 2), status VARCHAR(32), appointment_id BIGINT, archived_at TIMESTAMP(6) NOT NULL, " +
+            "PRIMARY KEY (id, issue_date))";
+
+    // Los índices sobre la tabla particionada se crean también en cada partición (presente y futura)
+    private static final List<String> ARCHIVE_INDEXES = List.of(
+            "CREATE INDEX IF NOT EXISTS idx_appointment_archive_vet_date_time ON appointment_archive (veterinarian_id, date_time)",
+            "CREATE INDEX IF NOT EXISTS idx_invoice_archive_appointment ON invoice_archive (appointment_id)");
+
+    // Historia cerrada: cita terminada o cancelada, sin factura pendiente y sin factura por crear en la bandeja
+    private static final String ARCHIVABLE =
+            "a.date_time < ? AND a.status IN ('COMPLETED', 'CANCELLED') " +
+            "AND NOT EXISTS (SELECT 1 FROM invoice pi WHERE pi.appointment_id = a.id " +
+            "AND (pi.status <> 'PAID' OR pi.issue_date IS NULL)) " +
+            "AND NOT EXISTS (SELECT 1 FROM invoice_outbox o WHERE o.appointment_id = a.id)";
+
+    private static final String APPOINTMENT_DTO_SELECT =
+            "SELECT a.id, a.date_time, s.name, a.status, p.name, CONCAT(u.first_name, ' ', u.last_name) " +
+            "FROM appointment_archive a JOIN medical_treatment s ON s.id = a.medicaltreatment_id " +
+            "JOIN pet p ON p.id = a.pet_id " +
+            // El id del veterinario es el de su usuario (@MapsId)
+            "JOIN petalth_user u ON u.id = a.veterinarian_id";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private volatile Boolean postgres;
+
+    // ============================================================
+    // ESQUEMA Y PARTICIONES
+    // ============================================================
+
+    // recreate=true borra el histórico antes de crearlo (cuando Hibernate acaba de recrear las tablas calientes)
+    public void createSchema(boolean recreate) {
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            String partitioned = isPostgres(connection) ? " PARTITION BY RANGE (%s)" : "";
+            try (Statement statement = connection.createStatement()) {
+                if (recreate) {
+                    statement.execute("DROP TABLE IF EXISTS appointment_archive CASCADE");
+                    statement.execute("DROP TABLE IF EXISTS invoice_archive CASCADE");
+                }
+                statement.execute(APPOINTMENT_ARCHIVE_DDL + partitioned.formatted("date_time"));
+                statement.execute(INVOICE_ARCHIVE_DDL + partitioned.formatted("issue_date"));
+                for (String index : ARCHIVE_INDEXES) {
+                    statement.execute(index);
+                }
+            }
+        });
+    }
+
+    // Crea (si faltan) las particiones mensuales de un lote ya bloqueado (lockArchivableBatch): las de sus citas y
+    // las de sus facturas. Va en la transacción del lote, justo antes de moverlo: una cita que se ha vuelto
+    // archivable después de empezar la pasada también tiene su partición. Las particiones se escriben una vez y
+    // no se actualizan: fillfactor 100 (páginas llenas) y, opcionalmente, un tablespace en disco más barato.
+    // Devuelve cuántos meses se han comprobado.
+    public int createPartitionsFor(List<Long> appointmentIds, String tablespace) {
+        if (appointmentIds.isEmpty()) {
+            return 0;
+        }
+        String in = String.join(", ", Collections.nCopies(appointmentIds.size(), "?"));
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            if (!isPostgres(connection)) {
+                return 0;
+            }
+            int months = 0;
+            LocalDateTime[] appointments = minMax(connection,
+                    "SELECT MIN(date_time), MAX(date_time) FROM appointment WHERE id IN (" + in + ")",
+                    appointmentIds);
+            months += createPartitions(connection, "appointment_archive", appointments, tablespace);
+            LocalDateTime[] invoices = minMax(connection,
+                    "SELECT MIN(issue_date), MAX(issue_date) FROM invoice WHERE appointment_id IN (" + in + ")",
+                    appointmentIds);
+            months += createPartitions(connection, "invoice_archive", invoices, tablespace);
+            return months;
+        });
+    }
+
+    private static LocalDateTime[] minMax(Connection connection, String sql, List<Long> ids) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            int index = 1;
+            for (Long id : ids) {
+                statement.setLong(index++, id);
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                Timestamp min = rs.getTimestamp(1);
+                Timestamp max = rs.getTimestamp(2);
+                return min == null ? null : new LocalDateTime[]{min.toLocalDateTime(), max.toLocalDateTime()};
+            }
+        }
+    }
+
+    private static int createPartitions(Connection connection, String table, LocalDateTime[] range,
+                                        String tablespace) throws SQLException {
+        if (range == null) {
+            return 0;
+        }
+        int months = 0;
+        try (Statement statement = connection.createStatement()) {
+            for (YearMonth month = YearMonth.from(range[0]); !month.isAfter(YearMonth.from(range[1]));
+                 month = month.plusMonths(1)) {
+                statement.execute("CREATE TABLE IF NOT EXISTS " + partitionName(table, month) +
+                        " PARTITION OF " + table + " FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" +
+                        month.plusMonths(1).atDay(1) + "') WITH (fillfactor = 100)" +
+                        (tablespace.isBlank() ? "" : " TABLESPACE " + tablespace));
+                months++;
+            }
+        }
+        return months;
+    }
+
+    // appointment_archive_p202401
+    private static String partitionName(String table, YearMonth month) {
+        return "%s_p%04d%02d".formatted(table, month.getYear(), month.getMonthValue());
+    }
+
+    // ============================================================
+    // ARCHIVADO: mover un lote de citas (y sus facturas) de las tablas calientes al histórico
+    // ============================================================
+
+    // Bloquea el siguiente lote de citas archivables. En PostgreSQL con SKIP LOCKED: varias instancias
+    // archivan a la vez sin esperarse ni mover dos veces la misma cita.
+    public List<Long> lockArchivableBatch(LocalDateTime cutoff, int limit) {
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT a.id FROM appointment a WHERE " + ARCHIVABLE + " ORDER BY a.date_time, a.id LIMIT ? " +
+                    (isPostgres(connection) ? "FOR UPDATE SKIP LOCKED" : "FOR UPDATE"))) {
+                statement.setTimestamp(1, Timestamp.valueOf(cutoff));
+                statement.setInt(2, limit);
+                List<Long> ids = new ArrayList<>(limit);
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        ids.add(rs.getLong(1));
+                    }
+                }
+                return ids;
+            }
+        });
+    }
+
+    // Copia las citas y sus facturas al histórico y las borra de las tablas calientes (primero las facturas, por la FK)
+    public ArchivedBatch moveToArchive(List<Long> appointmentIds, LocalDateTime archivedAt) {
+        if (appointmentIds.isEmpty()) {
+            return new ArchivedBatch(0, 0);
+        }
+        String in = String.join(", ", Collections.nCopies(appointmentIds.size(), "?"));
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            int invoices = execute(connection,
+                    "INSERT INTO invoice_archive (id, issue_date, amount, status, appointment_id, archived_at) " +
+                    "SELECT id, issue_date, amount, status, appointment_id, ? FROM invoice " +
+                    "WHERE appointment_id IN (" + in + ")", archivedAt, appointmentIds);
+            execute(connection, "DELETE FROM invoice WHERE appointment_id IN (" + in + ")", null, appointmentIds);
+            int appointments = execute(connection,
+                    "INSERT INTO appointment_archive (id, date_time, diagnosis, status, medicaltreatment_id, " +
+                    "pet_id, veterinarian_id, archived_at) SELECT id, date_time, diagnosis, status, " +
+                    "medicaltreatment_id, pet_id, veterinarian_id, ? FROM appointment WHERE id IN (" + in + ")",
+                    archivedAt, appointmentIds);
+            execute(connection, "DELETE FROM appointment WHERE id IN (" + in + ")", null, appointmentIds);
+            return new ArchivedBatch(appointments, invoices);
+        });
+    }
+
+    public record ArchivedBatch(int appointments, int invoices) {}
+
+    private static int execute(Connection connection, String sql, LocalDateTime archivedAt, List<Long> ids)
+            throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            int index = 1;
+            if (archivedAt != null) {
+                statement.setTimestamp(index++, Timestamp.valueOf(archivedAt));
+            }
+            for (Long id : ids) {
+                statement.setLong(index++, id);
+            }
+            return statement.executeUpdate();
+        }
+    }
+
+    // ============================================================
+    // LECTURA DEL HISTÓRICO (includeHistory)
+    // ============================================================
+
+    public List<AppointmentDTO> findAllAppointments() {
+        return toAppointments(entityManager.createNativeQuery(APPOINTMENT_DTO_SELECT).getResultList());
+    }
+
+    public List<AppointmentDTO> findAgendaByVeterinarianEmail(String email) {
+        return toAppointments(entityManager.createNativeQuery(
+                        APPOINTMENT_DTO_SELECT + " WHERE u.email = :email ORDER BY a.date_time")
+                .setParameter("email", email)
+                .getResultList());
+    }
+
+    // Mismo contrato que AppointmentRepository.streamAllForExport: consumir en una transacción y cerrar
+    @SuppressWarnings("unchecked")
+    public Stream<AppointmentDTO> streamAppointmentsForExport() {
+        Stream<Object[]> rows = entityManager.createNativeQuery(APPOINTMENT_DTO_SELECT + " ORDER BY a.id")
+                .setHint(HibernateHints.HINT_FETCH_SIZE, 500)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+        return rows.map(ArchiveRepository::toAppointment);
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<InvoiceDTO> findAllInvoices() {
+        List<Object[]> rows = entityManager.createNativeQuery(
+                "SELECT id, issue_date, amount, status FROM invoice_archive").getResultList();
+        return rows.stream()
+                .map(row -> new InvoiceDTO(toLong(row[0]), toLocalDateTime(row[1]), (BigDecimal) row[2],
+                        (String) row[3]))
+                .toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    public Stream<InvoiceExportRow> streamInvoicesForExport() {
+        Stream<Object[]> rows = entityManager.createNativeQuery(
+                        "SELECT id, issue_date, amount, status, appointment_id FROM invoice_archive ORDER BY id")
+                .setHint(HibernateHints.HINT_FETCH_SIZE, 500)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+        return rows.map(row -> new InvoiceExportRow(toLong(row[0]), toLocalDateTime(row[1]), (BigDecimal) row[2],
+                row[3] == null ? null : InvoiceStatus.valueOf((String) row[3]), toLong(row[4])));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<AppointmentDTO> toAppointments(List<?> rows) {
+        return ((List<Object[]>) rows).stream().map(ArchiveRepository::toAppointment).toList();
+    }
+
+    private static AppointmentDTO toAppointment(Object[] row) {
+        return new AppointmentDTO(toLong(row[0]), toLocalDateTime(row[1]), (String) row[2],
+                row[3] == null ? null : AppointmentStatus.valueOf((String) row[3]), (String) row[4], (String) row[5]);
+    }
+
+    private static Long toLong(Object value) {
+        return value == null ? null : ((Number) value).longValue();
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        return value instanceof Timestamp timestamp ? timestamp.toLocalDateTime() : (LocalDateTime) value;
+    }
+
+    private boolean isPostgres(Connection connection) throws SQLException {
+        Boolean result = postgres;
+        if (result == null) {
+            result = connection.getMetaData().getDatabaseProductName().equalsIgnoreCase("PostgreSQL");
+            postgres = result;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,27 @@
+package com.luis.petalthbackend.repository;
+
+import com.luis.petalthbackend.entity.InvoiceOutbox;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface InvoiceOutboxRepository extends JpaRepository<InvoiceOutbox, Long> {
+
+    // SELECT ... FOR UPDATE SKIP LOCKED: cada worker (también en otras instancias) se lleva un lote distinto
+    // sin esperar a los demás. Los bloqueos duran lo que la transacción del lote.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT o FROM InvoiceOutbox o ORDER BY o.id")
+    List<InvoiceOutbox> lockNextBatch(Limit limit);
+
+    @Query("SELECT MIN(o.createdAt) FROM InvoiceOutbox o")
+    Optional<LocalDateTime> findOldestCreatedAt();
+}
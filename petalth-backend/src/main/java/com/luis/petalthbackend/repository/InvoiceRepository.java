@@ -1,9 +1,41 @@
 package com.luis.petalthbackend.repository;
 
+import com.luis.petalthbackend.dto.response.InvoiceDTO;
+import com.luis.petalthbackend.dto.response.InvoiceExportRow;
 import com.luis.petalthbackend.entity.Invoice;
+import com.luis.petalthbackend.entity.InvoiceStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.stream.Stream;
+
 @Repository
-public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
+public interface InvoiceRepository extends JpaRepository<Invoice, Long>, InvoiceRepositoryCustom {
+
+    // Listado completo proyectado al DTO: findAll() cargaba además la cita (@OneToOne EAGER) de cada factura
+    @Query("SELECT new com.luis.petalthbackend.dto.response.InvoiceDTO(" +
+            "i.id, i.issueDate, i.amount, CAST(i.status AS String)) FROM Invoice i ORDER BY i.id")
+    List<InvoiceDTO> findAllAsDTO();
+
+    // Exportación: cursor de solo avance (fetch size) para leer por bloques sin cargar la tabla en memoria.
+    // Hay que consumirlo dentro de una transacción y cerrarlo (try-with-resources).
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.luis.petalthbackend.dto.response.InvoiceExportRow(" +
+            "i.id, i.issueDate, i.amount, i.status, i.appointment.id) FROM Invoice i ORDER BY i.id")
+    Stream<InvoiceExportRow> streamAllForExport();
+
+    // Cambio de estado condicional: solo una de dos peticiones concurrentes obtiene 1 (y aplica los resúmenes)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Invoice i SET i.status = :to WHERE i.id = :id AND i.status = :from")
+    int updateStatus(@Param("id") Long id, @Param("from") InvoiceStatus from, @Param("to") InvoiceStatus to);
 }
\ No newline at end of file
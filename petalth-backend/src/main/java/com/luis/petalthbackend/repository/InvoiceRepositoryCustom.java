@@ -0,0 +1,15 @@
+package com.luis.petalthbackend.repository;
+
+import com.luis.petalthbackend.dto.response.InvoiceDTO;
+import com.luis.petalthbackend.entity.InvoiceStatus;
+import com.luis.petalthbackend.pagination.KeysetCursor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface InvoiceRepositoryCustom {
+
+    // Facturas ordenadas por (issueDate, id) descendente a partir del cursor. Los filtros a null se ignoran.
+    List<InvoiceDTO> findPage(InvoiceStatus status, LocalDateTime from, LocalDateTime to,
+                              KeysetCursor after, int limit);
+}
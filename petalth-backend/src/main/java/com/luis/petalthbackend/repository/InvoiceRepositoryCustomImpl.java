@@ -0,0 +1,56 @@
+package com.luis.petalthbackend.repository;
+
+import com.luis.petalthbackend.dto.response.InvoiceDTO;
+import com.luis.petalthbackend.entity.InvoiceStatus;
+import com.luis.petalthbackend.pagination.KeysetCursor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class InvoiceRepositoryCustomImpl implements InvoiceRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<InvoiceDTO> findPage(InvoiceStatus status, LocalDateTime from, LocalDateTime to,
+                                     KeysetCursor after, int limit) {
+        // Proyectamos al DTO para no cargar la cita asociada (@OneToOne EAGER) de cada factura
+        StringBuilder jpql = new StringBuilder(
+                "SELECT new com.luis.petalthbackend.dto.response.InvoiceDTO(" +
+                "i.id, i.issueDate, i.amount, CAST(i.status AS String)) " +
+                "FROM Invoice i WHERE 1 = 1");
+        if (status != null) {
+            jpql.append(" AND i.status = :status");
+        }
+        if (from != null) {
+            jpql.append(" AND i.issueDate >= :from");
+        }
+        if (to != null) {
+            jpql.append(" AND i.issueDate < :to");
+        }
+        if (after != null) {
+            jpql.append(" AND (i.issueDate < :cursorDate OR (i.issueDate = :cursorDate AND i.id < :cursorId))");
+        }
+        jpql.append(" ORDER BY i.issueDate DESC, i.id DESC");
+
+        TypedQuery<InvoiceDTO> query = entityManager.createQuery(jpql.toString(), InvoiceDTO.class);
+        if (status != null) {
+            query.setParameter("status", status);
+        }
+        if (from != null) {
+            query.setParameter("from", from);
+        }
+        if (to != null) {
+            query.setParameter("to", to);
+        }
+        if (after != null) {
+            query.setParameter("cursorDate", after.position());
+            query.setParameter("cursorId", after.id());
+        }
+        return query.setMaxResults(limit).getResultList();
+    }
+}
@@ -0,0 +1,12 @@
+package com.luis.petalthbackend.repository;
+
+import com.luis.petalthbackend.entity.MedicalTreatment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+public interface MedicalTreatmentRepository extends JpaRepository<MedicalTreatment, Long> {
+
+    // Duración del tratamiento más largo: acota hacia atrás la búsqueda de citas que se solapan
+    @Query("SELECT COALESCE(MAX(t.durationMinutes), 0) FROM MedicalTreatment t")
+    int findMaxDurationMinutes();
+}
@@ -1,7 +1,18 @@
 package com.luis.petalthbackend.repository;
 
 import com.luis.petalthbackend.entity.Owner;
+import com.luis.petalthbackend.importer.EmailKey;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface OwnerRepository extends JpaRepository<Owner, Long> {
+
+    // Ids de los dueños con esos emails (importación de mascotas)
+    @Query("SELECT new com.luis.petalthbackend.importer.EmailKey(u.email, o.id) " +
+            "FROM Owner o JOIN o.user u WHERE u.email IN :emails")
+    List<EmailKey> findKeysByEmails(@Param("emails") Collection<String> emails);
 }
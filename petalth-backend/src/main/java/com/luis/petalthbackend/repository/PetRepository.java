@@ -1,10 +1,12 @@
 package com.luis.petalthbackend.repository;
 
 import com.luis.petalthbackend.entity.Pet;
+import com.luis.petalthbackend.importer.PetKey;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface PetRepository extends JpaRepository<Pet, Long> {
@@ -16,4 +18,9 @@ public interface PetRepository extends JpaRepository<Pet, Long> {
     // Lista todos los Pet que están activos
     @Query("SELECT p FROM Pet p JOIN FETCH p.owner o JOIN FETCH o.user WHERE p.active = true")
     List<Pet> findAllActiveWithOwner();
+
+    // Mascotas activas de esos dueños identificadas por (email del dueño, nombre) para la importación de citas
+    @Query("SELECT new com.luis.petalthbackend.importer.PetKey(u.email, p.name, p.id) " +
+            "FROM Pet p JOIN p.owner o JOIN o.user u WHERE u.email IN :emails AND p.active = true")
+    List<PetKey> findKeysByOwnerEmails(@Param("emails") Collection<String> emails);
 }
@@ -0,0 +1,345 @@
+package com.luis.petalthbackend.repository;
+
+import com.luis.petalthbackend.dto.request.RollupGroupBy;
+import com.luis.petalthbackend.dto.response.RevenueRollupDTO;
+import com.luis.petalthbackend.dto.response.WorkloadRollupDTO;
+import com.luis.petalthbackend.entity.AppointmentStatus;
+import com.luis.petalthbackend.entity.InvoiceStatus;
+import com.luis.petalthbackend.entity.RevenueRollupKey;
+import com.luis.petalthbackend.entity.WorkloadRollupKey;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.Session;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+// Escritura y lectura de los resúmenes diarios del panel (daily_revenue_rollup y daily_workload_rollup).
+// Las escrituras son upserts que SUMAN el delta a la fila: en PostgreSQL INSERT ... ON CONFLICT DO UPDATE
+// (atómico aunque dos transacciones creen la misma fila a la vez); en el resto (H2 en tests) MERGE estándar.
+// En PostgreSQL cada día lleva además un advisory lock de transacción: compartido para los upserts y exclusivo
+// para el recálculo. Así el recálculo espera a los cambios de ese día que están a punto de confirmarse (y estos
+// a él): si no, su INSERT podría chocar con la fila que acaba de crear un upsert, o contarlo dos veces o ninguna.
+@Repository
+public class RollupRepository {
+
+    // Primera clave de los advisory locks de los resúmenes (la segunda es el día): no chocan con otros bloqueos
+    private static final int DAY_LOCK_SPACE = 0x524F4C4C; // "ROLL"
+
+    private static final String REVENUE_UPSERT_POSTGRES =
+            "INSERT INTO daily_revenue_rollup (rollup_date, veterinarian_id, treatment_id, status, invoice_count, amount) " +
+            "VALUES (?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (rollup_date, veterinarian_id, treatment_id, status) DO UPDATE SET " +
+            "invoice_count = daily_revenue_rollup.invoice_count + EXCLUDED.invoice_count, " +
+            "amount = daily_revenue_rollup.amount + EXCLUDED.amount";
+
+    private static final String REVENUE_UPSERT_MERGE =
+            "MERGE INTO daily_revenue_rollup t USING (SELECT CAST(? AS DATE) AS rollup_date, " +
+            "CAST(? AS BIGINT) AS veterinarian_id, CAST(? AS BIGINT) AS treatment_id, " +
+            "CAST(? AS VARCHAR(32)) AS status, CAST(? AS BIGINT) AS invoice_count, " +
+            "CAST(? AS NUMERIC(38, 2)) AS amount) s " +
+            "ON t.rollup_date = s.rollup_date AND t.veterinarian_id = s.veterinarian_id " +
+            "AND t.treatment_id = s.treatment_id AND t.status = s.status " +
+            "WHEN MATCHED THEN UPDATE SET invoice_count = t.invoice_count + s.invoice_count, " +
+            "amount = t.amount + s.amount " +
+            "WHEN NOT MATCHED THEN INSERT (rollup_date, veterinarian_id, treatment_id, status, invoice_count, amount) " +
+            "VALUES (s.rollup_date, s.veterinarian_id, s.treatment_id, s.status, s.invoice_count, s.amount)";
+
+    private static final String WORKLOAD_UPSERT_POSTGRES =
+            "INSERT INTO daily_workload_rollup (rollup_date, veterinarian_id, treatment_id, status, appointment_count, minutes) " +
+            "VALUES (?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (rollup_date, veterinarian_id, treatment_id, status) DO UPDATE SET " +
+            "appointment_count = daily_workload_rollup.appointment_count + EXCLUDED.appointment_count, " +
+            "minutes = daily_workload_rollup.minutes + EXCLUDED.minutes";
+
+    private static final String WORKLOAD_UPSERT_MERGE =
+            "MERGE INTO daily_workload_rollup t USING (SELECT CAST(? AS DATE) AS rollup_date, " +
+            "CAST(? AS BIGINT) AS veterinarian_id, CAST(? AS BIGINT) AS treatment_id, " +
+            "CAST(? AS VARCHAR(32)) AS status, CAST(? AS BIGINT) AS appointment_count, " +
+            "CAST(? AS BIGINT) AS minutes) s " +
+            "ON t.rollup_date = s.rollup_date AND t.veterinarian_id = s.veterinarian_id " +
+            "AND t.treatment_id = s.treatment_id AND t.status = s.status " +
+            "WHEN MATCHED THEN UPDATE SET appointment_count = t.appointment_count + s.appointment_count, " +
+            "minutes = t.minutes + s.minutes " +
+            "WHEN NOT MATCHED THEN INSERT (rollup_date, veterinarian_id, treatment_id, status, appointment_count, minutes) " +
+            "VALUES (s.rollup_date, s.veterinarian_id, s.treatment_id, s.status, s.appointment_count, s.minutes)";
+
+    // Recalculo de un día desde las tablas de origen (backfill), incluido el histórico archivado.
+    // Una factura archivada siempre tiene su cita archivada (se mueven juntas) y una caliente, su cita caliente.
+    private static final String REVENUE_REBUILD =
+            "INSERT INTO daily_revenue_rollup (rollup_date, veterinarian_id, treatment_id, status, invoice_count, amount) " +
+            "SELECT CAST(x.issue_date AS DATE), x.veterinarian_id, x.medicaltreatment_id, x.status, COUNT(*), " +
+            "COALESCE(SUM(x.amount), 0) FROM (" +
+            "SELECT i.issue_date, i.status, i.amount, a.veterinarian_id, a.medicaltreatment_id " +
+            "FROM invoice i JOIN appointment a ON a.id = i.appointment_id " +
+            "WHERE i.issue_date >= ? AND i.issue_date < ? " +
+            "UNION ALL SELECT i.issue_date, i.status, i.amount, a.veterinarian_id, a.medicaltreatment_id " +
+            "FROM invoice_archive i JOIN appointment_archive a ON a.id = i.appointment_id " +
+            "WHERE i.issue_date >= ? AND i.issue_date < ?) x " +
+            "WHERE x.veterinarian_id IS NOT NULL AND x.medicaltreatment_id IS NOT NULL " +
+            "GROUP BY CAST(x.issue_date AS DATE), x.veterinarian_id, x.medicaltreatment_id, x.status";
+
+    private static final String WORKLOAD_REBUILD =
+            "INSERT INTO daily_workload_rollup (rollup_date, veterinarian_id, treatment_id, status, appointment_count, minutes) " +
+            "SELECT CAST(x.date_time AS DATE), x.veterinarian_id, x.medicaltreatment_id, x.status, COUNT(*), " +
+            "COALESCE(SUM(t.duration_minutes), 0) FROM (" +
+            "SELECT date_time, status, veterinarian_id, medicaltreatment_id FROM appointment " +
+            "WHERE date_time >= ? AND date_time < ? " +
+            "UNION ALL SELECT date_time, status, veterinarian_id, medicaltreatment_id FROM appointment_archive " +
+            "WHERE date_time >= ? AND date_time < ?) x " +
+            "JOIN medical_treatment t ON t.id = x.medicaltreatment_id " +
+            "WHERE x.veterinarian_id IS NOT NULL " +
+            "GROUP BY CAST(x.date_time AS DATE), x.veterinarian_id, x.medicaltreatment_id, x.status";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private volatile Boolean postgres;
+
+    // Aplica los deltas acumulados en una transacción. Se recorren en orden de clave para que dos transacciones
+    // que tocan las mismas filas las bloqueen en el mismo orden (sin deadlocks).
+    public void apply(Deltas deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            boolean pg = isPostgres(connection);
+            if (pg) {
+                // En orden, como las filas; varios upserts del mismo día pueden ir a la vez
+                for (LocalDate day : deltas.days()) {
+                    lockDay(connection, day, "pg_advisory_xact_lock_shared");
+                }
+            }
+            if (!deltas.revenue.isEmpty()) {
+                try (PreparedStatement statement = connection.prepareStatement(
+                        pg ? REVENUE_UPSERT_POSTGRES : REVENUE_UPSERT_MERGE)) {
+                    for (Map.Entry<RevenueRollupKey, RevenueDelta> entry : deltas.revenue.entrySet()) {
+                        RevenueRollupKey key = entry.getKey();
+                        bindKey(statement, key.date(), key.veterinarianId(), key.treatmentId(), key.status().name());
+                        statement.setLong(5, entry.getValue().count);
+                        statement.setBigDecimal(6, entry.getValue().amount);
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                }
+            }
+            if (!deltas.workload.isEmpty()) {
+                try (PreparedStatement statement = connection.prepareStatement(
+                        pg ? WORKLOAD_UPSERT_POSTGRES : WORKLOAD_UPSERT_MERGE)) {
+                    for (Map.Entry<WorkloadRollupKey, WorkloadDelta> entry : deltas.workload.entrySet()) {
+                        WorkloadRollupKey key = entry.getKey();
+                        bindKey(statement, key.date(), key.veterinarianId(), key.treatmentId(), key.status().name());
+                        statement.setLong(5, entry.getValue().count);
+                        statement.setLong(6, entry.getValue().minutes);
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                }
+            }
+        });
+    }
+
+    // Sustituye las filas de un día por las calculadas desde invoice y appointment. Devuelve las filas escritas.
+    public int rebuildDay(LocalDate day) {
+        Timestamp from = Timestamp.valueOf(day.atStartOfDay());
+        Timestamp to = Timestamp.valueOf(day.plusDays(1).atStartOfDay());
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            if (isPostgres(connection)) {
+                // Hasta el commit: ningún upsert de este día entra entre el DELETE y el INSERT
+                lockDay(connection, day, "pg_advisory_xact_lock");
+            }
+            int rows = 0;
+            for (String table : List.of("daily_revenue_rollup", "daily_workload_rollup")) {
+                try (PreparedStatement statement = connection.prepareStatement(
+                        "DELETE FROM " + table + " WHERE rollup_date = ?")) {
+                    statement.setDate(1, Date.valueOf(day));
+                    statement.executeUpdate();
+                }
+            }
+            for (String sql : List.of(REVENUE_REBUILD, WORKLOAD_REBUILD)) {
+                try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                    statement.setTimestamp(1, from);
+                    statement.setTimestamp(2, to);
+                    statement.setTimestamp(3, from);
+                    statement.setTimestamp(4, to);
+                    rows += statement.executeUpdate();
+                }
+            }
+            return rows;
+        });
+    }
+
+    // Primer y último día con citas o facturas (calientes o archivadas): rango por defecto del recálculo
+    public Optional<DateRange> findDataRange() {
+        Object[] row = (Object[]) entityManager.createNativeQuery(
+                "SELECT MIN(d), MAX(d) FROM (" +
+                "SELECT date_time AS d FROM appointment UNION ALL SELECT issue_date FROM invoice " +
+                "UNION ALL SELECT date_time FROM appointment_archive UNION ALL SELECT issue_date FROM invoice_archive) x")
+                .getSingleResult();
+        LocalDateTime from = toLocalDateTime(row[0]);
+        LocalDateTime to = toLocalDateTime(row[1]);
+        return from == null ? Optional.empty() : Optional.of(new DateRange(from.toLocalDate(), to.toLocalDate()));
+    }
+
+    public record DateRange(LocalDate from, LocalDate to) {}
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        return value instanceof Timestamp timestamp ? timestamp.toLocalDateTime() : (LocalDateTime) value;
+    }
+
+    // ============================================================
+    // LECTURA: suma de filas del resumen, sin tocar invoice ni appointment
+    // ============================================================
+
+    public List<RevenueRollupDTO> findRevenue(LocalDate from, LocalDate to, RollupGroupBy groupBy,
+                                              InvoiceStatus status) {
+        TypedQuery<RevenueRollupDTO> query = entityManager.createQuery(
+                "SELECT new com.luis.petalthbackend.dto.response.RevenueRollupDTO(" +
+                        selectColumns(groupBy) + ", SUM(r.invoiceCount), SUM(r.amount)) " +
+                        "FROM DailyRevenueRollup r" + groupJoins(groupBy) +
+                        " WHERE r.id.date >= :from AND r.id.date <= :to" +
+                        (status != null ? " AND r.id.status = :status" : "") +
+                        " GROUP BY " + groupColumns(groupBy) + " ORDER BY " + groupOrder(groupBy),
+                RevenueRollupDTO.class);
+        query.setParameter("from", from).setParameter("to", to);
+        if (status != null) {
+            query.setParameter("status", status);
+        }
+        return query.getResultList();
+    }
+
+    public List<WorkloadRollupDTO> findWorkload(LocalDate from, LocalDate to, RollupGroupBy groupBy,
+                                                AppointmentStatus status) {
+        TypedQuery<WorkloadRollupDTO> query = entityManager.createQuery(
+                "SELECT new com.luis.petalthbackend.dto.response.WorkloadRollupDTO(" +
+                        selectColumns(groupBy) + ", SUM(r.appointmentCount), SUM(r.minutes)) " +
+                        "FROM DailyWorkloadRollup r" + groupJoins(groupBy) +
+                        " WHERE r.id.date >= :from AND r.id.date <= :to" +
+                        (status != null ? " AND r.id.status = :status" : "") +
+                        " GROUP BY " + groupColumns(groupBy) + " ORDER BY " + groupOrder(groupBy),
+                WorkloadRollupDTO.class);
+        query.setParameter("from", from).setParameter("to", to);
+        if (status != null) {
+            query.setParameter("status", status);
+        }
+        return query.getResultList();
+    }
+
+    // Clave y etiqueta de cada grupo (las dos primeras columnas de los DTO)
+    private static String selectColumns(RollupGroupBy groupBy) {
+        return switch (groupBy) {
+            case DAY -> "CAST(r.id.date AS String), CAST(r.id.date AS String)";
+            case VETERINARIAN -> "CAST(r.id.veterinarianId AS String), CONCAT(u.firstName, ' ', u.lastName)";
+            case TREATMENT -> "CAST(r.id.treatmentId AS String), t.name";
+            case STATUS -> "CAST(r.id.status AS String), CAST(r.id.status AS String)";
+        };
+    }
+
+    private static String groupColumns(RollupGroupBy groupBy) {
+        return switch (groupBy) {
+            case DAY -> "r.id.date";
+            case VETERINARIAN -> "r.id.veterinarianId, u.firstName, u.lastName";
+            case TREATMENT -> "r.id.treatmentId, t.name";
+            case STATUS -> "r.id.status";
+        };
+    }
+
+    private static String groupJoins(RollupGroupBy groupBy) {
+        return switch (groupBy) {
+            case VETERINARIAN -> " JOIN Veterinarian v ON v.id = r.id.veterinarianId JOIN v.user u";
+            case TREATMENT -> " JOIN MedicalTreatment t ON t.id = r.id.treatmentId";
+            default -> "";
+        };
+    }
+
+    private static String groupOrder(RollupGroupBy groupBy) {
+        return switch (groupBy) {
+            case DAY -> "r.id.date";
+            case VETERINARIAN -> "r.id.veterinarianId";
+            case TREATMENT -> "r.id.treatmentId";
+            case STATUS -> "r.id.status";
+        };
+    }
+
+    private static void bindKey(PreparedStatement statement, LocalDate date, Long veterinarianId, Long treatmentId,
+                                String status) throws SQLException {
+        statement.setDate(1, Date.valueOf(date));
+        statement.setLong(2, veterinarianId);
+        statement.setLong(3, treatmentId);
+        statement.setString(4, status);
+    }
+
+    private static void lockDay(Connection connection, LocalDate day, String lockFunction) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT " + lockFunction + "(?, ?)")) {
+            statement.setInt(1, DAY_LOCK_SPACE);
+            statement.setInt(2, (int) day.toEpochDay());
+            statement.execute();
+        }
+    }
+
+    private boolean isPostgres(Connection connection) throws SQLException {
+        Boolean result = postgres;
+        if (result == null) {
+            result = connection.getMetaData().getDatabaseProductName().equalsIgnoreCase("PostgreSQL");
+            postgres = result;
+        }
+        return result;
+    }
+
+    // ============================================================
+    // DELTAS: cambios acumulados de una transacción, agrupados por fila
+    // ============================================================
+
+    public static final class Deltas {
+        private final Map<RevenueRollupKey, RevenueDelta> revenue = new TreeMap<>();
+        private final Map<WorkloadRollupKey, WorkloadDelta> workload = new TreeMap<>();
+
+        public void addRevenue(RevenueRollupKey key, long count, BigDecimal amount) {
+            RevenueDelta delta = revenue.computeIfAbsent(key, k -> new RevenueDelta());
+            delta.count += count;
+            delta.amount = delta.amount.add(amount);
+        }
+
+        public void addWorkload(WorkloadRollupKey key, long count, long minutes) {
+            WorkloadDelta delta = workload.computeIfAbsent(key, k -> new WorkloadDelta());
+            delta.count += count;
+            delta.minutes += minutes;
+        }
+
+        public boolean isEmpty() {
+            return revenue.isEmpty() && workload.isEmpty();
+        }
+
+        private Set<LocalDate> days() {
+            Set<LocalDate> days = new TreeSet<>();
+            revenue.keySet().forEach(key -> days.add(key.date()));
+            workload.keySet().forEach(key -> days.add(key.date()));
+            return days;
+        }
+    }
+
+    private static final class RevenueDelta {
+        private long count;
+        private BigDecimal amount = BigDecimal.ZERO;
+    }
+
+    private static final class WorkloadDelta {
+        private long count;
+        private long minutes;
+    }
+}
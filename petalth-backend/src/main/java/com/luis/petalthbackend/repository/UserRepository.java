@@ -1,8 +1,15 @@
 package com.luis.petalthbackend.repository;
 
 import com.luis.petalthbackend.entity.User;
+import com.luis.petalthbackend.security.jwt.UserTokenVersion;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -10,4 +17,19 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
 
     boolean existsByEmail(String email);
+
+    // Emails de la lista que ya están registrados (una sola consulta por bloque de importación)
+    @Query("SELECT u.email FROM User u WHERE u.email IN :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    // Sustituye el hash de la contraseña (actualización a un algoritmo o coste más fuerte tras el login)
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.password = :password WHERE u.id = :id")
+    void updatePassword(@Param("id") Long id, @Param("password") String password);
+
+    // Solo los usuarios cuya versión ha cambiado alguna vez (tokens antiguos revocados)
+    @Query("SELECT new com.luis.petalthbackend.security.jwt.UserTokenVersion(u.id, u.tokenVersion) " +
+            "FROM User u WHERE u.tokenVersion > 0")
+    List<UserTokenVersion> findRevokedTokenVersions();
 }
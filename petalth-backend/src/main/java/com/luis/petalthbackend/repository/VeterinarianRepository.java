@@ -1,7 +1,54 @@
 package com.luis.petalthbackend.repository;
 
+import com.luis.petalthbackend.dto.response.VeterinarianDTO;
 import com.luis.petalthbackend.entity.Veterinarian;
+import com.luis.petalthbackend.importer.EmailKey;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface VeterinarianRepository extends JpaRepository<Veterinarian, Long> {
-}
+
+    // Paginación por cursor sobre la PK. Proyección al DTO con JOIN para no cargar cada User por separado
+    @Query("SELECT new com.luis.petalthbackend.dto.response.VeterinarianDTO(" +
+            "v.id, CONCAT(u.firstName, ' ', u.lastName), v.speciality, u.active) " +
+            "FROM Veterinarian v JOIN v.user u WHERE v.id > :afterId ORDER BY v.id")
+    List<VeterinarianDTO> findPageAfter(@Param("afterId") Long afterId, Limit limit);
+
+    @Query("SELECT new com.luis.petalthbackend.dto.response.VeterinarianDTO(" +
+            "v.id, CONCAT(u.firstName, ' ', u.lastName), v.speciality, u.active) " +
+            "FROM Veterinarian v JOIN v.user u WHERE v.id > :afterId AND u.active = :active ORDER BY v.id")
+    List<VeterinarianDTO> findPageAfterByActive(@Param("afterId") Long afterId, @Param("active") boolean active,
+                                                Limit limit);
+
+    @Query("SELECT new com.luis.petalthbackend.dto.response.VeterinarianDTO(" +
+            "v.id, CONCAT(u.firstName, ' ', u.lastName), v.speciality, u.active) " +
+            "FROM Veterinarian v JOIN v.user u ORDER BY v.id")
+    List<VeterinarianDTO> findAllAsDTO();
+
+    @Query("SELECT new com.luis.petalthbackend.dto.response.VeterinarianDTO(" +
+            "v.id, CONCAT(u.firstName, ' ', u.lastName), v.speciality, u.active) " +
+            "FROM Veterinarian v JOIN v.user u WHERE u.active = true ORDER BY v.id")
+    List<VeterinarianDTO> findAllActiveAsDTO();
+
+    // Ids de los veterinarios con esos emails (importación de citas)
+    @Query("SELECT new com.luis.petalthbackend.importer.EmailKey(u.email, v.id) " +
+            "FROM Veterinarian v JOIN v.user u WHERE u.email IN :emails")
+    List<EmailKey> findKeysByEmails(@Param("emails") Collection<String> emails);
+
+    @Query("SELECT v.id FROM Veterinarian v JOIN v.user u WHERE u.email = :email")
+    Optional<Long> findIdByUserEmail(@Param("email") String email);
+
+    // SELECT ... FOR UPDATE sobre la fila del veterinario: serializa las reservas del mismo veterinario
+    // (también entre varias instancias del backend) mientras comprobamos solapes e insertamos la cita.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT v FROM Veterinarian v WHERE v.id = :id")
+    Optional<Veterinarian> findByIdForUpdate(@Param("id") Long id);
+}
\ No newline at end of file
@@ -0,0 +1,15 @@
+package com.luis.petalthbackend.schedule;
+
+import java.time.LocalDateTime;
+
+// Cita pendiente tal y como la necesita el índice de agenda: veterinario, inicio y duración del tratamiento
+public record ScheduledInterval(
+        Long appointmentId,
+        Long veterinarianId,
+        LocalDateTime start,
+        Integer durationMinutes
+) {
+    public TimeInterval toInterval(int defaultDurationMinutes) {
+        return TimeInterval.of(start, durationMinutes != null ? durationMinutes : defaultDurationMinutes);
+    }
+}
@@ -0,0 +1,5 @@
+package com.luis.petalthbackend.schedule;
+
+import java.time.LocalDateTime;
+
+public record SlotCandidate(Long veterinarianId, LocalDateTime start) {}
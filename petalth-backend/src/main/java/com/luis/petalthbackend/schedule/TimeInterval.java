@@ -0,0 +1,15 @@
+package com.luis.petalthbackend.schedule;
+
+import java.time.LocalDateTime;
+
+// Intervalo semiabierto [start, end): una cita que acaba a las 10:00 no se solapa con otra que empieza a las 10:00
+public record TimeInterval(LocalDateTime start, LocalDateTime end) {
+
+    public static TimeInterval of(LocalDateTime start, int durationMinutes) {
+        return new TimeInterval(start, start.plusMinutes(durationMinutes));
+    }
+
+    public boolean overlaps(TimeInterval other) {
+        return start.isBefore(other.end) && other.start.isBefore(end);
+    }
+}
@@ -0,0 +1,62 @@
+package com.luis.petalthbackend.schedule;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+// Índice de intervalos ocupados de UN veterinario, ordenado por hora de inicio.
+// Como conocemos la duración máxima de los intervalos guardados, para saber si un hueco [s, e) está libre
+// basta con mirar los que empiezan en [s - duraciónMáxima, e): O(log n + k) en lugar de recorrer toda la agenda.
+// No es thread-safe: VetScheduleRegistry lo protege con un lock por veterinario.
+public class VetSchedule {
+
+    private final NavigableMap<LocalDateTime, List<TimeInterval>> byStart = new TreeMap<>();
+    private long maxDurationMinutes;
+
+    public void add(TimeInterval interval) {
+        byStart.computeIfAbsent(interval.start(), k -> new ArrayList<>(1)).add(interval);
+        maxDurationMinutes = Math.max(maxDurationMinutes,
+                Duration.between(interval.start(), interval.end()).toMinutes());
+    }
+
+    // La duración máxima no se reduce al borrar: solo hace la búsqueda algo más conservadora
+    public boolean remove(TimeInterval interval) {
+        List<TimeInterval> sameStart = byStart.get(interval.start());
+        if (sameStart == null || !sameStart.remove(interval)) {
+            return false;
+        }
+        if (sameStart.isEmpty()) {
+            byStart.remove(interval.start());
+        }
+        return true;
+    }
+
+    public boolean contains(TimeInterval interval) {
+        List<TimeInterval> sameStart = byStart.get(interval.start());
+        return sameStart != null && sameStart.contains(interval);
+    }
+
+    public void addAll(Collection<TimeInterval> intervals) {
+        intervals.forEach(this::add);
+    }
+
+    public boolean overlaps(TimeInterval candidate) {
+        LocalDateTime lowerBound = candidate.start().minusMinutes(maxDurationMinutes);
+        for (List<TimeInterval> sameStart : byStart.subMap(lowerBound, true, candidate.end(), false).values()) {
+            for (TimeInterval busy : sameStart) {
+                if (busy.overlaps(candidate)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public boolean isEmpty() {
+        return byStart.isEmpty();
+    }
+}
@@ -0,0 +1,266 @@
+package com.luis.petalthbackend.schedule;
+
+import com.luis.petalthbackend.entity.AppointmentStatus;
+import com.luis.petalthbackend.event.AppointmentChangedEvent;
+import com.luis.petalthbackend.repository.AppointmentRepository;
+import com.luis.petalthbackend.repository.MedicalTreatmentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Agendas en memoria de todos los veterinarios (solo citas PENDING futuras).
+// Se reconstruye al arrancar desde la BDD y se mantiene con los AppointmentChangedEvent ya confirmados,
+// así las consultas de disponibilidad no tocan la BDD. La BDD sigue siendo la fuente de verdad al reservar.
+@Component
+public class VetScheduleRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(VetScheduleRegistry.class);
+
+    // Hasta dónde buscamos el siguiente hueco libre
+    public static final int SEARCH_HORIZON_DAYS = 90;
+
+    private final AppointmentRepository appointmentRepository;
+    private final MedicalTreatmentRepository medicalTreatmentRepository;
+    private final WorkingHours workingHours;
+
+    private volatile Map<Long, LockedSchedule> schedules = new ConcurrentHashMap<>();
+
+    // Mientras se lee la BDD para reconstruir siguen llegando cambios: se aplican a las agendas actuales y se
+    // guardan para repetirlos sobre las nuevas antes de sustituirlas (si no, el índice nuevo los perdería).
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private int rebuildsInProgress;
+    private List<AppointmentChangedEvent> changesDuringRebuild;
+
+    public VetScheduleRegistry(AppointmentRepository appointmentRepository,
+                               MedicalTreatmentRepository medicalTreatmentRepository,
+                               WorkingHours workingHours) {
+        this.appointmentRepository = appointmentRepository;
+        this.medicalTreatmentRepository = medicalTreatmentRepository;
+        this.workingHours = workingHours;
+    }
+
+    // También la usa la resincronización entre nodos (LocalCacheInvalidator), con peticiones en curso
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildFromDatabase() {
+        beginRebuild();
+        Map<Long, LockedSchedule> rebuilt = null;
+        try {
+            int maxDuration = medicalTreatmentRepository.findMaxDurationMinutes();
+            List<ScheduledInterval> pending = appointmentRepository.findScheduleFrom(
+                    AppointmentStatus.PENDING, LocalDateTime.now().minusMinutes(maxDuration));
+            rebuilt = build(pending);
+            log.info("Agendas reconstruidas: {} citas pendientes de {} veterinarios", pending.size(), rebuilt.size());
+        } finally {
+            // Si la lectura falla nos quedamos con las agendas actuales, que sí tienen los cambios
+            finishRebuild(rebuilt);
+        }
+    }
+
+    // Sustituye todas las agendas de golpe (los lectores nunca ven un índice a medio construir)
+    public void rebuild(Collection<ScheduledInterval> pending) {
+        Map<Long, LockedSchedule> rebuilt = build(pending);
+        rebuildLock.lock();
+        try {
+            swap(rebuilt);
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private Map<Long, LockedSchedule> build(Collection<ScheduledInterval> pending) {
+        Map<Long, LockedSchedule> rebuilt = new ConcurrentHashMap<>();
+        for (ScheduledInterval interval : pending) {
+            rebuilt.computeIfAbsent(interval.veterinarianId(), id -> new LockedSchedule())
+                    .schedule.add(interval.toInterval(defaultDuration()));
+        }
+        return rebuilt;
+    }
+
+    private void beginRebuild() {
+        rebuildLock.lock();
+        try {
+            if (rebuildsInProgress++ == 0) {
+                changesDuringRebuild = new ArrayList<>();
+            }
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private void finishRebuild(Map<Long, LockedSchedule> rebuilt) {
+        rebuildLock.lock();
+        try {
+            if (rebuilt != null) {
+                swap(rebuilt);
+            }
+            // Con dos reconstrucciones a la vez la lista sigue viva hasta que acaba la última
+            if (--rebuildsInProgress == 0) {
+                changesDuringRebuild = null;
+            }
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    // Con rebuildLock. La lectura de la BDD puede haber visto ya alguno de los cambios guardados:
+    // al repetirlos no se duplica una cita que ya está en la agenda.
+    private void swap(Map<Long, LockedSchedule> rebuilt) {
+        if (changesDuringRebuild != null) {
+            changesDuringRebuild.forEach(event -> apply(rebuilt, event, true));
+        }
+        this.schedules = rebuilt;
+    }
+
+    // Solo tras el commit: si la transacción hace rollback la agenda en memoria no cambia
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        if (event.veterinarianId() == null || event.dateTime() == null) {
+            return;
+        }
+        rebuildLock.lock();
+        try {
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.add(event);
+            }
+            apply(schedules, event, false);
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private void apply(Map<Long, LockedSchedule> target, AppointmentChangedEvent event, boolean replay) {
+        TimeInterval interval = TimeInterval.of(event.dateTime(),
+                event.durationMinutes() != null ? event.durationMinutes() : defaultDuration());
+        boolean wasPending = event.previousStatus() == AppointmentStatus.PENDING;
+        boolean isPending = event.newStatus() == AppointmentStatus.PENDING;
+
+        if (isPending && !wasPending) {
+            write(target, event.veterinarianId(), schedule -> {
+                if (!replay || !schedule.contains(interval)) {
+                    schedule.add(interval);
+                }
+            });
+        } else if (wasPending && !isPending) {
+            write(target, event.veterinarianId(), schedule -> schedule.remove(interval));
+        }
+    }
+
+    public boolean isFree(Long vetId, TimeInterval slot) {
+        LockedSchedule locked = schedules.get(vetId);
+        if (locked == null) {
+            return true;
+        }
+        locked.lock.readLock().lock();
+        try {
+            return !locked.schedule.overlaps(slot);
+        } finally {
+            locked.lock.readLock().unlock();
+        }
+    }
+
+    // Huecos libres de un veterinario entre dos fechas (incluidas) posteriores a 'notBefore'
+    public List<LocalDateTime> freeSlots(Long vetId, LocalDate from, LocalDate to, int duration,
+                                         LocalDateTime notBefore) {
+        List<LocalDateTime> slots = new ArrayList<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            for (LocalDateTime start : workingHours.slotStarts(day, duration)) {
+                if (start.isAfter(notBefore) && isFree(vetId, TimeInterval.of(start, duration))) {
+                    slots.add(start);
+                }
+            }
+        }
+        return slots;
+    }
+
+    // Los k huecos más tempranos entre varios veterinarios: mezcla (k-way merge) de los huecos de cada uno,
+    // que se generan de forma perezosa. Solo se exploran los huecos necesarios para llegar a k.
+    public List<SlotCandidate> earliestSlots(Collection<Long> vetIds, int duration, LocalDateTime from, int k) {
+        PriorityQueue<SlotCursor> queue = new PriorityQueue<>(
+                Comparator.comparing((SlotCursor c) -> c.current).thenComparing(c -> c.vetId));
+        for (Long vetId : vetIds) {
+            SlotCursor cursor = new SlotCursor(vetId, duration, from);
+            if (cursor.advance()) {
+                queue.add(cursor);
+            }
+        }
+
+        List<SlotCandidate> result = new ArrayList<>(k);
+        while (result.size() < k && !queue.isEmpty()) {
+            SlotCursor cursor = queue.poll();
+            result.add(new SlotCandidate(cursor.vetId, cursor.current));
+            if (cursor.advance()) {
+                queue.add(cursor);
+            }
+        }
+        return result;
+    }
+
+    private void write(Map<Long, LockedSchedule> target, Long vetId,
+                       java.util.function.Consumer<VetSchedule> change) {
+        LockedSchedule locked = target.computeIfAbsent(vetId, id -> new LockedSchedule());
+        locked.lock.writeLock().lock();
+        try {
+            change.accept(locked.schedule);
+        } finally {
+            locked.lock.writeLock().unlock();
+        }
+    }
+
+    private int defaultDuration() {
+        return (int) workingHours.slotStep().toMinutes();
+    }
+
+    // Usamos ReadWriteLock en lugar de synchronized: muchas lecturas concurrentes y no bloquea
+    // el hilo portador cuando se ejecuta en hilos virtuales.
+    private static final class LockedSchedule {
+        private final VetSchedule schedule = new VetSchedule();
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    }
+
+    // Recorre los huecos libres de un veterinario en orden cronológico
+    private final class SlotCursor {
+        private final Long vetId;
+        private final int duration;
+        private final LocalDateTime from;
+        private final LocalDate lastDay;
+        private LocalDate day;
+        private Iterator<LocalDateTime> dayStarts = Collections.emptyIterator();
+        private LocalDateTime current;
+
+        private SlotCursor(Long vetId, int duration, LocalDateTime from) {
+            this.vetId = vetId;
+            this.duration = duration;
+            this.from = from;
+            this.day = from.toLocalDate();
+            this.lastDay = day.plusDays(SEARCH_HORIZON_DAYS);
+        }
+
+        private boolean advance() {
+            while (true) {
+                while (dayStarts.hasNext()) {
+                    LocalDateTime start = dayStarts.next();
+                    if (!start.isBefore(from) && isFree(vetId, TimeInterval.of(start, duration))) {
+                        current = start;
+                        return true;
+                    }
+                }
+                if (day.isAfter(lastDay)) {
+                    return false;
+                }
+                dayStarts = workingHours.slotStarts(day, duration).iterator();
+                day = day.plusDays(1);
+            }
+        }
+    }
+}
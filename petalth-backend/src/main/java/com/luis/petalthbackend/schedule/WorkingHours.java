@@ -0,0 +1,40 @@
+package com.luis.petalthbackend.schedule;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+// Horario de la clínica: días laborables, apertura/cierre y cada cuánto empieza un hueco reservable
+public record WorkingHours(
+        LocalTime opening,
+        LocalTime closing,
+        Duration slotStep,
+        Set<DayOfWeek> workingDays
+) {
+
+    // Inicios posibles de una cita de la duración indicada ese día (la cita debe acabar antes del cierre)
+    public List<LocalDateTime> slotStarts(LocalDate day, int durationMinutes) {
+        List<LocalDateTime> starts = new ArrayList<>();
+        if (!workingDays.contains(day.getDayOfWeek())) {
+            return starts;
+        }
+        LocalDateTime closingTime = day.atTime(closing);
+        for (LocalDateTime t = day.atTime(opening); !t.plusMinutes(durationMinutes).isAfter(closingTime);
+             t = t.plus(slotStep)) {
+            starts.add(t);
+        }
+        return starts;
+    }
+
+    public boolean contains(TimeInterval interval) {
+        LocalDate day = interval.start().toLocalDate();
+        return workingDays.contains(day.getDayOfWeek())
+                && !interval.start().isBefore(day.atTime(opening))
+                && !interval.end().isAfter(day.atTime(closing));
+    }
+}
@@ -0,0 +1,18 @@
+package com.luis.petalthbackend.security;
+
+import com.luis.petalthbackend.entity.Rol;
+import com.luis.petalthbackend.entity.User;
+
+// Foto inmutable de los datos del usuario que necesita Spring Security.
+// No cacheamos el UserDetails directamente porque Spring borra la contraseña tras el login
+// (eraseCredentials) y dejaría la entrada de la caché inservible.
+public record CachedPrincipal(
+        String email,
+        String password,
+        boolean active,
+        Rol rol
+) {
+    public static CachedPrincipal from(User user) {
+        return new CachedPrincipal(user.getEmail(), user.getPassword(), user.isActive(), user.getRol());
+    }
+}
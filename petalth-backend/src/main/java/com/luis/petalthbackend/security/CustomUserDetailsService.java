@@ -15,29 +15,37 @@ import java.util.List;
 public class CustomUserDetailsService implements UserDetailsService {
 
     private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
 
-    public CustomUserDetailsService(UserRepository userRepository) {
+    public CustomUserDetailsService(UserRepository userRepository, PrincipalCache principalCache) {
         this.userRepository = userRepository;
+        this.principalCache = principalCache;
     }
 
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        // 1. Buscamos el usuario en nuestra DB.
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        // 1. Buscamos el usuario en la caché y, si no está, en nuestra DB.
+        CachedPrincipal user = principalCache.get(email, this::loadFromDatabase);
 
         // 2. Convertimos nuestro user a un UserDetails que Spring Security entienda
+        // (Creamos uno nuevo cada vez, ya que Spring puede modificarlo al borrar las credenciales)
         return org.springframework.security.core.userdetails.User.builder()
-                .username(user.getEmail())
-                .password(user.getPassword())
-                .disabled(!user.isActive())
+                .username(user.email())
+                .password(user.password())
+                .disabled(!user.active())
                 .accountExpired(false)
                 .accountLocked(false)
                 .credentialsExpired(false)
                 // SimpleGrantedAuthority dice qué permisos tiene el usuario p.j. ROLE_ADMIN
-                .authorities(List.of(new SimpleGrantedAuthority("ROLE_" + user.getRol().toString())))
+                .authorities(List.of(new SimpleGrantedAuthority("ROLE_" + user.rol().toString())))
                 .build();
     }
 
+    private CachedPrincipal loadFromDatabase(String email) {
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        return CachedPrincipal.from(user);
+    }
+
 
 }
@@ -0,0 +1,72 @@
+package com.luis.petalthbackend.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Limita los intentos de login por ventana de tiempo, antes de gastar un BCrypt en ellos:
+//  - por email: fallos seguidos (fuerza bruta contra una cuenta). Un login correcto pone el contador a cero.
+//  - por IP: fallos (un mismo cliente probando muchas cuentas). Solo fallos: detrás de un proxy o de la NAT de una
+//    clínica muchos usuarios comparten IP, y sus logins correctos no deben acabar en 429.
+// Ventana fija desde el primer intento; las entradas caducan solas y la caché está acotada en tamaño.
+@Component
+public class LoginThrottle {
+
+    private final Cache<String, AtomicInteger> failuresByEmail;
+    private final Cache<String, AtomicInteger> failuresByIp;
+    private final int maxFailuresPerEmail;
+    private final int maxFailuresPerIp;
+    private final MeterRegistry meterRegistry;
+
+    public LoginThrottle(@Value("${security.login.max-failures-per-email:5}") int maxFailuresPerEmail,
+                         @Value("${security.login.max-failures-per-ip:50}") int maxFailuresPerIp,
+                         @Value("${security.login.window:15m}") Duration window,
+                         MeterRegistry meterRegistry) {
+        this.failuresByEmail = Caffeine.newBuilder().maximumSize(100_000).expireAfterWrite(window).build();
+        this.failuresByIp = Caffeine.newBuilder().maximumSize(100_000).expireAfterWrite(window).build();
+        this.maxFailuresPerEmail = maxFailuresPerEmail;
+        this.maxFailuresPerIp = maxFailuresPerIp;
+        this.meterRegistry = meterRegistry;
+    }
+
+    // Rechaza con 429 si la cuenta o la IP han superado su límite de fallos
+    public void checkAttempt(String email, String ip) {
+        if (exceeded(failuresByIp, ip, maxFailuresPerIp)) {
+            reject("ip");
+        }
+        if (exceeded(failuresByEmail, normalize(email), maxFailuresPerEmail)) {
+            reject("email");
+        }
+    }
+
+    public void loginFailed(String email, String ip) {
+        failuresByEmail.get(normalize(email), key -> new AtomicInteger()).incrementAndGet();
+        failuresByIp.get(ip, key -> new AtomicInteger()).incrementAndGet();
+    }
+
+    public void loginSucceeded(String email) {
+        failuresByEmail.invalidate(normalize(email));
+    }
+
+    private static boolean exceeded(Cache<String, AtomicInteger> failures, String key, int max) {
+        AtomicInteger count = failures.getIfPresent(key);
+        return count != null && count.get() >= max;
+    }
+
+    private void reject(String reason) {
+        meterRegistry.counter("auth.login.throttled", "reason", reason).increment();
+        throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS,
+                "Demasiados intentos de acceso, inténtalo más tarde");
+    }
+
+    private static String normalize(String email) {
+        return email == null ? "" : email.trim().toLowerCase();
+    }
+}
@@ -0,0 +1,89 @@
+package com.luis.petalthbackend.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.luis.petalthbackend.dto.response.PrincipalCacheStatsDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+// Caché de principals por email para que el filtro JWT no haga un SELECT en cada petición.
+// Acotada en tamaño y con TTL: aunque se nos olvidara invalidar, un cambio acaba viéndose como mucho tras el TTL.
+@Component
+public class PrincipalCache {
+
+    private final Cache<String, CachedPrincipal> cache;
+    // Sube con cada invalidación: una carga que empezó antes no puede guardar lo que leyó
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public PrincipalCache(@Value("${security.principal-cache.max-size:10000}") long maxSize,
+                          @Value("${security.principal-cache.ttl:5m}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats() // Contadores de hits/misses para poder dimensionar la caché
+                .build();
+    }
+
+    // Si no está en caché se carga con el loader y se guarda.
+    // No usamos cache.get(email, loader): el loader (un SELECT) se ejecutaría dentro del compute() del mapa,
+    // que usa synchronized y, con hilos virtuales en Java 21, fija el hilo portador durante toda la consulta.
+    // A cambio, dos peticiones simultáneas del mismo usuario sin cachear pueden hacer la consulta las dos.
+    // Si durante la carga se invalida (p.j. se desactiva al usuario), lo leído puede ser ya antiguo: se devuelve
+    // a esta petición, pero no se guarda. El compute() final solo compara y guarda, no consulta nada.
+    public CachedPrincipal get(String email, Function<String, CachedPrincipal> loader) {
+        CachedPrincipal cached = cache.getIfPresent(email);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = invalidations.get();
+        CachedPrincipal loaded = loader.apply(email);
+        cache.asMap().compute(email, (key, current) -> invalidations.get() == generation ? loaded : current);
+        return loaded;
+    }
+
+    // Se llama cuando cambian los datos del usuario (p.j. activar/desactivar) para que el cambio sea inmediato
+    public void invalidate(String email) {
+        // Primero la generación: una carga que guarde después de esto ya no coincide, y una que guardó
+        // antes queda borrada por el invalidate
+        invalidations.incrementAndGet();
+        cache.invalidate(email);
+    }
+
+    // Dentro de una transacción esperamos al commit: si invalidamos antes, otra petición podría volver
+    // a cachear la fila antigua justo antes de que se confirme el cambio.
+    public void invalidateAfterCommit(String email) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate(email);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidate(email);
+            }
+        });
+    }
+
+    public void invalidateAll() {
+        invalidations.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    public PrincipalCacheStatsDTO stats() {
+        CacheStats stats = cache.stats();
+        return new PrincipalCacheStatsDTO(
+                stats.hitCount(),
+                stats.missCount(),
+                stats.hitRate(),
+                stats.evictionCount(),
+                cache.estimatedSize()
+        );
+    }
+}
@@ -1,7 +1,13 @@
 package com.luis.petalthbackend.security.config;
 
+import com.luis.petalthbackend.security.hashing.BCryptCalibrator;
+import com.luis.petalthbackend.security.hashing.PasswordEncoders;
 import com.luis.petalthbackend.security.jwt.JwtAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -10,7 +16,6 @@ import org.springframework.security.config.annotation.authentication.configurati
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -18,6 +23,7 @@ import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import java.time.Duration;
 import java.util.List;
 
 @Configuration
@@ -25,6 +31,8 @@ import java.util.List;
 //Define la configuración global de seguridad y las reglas de acceso a las rutas.
 public class SecurityConfig {
 
+    private static final Logger log = LoggerFactory.getLogger(SecurityConfig.class);
+
     private final JwtAuthenticationFilter jwtAuthFilter;
 
     // Definir el SecurityFilterChain
@@ -38,15 +46,26 @@ public class SecurityConfig {
                 .csrf(csrf -> csrf.disable())
                 // Permitimos el acceso a TODAS las rutas sin autenticación
                 .authorizeHttpRequests(auth -> auth
+                        // Los dispatch ASYNC (respuestas en streaming/asíncronas) y ERROR (página /error con el
+                        // código de un ResponseStatusException) pertenecen a una petición ya autorizada. Sin esto,
+                        // un 401/404/409/429 llegaba al cliente como 403 al re-autorizar /error sin el JWT.
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll()
                         .requestMatchers(
                                 "/auth/**",
                                 "/v3/api-docs/**",
                                 "/swagger-ui/**",
                                 "/swagger-ui.html").permitAll() // 2. Permitir rutas públicas
                         .requestMatchers("/api/pets/**").hasRole("OWNER")
-                        .requestMatchers(HttpMethod.GET, "/api/veterinarians").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/api/veterinarians", "/api/veterinarians/page").permitAll()
                         .requestMatchers("/api/invoices/**").hasRole("ADMIN")
+                        .requestMatchers("/api/appointments/export").hasRole("ADMIN")
+                        .requestMatchers("/api/appointments/my-agenda/stream").hasRole("VET")
+                        .requestMatchers(HttpMethod.POST, "/api/appointments").hasRole("OWNER")
                         .requestMatchers("/api/users/**").hasRole("ADMIN")
+                        .requestMatchers("/api/import/**").hasRole("ADMIN")
+                        .requestMatchers("/api/dashboard/**").hasRole("ADMIN")
+                        .requestMatchers("/actuator/health").permitAll()
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         .anyRequest().authenticated() // 3. Proteger todas las demás rutas
                 )
                 .sessionManagement(session -> session
@@ -62,10 +81,19 @@ public class SecurityConfig {
         return config.getAuthenticationManager();
     }
 
-    // Definir el PasswordEncoder
+    // Definir el PasswordEncoder: algoritmo y coste configurables. Con 'calibration-target' el coste de BCrypt se
+    // elige al arrancar para que una verificación tarde como mucho ese tiempo en esta máquina.
+    // Los hashes con un coste menor se actualizan solos en el siguiente login (AuthService).
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${security.password.encoder:bcrypt}") String encoder,
+                                           @Value("${security.password.bcrypt-strength:10}") int bcryptStrength,
+                                           @Value("${security.password.calibration-target:}") Duration calibrationTarget) {
+        int strength = bcryptStrength;
+        if (calibrationTarget != null) {
+            strength = BCryptCalibrator.calibrate(calibrationTarget);
+            log.info("Coste de BCrypt calibrado: {} (objetivo {} por verificación)", strength, calibrationTarget);
+        }
+        return PasswordEncoders.create(encoder, strength);
     }
 
     // Configuración CORS de a quién permitimos entrar
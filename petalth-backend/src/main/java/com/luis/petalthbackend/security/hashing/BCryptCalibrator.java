@@ -0,0 +1,45 @@
+package com.luis.petalthbackend.security.hashing;
+
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+// Elige el coste de BCrypt en función del hardware: el mayor coste cuya verificación tarda como mucho 'target'.
+// Cada punto de coste duplica el tiempo, así que basta con medir de menor a mayor hasta pasarnos.
+public final class BCryptCalibrator {
+
+    // Por debajo de 10 BCrypt deja de ser razonable aunque la máquina sea lenta
+    public static final int MIN_STRENGTH = 10;
+    public static final int MAX_STRENGTH = 16;
+
+    private static final int SAMPLES = 3;
+
+    private BCryptCalibrator() {
+    }
+
+    public static int calibrate(Duration target) {
+        String password = "calibration-password";
+        int chosen = MIN_STRENGTH;
+        for (int strength = MIN_STRENGTH; strength <= MAX_STRENGTH; strength++) {
+            Duration elapsed = measure(password, BCrypt.hashpw(password, BCrypt.gensalt(strength)));
+            if (elapsed.compareTo(target) > 0) {
+                break;
+            }
+            chosen = strength;
+        }
+        return chosen;
+    }
+
+    // Mediana de varias verificaciones (lo que cuesta un login con ese coste)
+    public static Duration measure(String password, String hash) {
+        long[] samples = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            BCrypt.checkpw(password, hash);
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return Duration.ofNanos(samples[SAMPLES / 2]);
+    }
+}
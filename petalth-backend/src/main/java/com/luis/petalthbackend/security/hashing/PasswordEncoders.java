@@ -0,0 +1,35 @@
+package com.luis.petalthbackend.security.hashing;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+import java.util.Map;
+
+// Encoder con prefijo de algoritmo ({bcrypt}$2a$12$..., {pbkdf2}...). Los hashes nuevos usan 'idForEncode'
+// y los existentes se siguen verificando con el algoritmo que indique su prefijo. Los hashes sin prefijo
+// (los de data.sql y los usuarios antiguos) se tratan como BCrypt.
+public final class PasswordEncoders {
+
+    public static final String BCRYPT = "bcrypt";
+    public static final String PBKDF2 = "pbkdf2";
+
+    private PasswordEncoders() {
+    }
+
+    public static PasswordEncoder create(String idForEncode, int bcryptStrength) {
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(bcryptStrength);
+        Map<String, PasswordEncoder> encoders = Map.of(
+                BCRYPT, bcrypt,
+                PBKDF2, Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_8()
+        );
+        if (!encoders.containsKey(idForEncode)) {
+            throw new IllegalArgumentException("Algoritmo de contraseñas no soportado: " + idForEncode
+                    + " (disponibles: " + encoders.keySet() + ")");
+        }
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder(idForEncode, encoders);
+        delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+        return delegating;
+    }
+}
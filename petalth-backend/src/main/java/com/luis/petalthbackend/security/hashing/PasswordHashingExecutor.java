@@ -0,0 +1,69 @@
+package com.luis.petalthbackend.security.hashing;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+// Pool dedicado para BCrypt (login y registro). BCrypt es CPU pura: con más hilos que núcleos no se hashea más
+// rápido, solo se quita CPU al resto de endpoints. Los hilos de Tomcat ya no hashean: entregan la tarea aquí y
+// quedan libres (los controladores devuelven CompletableFuture).
+// La cola está acotada: si se llena respondemos 429 al momento en lugar de acumular logins que luego
+// llegarían tarde igualmente.
+@Component
+public class PasswordHashingExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final MeterRegistry meterRegistry;
+    private final Counter rejected;
+
+    public PasswordHashingExecutor(@Value("${security.hashing.threads:0}") int threads,
+                                   @Value("${security.hashing.queue-capacity:200}") int queueCapacity,
+                                   MeterRegistry meterRegistry) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("password-hash-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.meterRegistry = meterRegistry;
+        this.rejected = Counter.builder("auth.hashing.rejected")
+                .description("Tareas de hash rechazadas por cola llena (429)")
+                .register(meterRegistry);
+        Gauge.builder("auth.hashing.queue.depth", executor, e -> e.getQueue().size())
+                .description("Tareas de hash esperando en cola")
+                .register(meterRegistry);
+        Gauge.builder("auth.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Hilos hasheando ahora mismo")
+                .register(meterRegistry);
+    }
+
+    // Ejecuta la tarea en el pool. 'operation' (login, register...) etiqueta el timer auth.hashing.duration,
+    // que mide desde que la tarea empieza (sin la espera en cola; esa se ve en auth.hashing.queue.depth).
+    public <T> CompletableFuture<T> submit(String operation, Supplier<T> task) {
+        Timer timer = Timer.builder("auth.hashing.duration")
+                .description("Duración de las tareas del pool de BCrypt")
+                .tag("operation", operation)
+                .register(meterRegistry);
+        try {
+            return CompletableFuture.supplyAsync(() -> timer.record(task), executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS,
+                    "Demasiadas peticiones de acceso, inténtalo en unos segundos");
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -1,12 +1,14 @@
 package com.luis.petalthbackend.security.jwt;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.NonNull;
-import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -15,13 +17,29 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
 
 // Intercepta todas las peticiones antes de que lleguen a los controllers
 @Component
-@RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final TokenRevocationRegistry tokenRevocationRegistry;
+
+    // auth.jwt.filter{phase}: cuánto cuesta cada fase del filtro en cada petición autenticada
+    private final Timer parseTimer;
+    private final Timer userLoadTimer;
+    private final Timer validateTimer;
+
+    public JwtAuthenticationFilter(JwtService jwtService, UserDetailsService userDetailsService,
+                                   TokenRevocationRegistry tokenRevocationRegistry, MeterRegistry meterRegistry) {
+        this.jwtService = jwtService;
+        this.userDetailsService = userDetailsService;
+        this.tokenRevocationRegistry = tokenRevocationRegistry;
+        this.parseTimer = phaseTimer(meterRegistry, "parse");
+        this.userLoadTimer = phaseTimer(meterRegistry, "user_load");
+        this.validateTimer = phaseTimer(meterRegistry, "validate");
+    }
 
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request,
@@ -43,16 +61,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         // 3. Extraer el token, quitando "Bearer " del principio
         final String token = authHeader.substring(7);
 
-        // 4. Extraer el email del token
-        final String userEmail = jwtService.extractEmail(token);
+        // 4. Parsear el token una sola vez (firma verificada) y extraer el email
+        final ValidatedToken validatedToken = parseTimer.record(() -> jwtService.parseToken(token));
+        final String userEmail = validatedToken.email();
 
         // 5. Si hay email y el usuario NO está autenticado... vamos a intentar validarlo
         if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            // 6. Cargar el usuario desde la BD
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
+            // 6. Cargar el usuario: desde los claims (modo self-contained) o desde la BD
+            UserDetails userDetails = userLoadTimer.record(() -> resolveUser(validatedToken, userEmail));
 
             // 7. Validar el token
-            if (jwtService.isTokenValid(token, userDetails)) {
+            if (userDetails != null && validateTimer.record(() -> jwtService.isTokenValid(validatedToken, userDetails))) {
                 // 8. Crear objeto de autenticación (Objeto de Java que actúa como Token para Spring Security)
                 // El token que es un String sirve para el frontend.
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
@@ -74,4 +93,29 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
 
     }
+
+    // En modo self-contained el principal sale de los claims ya verificados (cero I/O). Los tokens emitidos
+    // antes de activar el modo no llevan esos claims y siguen el camino de siempre.
+    private UserDetails resolveUser(ValidatedToken token, String userEmail) {
+        if (!jwtService.isSelfContained() || !token.hasAuthorizationClaims()) {
+            return this.userDetailsService.loadUserByUsername(userEmail);
+        }
+
+        // Cuenta desactivada después de emitir el token -> no autenticamos
+        if (tokenRevocationRegistry.isRevoked(token.userId(), token.accountVersion())) {
+            return null;
+        }
+
+        return org.springframework.security.core.userdetails.User.withUsername(userEmail)
+                .password("") // No necesitamos la contraseña, la firma del token ya nos garantiza la identidad
+                .authorities(List.of(new SimpleGrantedAuthority("ROLE_" + token.rol())))
+                .build();
+    }
+
+    private static Timer phaseTimer(MeterRegistry meterRegistry, String phase) {
+        return Timer.builder("auth.jwt.filter")
+                .description("Duración de cada fase del filtro JWT (parse, user_load, validate)")
+                .tag("phase", phase)
+                .register(meterRegistry);
+    }
 }
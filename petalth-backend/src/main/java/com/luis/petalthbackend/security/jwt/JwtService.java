@@ -1,8 +1,11 @@
 package com.luis.petalthbackend.security.jwt;
 
+import com.luis.petalthbackend.entity.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
@@ -16,6 +19,11 @@ import java.util.function.Function;
 @Service
 public class JwtService {
 
+    // Claims del modo self-contained: con ellos el filtro no necesita consultar la BDD
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_ROL = "rol";
+    public static final String CLAIM_ACCOUNT_VERSION = "ver";
+
     // Lee la clave secreta desde application-dev.properties
     @Value("${jwt.secret}")
     private String secret;
@@ -24,11 +32,46 @@ public class JwtService {
     @Value("${jwt.expiration}")
     private long expiration;
 
+    // Si está activo, el token lleva id, rol y versión de la cuenta y el filtro construye el principal
+    // solo a partir de los claims (sin I/O).
+    @Value("${jwt.self-contained:false}")
+    private boolean selfContained;
+
+    // La clave y el parser son inmutables y thread-safe: los construimos una sola vez al arrancar
+    // en lugar de recrearlos (HMAC key + builder) en cada petición.
+    private SecretKey signingKey;
+    private JwtParser parser;
+
+    /**
+     * Genera la clave de firma del token a partir del secret
+     * Todos los tokens se generan a partir de la misma firma aunque a la hora de la verdad el token también cambia
+     * FIRMA = HASH(header + payload + TU_CLAVE_SECRETA)
+     */
+    @PostConstruct
+    void init() {
+        // Convierte nuestra clave secreta en una clave criptográfica
+        this.signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        this.parser = Jwts.parser()
+                .verifyWith(signingKey)    // Verifica la firma
+                .build();
+    }
+
     // Genera un Token básico a partir del usuario
     public String generateToken(UserDetails userDetails) {
+        if (selfContained && userDetails instanceof User user) {
+            return generateToken(Map.of(
+                    CLAIM_USER_ID, user.getId(),
+                    CLAIM_ROL, user.getRol().name(),
+                    CLAIM_ACCOUNT_VERSION, user.getTokenVersion()
+            ), userDetails);
+        }
         return generateToken(Map.of(), userDetails);
     }
 
+    public boolean isSelfContained() {
+        return selfContained;
+    }
+
     // como extraClaims podríamos poner el rol o un nombre al token p.j.
     /*  Map<String, Object> datosExtra = Map.of(
         "rol", "ADMIN",
@@ -40,7 +83,7 @@ public class JwtService {
                 .subject(userDetails.getUsername()) // El email del usuario
                 .issuedAt(new Date()) // Fecha de creación
                 .expiration(new Date(System.currentTimeMillis() + expiration)) // Fecha de expiración del Token
-                .signWith(getSigningKey()) // Genera la firmal del JWT a partir de Headers, Claims o Payload y la clave 'secret'
+                .signWith(signingKey) // Genera la firmal del JWT a partir de Headers, Claims o Payload y la clave 'secret'
                 .compact();
 
     }
@@ -49,6 +92,14 @@ public class JwtService {
     // EXTRAER INFORMACIÓN DEL TOKEN
     // ============================================================
 
+    /**
+     * Parsea y verifica la firma del token UNA sola vez y devuelve subject, expiración y claims.
+     * Es el camino que usa el filtro en cada petición.
+     */
+    public ValidatedToken parseToken(String token) {
+        return new ValidatedToken(extractAllClaims(token));
+    }
+
     public String extractEmail(String token) {
         return extractClaim(token, claims -> claims.getSubject());
     }
@@ -69,9 +120,7 @@ public class JwtService {
      * Extrae todos los claims del token
      */
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())    // Verifica la firma
-                .build()
+        return parser
                 .parseSignedClaims(token)       // Parsea el token
                 .getPayload();                  // Obtiene el payload (claims)
     }
@@ -84,30 +133,15 @@ public class JwtService {
      * Valida si el token es correcto y no ha expirado
      */
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String email = extractEmail(token);
-        // getUsername nos devuelve el email.
-        return email.equals(userDetails.getUsername()) && !isTokenExpired(token);
-    }
-
-    /**
-     * Comprueba si el token ha expirado
-     */
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+        return isTokenValid(parseToken(token), userDetails);
     }
 
-    // ============================================================
-    // UTILIDADES
-    // ============================================================
-
     /**
-     * Genera la clave de firma del token a partir del secret
-     * Todos los tokens se generan a partir de la misma firma aunque a la hora de la verdad el token también cambia
-     * FIRMA = HASH(header + payload + TU_CLAVE_SECRETA)
+     * Igual que el anterior pero reutilizando un token ya parseado (sin volver a verificar la firma)
      */
-    private SecretKey getSigningKey() {
-        // Convierte nuestra clave secreta en una clave criptográfica
-        return Keys.hmacShaKeyFor(secret.getBytes());
+    public boolean isTokenValid(ValidatedToken token, UserDetails userDetails) {
+        // getUsername nos devuelve el email. Un usuario desactivado no se autentica aunque su token siga vigente.
+        return token.email().equals(userDetails.getUsername()) && userDetails.isEnabled() && !token.isExpired();
     }
 
 /*
@@ -128,10 +162,10 @@ PETICIÓN PROTEGIDA:
 Usuario envía Header:  "Bearer eyJhbG..."
         │
         ▼
-JwtService.extractEmail(token)  →  "luis@email.com"
+JwtService.parseToken(token)  →  ValidatedToken (email, expiración, claims)
         │
         ▼
-JwtService.isTokenValid(token, usuario)  →  true/false
+JwtService.isTokenValid(validatedToken, usuario)  →  true/false
         │
         ▼
 Si es válido → Deja pasar
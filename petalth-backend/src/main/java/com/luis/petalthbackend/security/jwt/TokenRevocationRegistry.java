@@ -0,0 +1,54 @@
+package com.luis.petalthbackend.security.jwt;
+
+import com.luis.petalthbackend.repository.UserRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Revocación barata para el modo self-contained: guardamos en memoria la versión vigente de cada cuenta
+// revocada alguna vez (userId -> tokenVersion). Un token es válido si su claim "ver" coincide con la vigente.
+// Solo contiene usuarios con versión > 0, así que ocupa muy poco.
+@Component
+public class TokenRevocationRegistry {
+
+    private final UserRepository userRepository;
+    private final Map<Long, Integer> currentVersions = new ConcurrentHashMap<>();
+
+    public TokenRevocationRegistry(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    // Al arrancar cargamos las versiones desde la BDD para que un reinicio no "resucite" tokens revocados
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadFromDatabase() {
+        userRepository.findRevokedTokenVersions()
+                .forEach(v -> currentVersions.merge(v.userId(), v.tokenVersion(), Math::max));
+    }
+
+    public boolean isRevoked(Long userId, int tokenVersion) {
+        return tokenVersion < currentVersions.getOrDefault(userId, 0);
+    }
+
+    public void revoke(Long userId, int newVersion) {
+        currentVersions.merge(userId, newVersion, Math::max);
+    }
+
+    // Igual que PrincipalCache: solo publicamos la nueva versión cuando la transacción se confirma
+    public void revokeAfterCommit(Long userId, int newVersion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            revoke(userId, newVersion);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                revoke(userId, newVersion);
+            }
+        });
+    }
+}
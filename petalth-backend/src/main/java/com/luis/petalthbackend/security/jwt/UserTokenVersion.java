@@ -0,0 +1,6 @@
+package com.luis.petalthbackend.security.jwt;
+
+public record UserTokenVersion(
+        Long userId,
+        int tokenVersion
+) {}
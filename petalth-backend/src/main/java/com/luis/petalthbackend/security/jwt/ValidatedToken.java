@@ -0,0 +1,39 @@
+package com.luis.petalthbackend.security.jwt;
+
+import io.jsonwebtoken.Claims;
+
+import java.util.Date;
+
+// Resultado de parsear y verificar la firma de un JWT una única vez.
+// Así el filtro no vuelve a parsear el mismo token para sacar el email y la expiración.
+public record ValidatedToken(Claims claims) {
+
+    public String email() {
+        return claims.getSubject();
+    }
+
+    public Date expiration() {
+        return claims.getExpiration();
+    }
+
+    public boolean isExpired() {
+        return expiration().before(new Date());
+    }
+
+    // Claims del modo self-contained (null si el token se emitió sin ellos)
+    public Long userId() {
+        return claims.get(JwtService.CLAIM_USER_ID, Long.class);
+    }
+
+    public String rol() {
+        return claims.get(JwtService.CLAIM_ROL, String.class);
+    }
+
+    public Integer accountVersion() {
+        return claims.get(JwtService.CLAIM_ACCOUNT_VERSION, Integer.class);
+    }
+
+    public boolean hasAuthorizationClaims() {
+        return userId() != null && rol() != null && accountVersion() != null;
+    }
+}
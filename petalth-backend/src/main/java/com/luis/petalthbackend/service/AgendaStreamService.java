@@ -0,0 +1,116 @@
+package com.luis.petalthbackend.service;
+
+import com.luis.petalthbackend.dto.response.AgendaChangeDTO;
+import com.luis.petalthbackend.event.AgendaEventBus;
+import com.luis.petalthbackend.event.AppointmentChangedEvent;
+import com.luis.petalthbackend.repository.AppointmentRepository;
+import com.luis.petalthbackend.repository.VeterinarianRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Agenda del veterinario en tiempo real (Server-Sent Events) en lugar de repetir GET /my-agenda:
+//  - evento "agenda": la agenda completa, al conectar y cuando hay que resincronizar (buffer desbordado)
+//  - evento "appointment": una cita nueva o que ha cambiado de estado (AgendaChangeDTO)
+//  - comentario de heartbeat cada 'agenda-stream.heartbeat' para detectar conexiones muertas
+// SseEmitter es asíncrono (no retiene hilo de Tomcat) y cada conexión tiene un hilo virtual que vacía su buffer,
+// así que miles de conexiones abiertas cuestan poca memoria y ningún hilo de plataforma.
+@Service
+public class AgendaStreamService {
+
+    private static final Logger log = LoggerFactory.getLogger(AgendaStreamService.class);
+
+    private final AgendaEventBus eventBus;
+    private final AppointmentRepository appointmentRepository;
+    private final VeterinarianRepository veterinarianRepository;
+    private final Duration timeout;
+    private final Duration heartbeat;
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+
+    public AgendaStreamService(AgendaEventBus eventBus,
+                               AppointmentRepository appointmentRepository,
+                               VeterinarianRepository veterinarianRepository,
+                               @Value("${agenda-stream.timeout:30m}") Duration timeout,
+                               @Value("${agenda-stream.heartbeat:25s}") Duration heartbeat) {
+        this.eventBus = eventBus;
+        this.appointmentRepository = appointmentRepository;
+        this.veterinarianRepository = veterinarianRepository;
+        this.timeout = timeout;
+        this.heartbeat = heartbeat;
+    }
+
+    public SseEmitter open(String email) {
+        Long vetId = veterinarianRepository.findIdByUserEmail(email)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Veterinario no encontrado"));
+
+        // Al caducar el emisor el cliente reconecta y su JWT se vuelve a validar
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        // Nos suscribimos ANTES de leer la agenda inicial: un cambio entre medias llega dos veces, nunca se pierde
+        AgendaEventBus.Subscription subscription = eventBus.subscribe(vetId);
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(e -> subscription.close());
+        senders.submit(() -> pump(email, emitter, subscription));
+        return emitter;
+    }
+
+    // Solo tras el commit. La cita se lee una vez por cambio, y solo si el veterinario tiene alguna conexión abierta
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        if (event.veterinarianId() == null || !eventBus.hasSubscribers(event.veterinarianId())) {
+            return;
+        }
+        appointmentRepository.findDTOById(event.appointmentId()).ifPresent(appointment ->
+                eventBus.publish(event.veterinarianId(), new AgendaChangeDTO(event.previousStatus(), appointment)));
+    }
+
+    private void pump(String email, SseEmitter emitter, AgendaEventBus.Subscription subscription) {
+        try {
+            sendAgenda(email, emitter);
+            while (!subscription.isClosed()) {
+                AgendaChangeDTO change = subscription.poll(heartbeat);
+                if (subscription.consumeResync()) {
+                    sendAgenda(email, emitter);
+                } else if (change != null) {
+                    emitter.send(SseEmitter.event().name("appointment").data(change));
+                } else {
+                    emitter.send(SseEmitter.event().comment("ping"));
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Cliente desconectado o emisor ya completado: onError/onCompletion cierran la suscripción
+            subscription.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            subscription.close();
+            emitter.complete();
+        } catch (RuntimeException e) {
+            // Fallo leyendo la agenda (BDD caída, DataAccessException...). Sin esto el hilo moría en silencio
+            // dejando la suscripción registrada y la conexión abierta sin recibir nada: el cliente reconectará.
+            log.warn("Error en el stream de agenda de {}: {}", email, e.getMessage());
+            subscription.close();
+            emitter.completeWithError(e);
+        }
+    }
+
+    private void sendAgenda(String email, SseEmitter emitter) throws IOException {
+        emitter.send(SseEmitter.event().name("agenda")
+                .data(appointmentRepository.findAgendaByVeterinarianEmail(email)));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        senders.shutdownNow();
+    }
+}
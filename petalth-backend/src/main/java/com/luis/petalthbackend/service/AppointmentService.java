@@ -1,43 +1,79 @@
 package com.luis.petalthbackend.service;
 
 import com.luis.petalthbackend.dto.response.AppointmentDTO;
+import com.luis.petalthbackend.dto.response.CursorPage;
 import com.luis.petalthbackend.entity.Appointment;
 import com.luis.petalthbackend.entity.AppointmentStatus;
+import com.luis.petalthbackend.entity.InvoiceOutbox;
+import com.luis.petalthbackend.event.AppointmentChangedEvent;
+import com.luis.petalthbackend.pagination.Keyset;
+import com.luis.petalthbackend.pagination.KeysetCursor;
 import com.luis. petalthbackend.repository.AppointmentRepository;
+import com.luis.petalthbackend.repository.ArchiveRepository;
+import com.luis.petalthbackend.repository.InvoiceOutboxRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 
 @Service
 public class AppointmentService {
 
     private final AppointmentRepository appointmentRepository;
+    private final InvoiceOutboxRepository invoiceOutboxRepository;
+    private final ArchiveRepository archiveRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public AppointmentService(AppointmentRepository appointmentRepository) {
+    public AppointmentService(AppointmentRepository appointmentRepository,
+                              InvoiceOutboxRepository invoiceOutboxRepository,
+                              ArchiveRepository archiveRepository,
+                              ApplicationEventPublisher eventPublisher) {
         this.appointmentRepository = appointmentRepository;
+        this.invoiceOutboxRepository = invoiceOutboxRepository;
+        this.archiveRepository = archiveRepository;
+        this.eventPublisher = eventPublisher;
     }
 
-// Realmente es mejor práctica usar JOIN FETCH en una JPQL dentro del repositorio.
-
     // Transaction define que es un bloque de operaciones que se ejecutan como una unidad
-    // Esto soluciona la Exception LazyInitializationException, ya que por defecto
-    // Hibernate cierra la conexión después de realizar appointmentRepository.findAll()
+    // Las consultas proyectan directamente al DTO (una sola SELECT con JOINs), así que ya no hay carga
+    // perezosa de relaciones ni riesgo de LazyInitializationException al mapear.
+    // Con includeHistory también se leen las citas archivadas (appointment_archive)
     @Transactional(readOnly = true) // Para consultas SELECT
-    public List<AppointmentDTO> getAllAppointments() {
-        return appointmentRepository.findAll()
-                .stream()
-                .map(this::convertToDTO) // Usamos el método privado
-                .toList();
+    public List<AppointmentDTO> getAllAppointments(boolean includeHistory) {
+        List<AppointmentDTO> appointments = appointmentRepository.findAllAsDTO();
+        if (!includeHistory) {
+            return appointments;
+        }
+        List<AppointmentDTO> all = new ArrayList<>(archiveRepository.findAllAppointments());
+        all.addAll(appointments);
+        return all;
+    }
+
+    // Paginación por cursor (dateTime, id): el coste de cada página no depende del tamaño del historial
+    @Transactional(readOnly = true)
+    public CursorPage<AppointmentDTO> getAppointmentsPage(String cursor, Integer size, AppointmentStatus status,
+                                                          LocalDateTime from, LocalDateTime to) {
+        int pageSize = Keyset.pageSize(size);
+        List<AppointmentDTO> rows = appointmentRepository.findPage(
+                status, from, to, KeysetCursor.decode(cursor), pageSize + 1);
+        return Keyset.toPage(rows, pageSize, dto -> new KeysetCursor(dto.dateTime(), dto.id()));
     }
 
-    // Le añadimos @Transactional también para evitar el LazyInitializationException al mapear
     @Transactional(readOnly = true)
-    public List<AppointmentDTO> getAppointmentsByVetEmail(String email) {
-        return appointmentRepository.findByVeterinarianUserEmail(email)
-                .stream()
-                .map(this::convertToDTO) // Usamos el método privado
-                .toList();
+    public List<AppointmentDTO> getAppointmentsByVetEmail(String email, boolean includeHistory) {
+        List<AppointmentDTO> agenda = appointmentRepository.findAgendaByVeterinarianEmail(email);
+        if (!includeHistory) {
+            return agenda;
+        }
+        // Las dos listas vienen ordenadas por fecha, pero en caliente puede quedar alguna cita antigua sin cerrar
+        List<AppointmentDTO> all = new ArrayList<>(archiveRepository.findAgendaByVeterinarianEmail(email));
+        all.addAll(agenda);
+        all.sort(Comparator.comparing(AppointmentDTO::dateTime));
+        return all;
     }
 
     @Transactional
@@ -47,10 +83,30 @@ public class AppointmentService {
                 .orElseThrow(() -> new RuntimeException("Cita no encontrada"));
 
         // Cambiamos el estado
+        AppointmentStatus previousStatus = app.getStatus();
         app.setStatus(newStatus);
 
         // Guardamos y devolvemos el DTO actualizado usando el método privado que ya teníamos
         app = appointmentRepository.save(app);
+
+        // La factura la crea InvoiceOutboxWorker en segundo plano. La entrada de la bandeja va en esta misma
+        // transacción: si el cambio de estado hace rollback, tampoco queda factura pendiente
+        if (newStatus == AppointmentStatus.COMPLETED && previousStatus != AppointmentStatus.COMPLETED) {
+            invoiceOutboxRepository.save(InvoiceOutbox.builder()
+                    .appointmentId(app.getId())
+                    .createdAt(LocalDateTime.now())
+                    .build());
+        }
+
+        // Avisamos del cambio (p.ej. una cita cancelada deja su hueco libre en el índice de agendas)
+        eventPublisher.publishEvent(new AppointmentChangedEvent(
+                app.getId(),
+                app.getVeterinarian().getId(),
+                app.getService().getId(),
+                app.getDateTime(),
+                app.getService().getDurationMinutes(),
+                previousStatus,
+                newStatus));
         return convertToDTO(app);
     }
 
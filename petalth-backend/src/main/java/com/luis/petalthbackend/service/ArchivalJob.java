@@ -0,0 +1,106 @@
+package com.luis.petalthbackend.service;
+
+import com.luis.petalthbackend.repository.ArchiveRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Period;
+import java.util.List;
+
+// Archivado del histórico: mueve las citas cerradas (COMPLETED/CANCELLED con la factura pagada o sin factura)
+// anteriores a 'archive.retention' a appointment_archive / invoice_archive. Así appointment e invoice solo
+// guardan lo reciente y lo abierto, y las consultas del día a día (agenda, listados) no recorren años de historia.
+// Se archiva por meses completos y por lotes, una transacción por lote. Con archive.cron=- no se ejecuta.
+@Service
+public class ArchivalJob {
+
+    private static final Logger log = LoggerFactory.getLogger(ArchivalJob.class);
+
+    private final ArchiveRepository archiveRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Period retention;
+    private final int batchSize;
+    private final String tablespace;
+    private final boolean recreateSchema;
+    private final Timer runTimer;
+    private final Counter archivedAppointments;
+    private final Counter archivedInvoices;
+
+    public ArchivalJob(ArchiveRepository archiveRepository,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${archive.retention:2y}") Period retention,
+                       @Value("${archive.batch-size:500}") int batchSize,
+                       @Value("${archive.tablespace:}") String tablespace,
+                       @Value("${spring.jpa.hibernate.ddl-auto:none}") String ddlAuto,
+                       MeterRegistry meterRegistry) {
+        this.archiveRepository = archiveRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retention = retention;
+        this.batchSize = batchSize;
+        this.tablespace = tablespace;
+        // Con create/create-drop las tablas calientes se acaban de crear vacías: el histórico anterior sobra
+        this.recreateSchema = ddlAuto.startsWith("create");
+        this.runTimer = Timer.builder("archive.run")
+                .description("Duración de cada pasada de archivado")
+                .register(meterRegistry);
+        this.archivedAppointments = archived(meterRegistry, "appointment");
+        this.archivedInvoices = archived(meterRegistry, "invoice");
+    }
+
+    private static Counter archived(MeterRegistry meterRegistry, String table) {
+        return Counter.builder("archive.rows")
+                .description("Filas movidas al histórico")
+                .tag("table", table)
+                .register(meterRegistry);
+    }
+
+    // Las consultas con includeHistory necesitan las tablas aunque todavía no se haya archivado nada
+    @EventListener(ApplicationReadyEvent.class)
+    public void createSchema() {
+        transactionTemplate.executeWithoutResult(status -> archiveRepository.createSchema(recreateSchema));
+    }
+
+    @Scheduled(cron = "${archive.cron:0 30 3 * * *}")
+    public void archive() {
+        runTimer.record(() -> archiveBefore(cutoff(LocalDate.now())));
+    }
+
+    // Primer día del mes más antiguo que se conserva en caliente: se archivan siempre meses completos
+    private LocalDateTime cutoff(LocalDate today) {
+        return today.minus(retention).withDayOfMonth(1).atStartOfDay();
+    }
+
+    private void archiveBefore(LocalDateTime cutoff) {
+        LocalDateTime archivedAt = LocalDateTime.now();
+        long appointments = 0;
+        long invoices = 0;
+        ArchiveRepository.ArchivedBatch batch;
+        do {
+            batch = transactionTemplate.execute(status -> {
+                List<Long> ids = archiveRepository.lockArchivableBatch(cutoff, batchSize);
+                archiveRepository.createPartitionsFor(ids, tablespace);
+                return archiveRepository.moveToArchive(ids, archivedAt);
+            });
+            archivedAppointments.increment(batch.appointments());
+            archivedInvoices.increment(batch.invoices());
+            appointments += batch.appointments();
+            invoices += batch.invoices();
+        } while (batch.appointments() == batchSize);
+
+        if (appointments > 0) {
+            log.info("Archivadas {} citas y {} facturas anteriores a {}", appointments, invoices, cutoff.toLocalDate());
+        }
+    }
+}
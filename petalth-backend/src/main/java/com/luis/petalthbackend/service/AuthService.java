@@ -9,15 +9,23 @@ import com.luis.petalthbackend.entity.User;
 import com.luis.petalthbackend.repository.OwnerRepository;
 import com.luis.petalthbackend.repository.UserRepository;
 import com.luis.petalthbackend.security.jwt.JwtService;
-import lombok.RequiredArgsConstructor;
+import com.luis.petalthbackend.security.LoginThrottle;
+import com.luis.petalthbackend.security.PrincipalCache;
+import com.luis.petalthbackend.security.hashing.PasswordHashingExecutor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.CompletableFuture;
 
 @Service
-@RequiredArgsConstructor
 // Gestiona la lógica para acceso y creación de usuarios.
 public class AuthService {
     private final UserRepository userRepository;
@@ -25,8 +33,51 @@ public class AuthService {
     private final JwtService jwtService;
     private final AuthenticationManager authenticationManager;
     private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final LoginThrottle loginThrottle;
+    private final TransactionTemplate transactionTemplate;
+    private final PrincipalCache principalCache;
+    private final MeterRegistry meterRegistry;
+
+    public AuthService(UserRepository userRepository,
+                       OwnerRepository ownerRepository,
+                       JwtService jwtService,
+                       AuthenticationManager authenticationManager,
+                       PasswordEncoder passwordEncoder,
+                       PasswordHashingExecutor passwordHashingExecutor,
+                       LoginThrottle loginThrottle,
+                       PlatformTransactionManager transactionManager,
+                       PrincipalCache principalCache,
+                       MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.ownerRepository = ownerRepository;
+        this.jwtService = jwtService;
+        this.authenticationManager = authenticationManager;
+        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingExecutor = passwordHashingExecutor;
+        this.loginThrottle = loginThrottle;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.principalCache = principalCache;
+        this.meterRegistry = meterRegistry;
+    }
 
-    public AuthResponse login(LoginRequest loginRequest) {
+    // El login (que incluye el BCrypt de la contraseña) se ejecuta en el pool acotado de hashing, no en el hilo
+    // de Tomcat. Antes comprobamos los límites de intentos: un cliente bloqueado no llega a gastar un BCrypt.
+    public CompletableFuture<AuthResponse> login(LoginRequest loginRequest, String clientIp) {
+        loginThrottle.checkAttempt(loginRequest.email(), clientIp);
+        return passwordHashingExecutor.submit("login", () -> {
+            try {
+                AuthResponse response = authenticate(loginRequest);
+                loginThrottle.loginSucceeded(loginRequest.email());
+                return response;
+            } catch (AuthenticationException e) {
+                loginThrottle.loginFailed(loginRequest.email(), clientIp);
+                throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Credenciales incorrectas");
+            }
+        });
+    }
+
+    private AuthResponse authenticate(LoginRequest loginRequest) {
         // 1. Autenticar al usuario (verifica email + password)
         authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(
@@ -40,10 +91,14 @@ public class AuthService {
         User user = userRepository.findByEmail(loginRequest.email())
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        // 3. Generar token JWT
+        // 3. Si el hash guardado es de un algoritmo o coste anterior al configurado, lo regeneramos ahora
+        // que tenemos la contraseña en claro (ya estamos en el pool de hashing)
+        upgradePasswordHash(user, loginRequest.password());
+
+        // 4. Generar token JWT
         String token = jwtService.generateToken(user);
 
-        // 4. Devolver respuesta
+        // 5. Devolver respuesta
         return new AuthResponse(
                 user.getId(),
                 token,
@@ -54,19 +109,38 @@ public class AuthService {
         );
     }
 
+    private void upgradePasswordHash(User user, String rawPassword) {
+        if (!passwordEncoder.upgradeEncoding(user.getPassword())) {
+            return;
+        }
+        String newHash = passwordEncoder.encode(rawPassword);
+        userRepository.updatePassword(user.getId(), newHash);
+        user.setPassword(newHash);
+        // El principal cacheado guarda el hash antiguo
+        principalCache.invalidate(user.getEmail());
+        meterRegistry.counter("auth.password.rehashed").increment();
+    }
+
     // Devolvemos AuthResponse (JWT Token) para que entre directamente sin tener que loguearse.
-    @Transactional // Si hay algún fallo no se ejecuta nada.
-    public AuthResponse register(RegisterRequest registerRequest) {
+    // El hash se calcula en el pool de hashing ANTES de abrir la transacción: así no tenemos una conexión
+    // de la BDD ocupada durante los ~100 ms de BCrypt.
+    public CompletableFuture<AuthResponse> register(RegisterRequest registerRequest) {
         // 1. El email ya existe?
         if (userRepository.existsByEmail(registerRequest.email())) {
             throw new RuntimeException("El email ya existe");
         }
 
+        return passwordHashingExecutor.submit("register", () -> passwordEncoder.encode(registerRequest.password()))
+                // Si hay algún fallo no se ejecuta nada.
+                .thenApply(passwordHash -> transactionTemplate.execute(status -> createOwner(registerRequest, passwordHash)));
+    }
+
+    private AuthResponse createOwner(RegisterRequest registerRequest, String passwordHash) {
         User user = User.builder()
                 .firstName(registerRequest.firstName())
                 .lastName(registerRequest.lastName())
                 .email(registerRequest.email())
-                .password(passwordEncoder.encode(registerRequest.password())) // Encriptamos la contraseña
+                .password(passwordHash) // Contraseña ya encriptada
                 // Forzamos rol OWNER por defecto
                 .rol(Rol.OWNER)
                 .active(true)
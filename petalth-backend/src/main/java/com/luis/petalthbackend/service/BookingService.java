@@ -0,0 +1,208 @@
+package com.luis.petalthbackend.service;
+
+import com.luis.petalthbackend.dto.request.BookingRequest;
+import com.luis.petalthbackend.dto.response.AppointmentDTO;
+import com.luis.petalthbackend.dto.response.NextAvailableSlotDTO;
+import com.luis.petalthbackend.dto.response.VetAvailabilityDTO;
+import com.luis.petalthbackend.dto.response.VeterinarianDTO;
+import com.luis.petalthbackend.entity.*;
+import com.luis.petalthbackend.event.AppointmentChangedEvent;
+import com.luis.petalthbackend.repository.AppointmentRepository;
+import com.luis.petalthbackend.repository.MedicalTreatmentRepository;
+import com.luis.petalthbackend.repository.PetRepository;
+import com.luis.petalthbackend.repository.VeterinarianRepository;
+import com.luis.petalthbackend.schedule.*;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Motor de reservas: calcula huecos libres por veterinario y crea citas sin solapes.
+@Service
+public class BookingService {
+
+    // Ventana máxima de disponibilidad por consulta (acota el coste de cada petición)
+    private static final int MAX_WINDOW_DAYS = 62;
+
+    // Máximo de huecos devueltos por la búsqueda del siguiente hueco libre
+    private static final int MAX_NEXT_SLOTS = 50;
+
+    private final AppointmentRepository appointmentRepository;
+    private final VeterinarianRepository veterinarianRepository;
+    private final MedicalTreatmentRepository medicalTreatmentRepository;
+    private final PetRepository petRepository;
+    private final WorkingHours workingHours;
+    private final VetScheduleRegistry scheduleRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public BookingService(AppointmentRepository appointmentRepository,
+                          VeterinarianRepository veterinarianRepository,
+                          MedicalTreatmentRepository medicalTreatmentRepository,
+                          PetRepository petRepository,
+                          WorkingHours workingHours,
+                          VetScheduleRegistry scheduleRegistry,
+                          ApplicationEventPublisher eventPublisher) {
+        this.appointmentRepository = appointmentRepository;
+        this.veterinarianRepository = veterinarianRepository;
+        this.medicalTreatmentRepository = medicalTreatmentRepository;
+        this.petRepository = petRepository;
+        this.workingHours = workingHours;
+        this.scheduleRegistry = scheduleRegistry;
+        this.eventPublisher = eventPublisher;
+    }
+
+    // Huecos libres para un tratamiento entre dos fechas (ambas incluidas).
+    // Las agendas salen del índice en memoria (VetScheduleRegistry): solo se consultan tratamiento y veterinarios.
+    @Transactional(readOnly = true)
+    public List<VetAvailabilityDTO> getAvailability(Long treatmentId, List<Long> vetIds, LocalDate from, LocalDate to) {
+        if (from.isAfter(to) || ChronoUnit.DAYS.between(from, to) >= MAX_WINDOW_DAYS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Rango de fechas no válido (máximo " + MAX_WINDOW_DAYS + " días)");
+        }
+        int duration = durationOf(findActiveTreatment(treatmentId));
+
+        List<VeterinarianDTO> vets = veterinarianRepository.findAllActiveAsDTO().stream()
+                .filter(vet -> vetIds == null || vetIds.isEmpty() || vetIds.contains(vet.id()))
+                .toList();
+        if (vets.isEmpty()) {
+            return List.of();
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        return vets.stream()
+                .map(vet -> new VetAvailabilityDTO(
+                        vet.id(),
+                        vet.fullName(),
+                        scheduleRegistry.freeSlots(vet.id(), from, to, duration, now)))
+                .toList();
+    }
+
+    // Los k huecos libres más tempranos para un tratamiento entre todos los veterinarios activos
+    // (opcionalmente de una especialidad). Ordenados por hora y, a igualdad, por veterinario.
+    @Transactional(readOnly = true)
+    public List<NextAvailableSlotDTO> findNextAvailable(Long treatmentId, String speciality, Integer k,
+                                                        LocalDateTime from) {
+        int limit = k == null ? 1 : k;
+        if (limit < 1 || limit > MAX_NEXT_SLOTS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "k debe estar entre 1 y " + MAX_NEXT_SLOTS);
+        }
+        int duration = durationOf(findActiveTreatment(treatmentId));
+
+        Map<Long, VeterinarianDTO> vets = veterinarianRepository.findAllActiveAsDTO().stream()
+                .filter(vet -> speciality == null || speciality.isBlank() || speciality.equalsIgnoreCase(vet.speciality()))
+                .collect(Collectors.toMap(VeterinarianDTO::id, Function.identity()));
+        if (vets.isEmpty()) {
+            return List.of();
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime start = from == null || from.isBefore(now) ? now : from;
+        return scheduleRegistry.earliestSlots(vets.keySet(), duration, start, limit).stream()
+                .map(slot -> new NextAvailableSlotDTO(
+                        slot.veterinarianId(),
+                        vets.get(slot.veterinarianId()).fullName(),
+                        slot.start()))
+                .toList();
+    }
+
+    // Reserva atómica: bloqueamos la fila del veterinario (FOR UPDATE) antes de comprobar solapes, así dos
+    // peticiones simultáneas para el mismo veterinario se ejecutan una detrás de otra y la segunda ve la primera.
+    @Transactional
+    public AppointmentDTO book(BookingRequest request, String ownerEmail) {
+        if (request.petId() == null || request.veterinarianId() == null
+                || request.treatmentId() == null || request.dateTime() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Faltan datos de la cita");
+        }
+
+        MedicalTreatment treatment = findActiveTreatment(request.treatmentId());
+
+        Veterinarian vet = veterinarianRepository.findByIdForUpdate(request.veterinarianId())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Veterinario no encontrado"));
+        if (!vet.getUser().isActive()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El veterinario no está disponible");
+        }
+
+        Pet pet = petRepository.findById(request.petId())
+                .filter(Pet::isActive)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Mascota no encontrada"));
+        // SEGURIDAD: solo el dueño puede pedir cita para su mascota
+        if (!pet.getOwner().getUser().getEmail().equals(ownerEmail)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "No tienes permiso para reservar para esta mascota");
+        }
+
+        TimeInterval slot = TimeInterval.of(request.dateTime(), durationOf(treatment));
+        if (slot.start().isBefore(LocalDateTime.now()) || !workingHours.contains(slot)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "La cita debe ser futura y dentro del horario");
+        }
+
+        // Los solapes se comprueban contra la BDD (fuente de verdad) bajo el bloqueo, no contra el índice en memoria
+        VetSchedule schedule = loadSchedules(List.of(vet.getId()), slot.start(), slot.end())
+                .getOrDefault(vet.getId(), new VetSchedule());
+        if (schedule.overlaps(slot)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "El veterinario ya tiene una cita en ese horario");
+        }
+
+        // Asignamos solo el lado propietario de las relaciones: los helpers addAppointment() inicializarían
+        // las colecciones completas de citas de la mascota y del veterinario solo para añadir una.
+        Appointment appointment = Appointment.builder()
+                .dateTime(slot.start())
+                .service(treatment)
+                .status(AppointmentStatus.PENDING)
+                .pet(pet)
+                .veterinarian(vet)
+                .build();
+        appointment = appointmentRepository.save(appointment);
+        eventPublisher.publishEvent(new AppointmentChangedEvent(
+                appointment.getId(), vet.getId(), treatment.getId(), slot.start(), durationOf(treatment),
+                null, AppointmentStatus.PENDING));
+
+        return new AppointmentDTO(
+                appointment.getId(),
+                appointment.getDateTime(),
+                treatment.getName(),
+                appointment.getStatus(),
+                pet.getName(),
+                vet.getUser().getFirstName() + " " + vet.getUser().getLastName()
+        );
+    }
+
+    // Una sola consulta para todos los veterinarios. Restamos la duración máxima a 'from' para incluir
+    // las citas que empiezan antes del rango pero siguen en curso dentro de él.
+    private Map<Long, VetSchedule> loadSchedules(Collection<Long> vetIds, LocalDateTime from, LocalDateTime to) {
+        int maxDuration = medicalTreatmentRepository.findMaxDurationMinutes();
+        int defaultDuration = defaultDuration();
+        List<ScheduledInterval> busy = appointmentRepository.findSchedule(
+                vetIds, AppointmentStatus.PENDING, from.minusMinutes(Math.max(maxDuration, defaultDuration)), to);
+
+        Map<Long, VetSchedule> schedules = new HashMap<>();
+        for (ScheduledInterval interval : busy) {
+            schedules.computeIfAbsent(interval.veterinarianId(), id -> new VetSchedule())
+                    .add(interval.toInterval(defaultDuration));
+        }
+        return schedules;
+    }
+
+    private MedicalTreatment findActiveTreatment(Long treatmentId) {
+        return medicalTreatmentRepository.findById(treatmentId)
+                .filter(MedicalTreatment::isActive)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Tratamiento no encontrado"));
+    }
+
+    // Un tratamiento sin duración ocupa un hueco del horario
+    private int durationOf(MedicalTreatment treatment) {
+        return treatment.getDurationMinutes() != null ? treatment.getDurationMinutes() : defaultDuration();
+    }
+
+    private int defaultDuration() {
+        return (int) workingHours.slotStep().toMinutes();
+    }
+}
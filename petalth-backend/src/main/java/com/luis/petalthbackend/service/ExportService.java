@@ -0,0 +1,100 @@
+package com.luis.petalthbackend.service;
+
+import com.luis.petalthbackend.dto.response.AppointmentDTO;
+import com.luis.petalthbackend.dto.response.InvoiceExportRow;
+import com.luis.petalthbackend.export.CsvWriter;
+import com.luis.petalthbackend.export.ExportFormat;
+import com.luis.petalthbackend.repository.AppointmentRepository;
+import com.luis.petalthbackend.repository.ArchiveRepository;
+import com.luis.petalthbackend.repository.InvoiceRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+// Exportaciones completas (contabilidad) escritas fila a fila directamente en la respuesta.
+// La memoria usada es constante: nunca tenemos la lista de entidades ni de DTOs entera en el heap.
+@Service
+public class ExportService {
+
+    private final AppointmentRepository appointmentRepository;
+    private final InvoiceRepository invoiceRepository;
+    private final ArchiveRepository archiveRepository;
+    private final JsonMapper jsonMapper;
+
+    public ExportService(AppointmentRepository appointmentRepository, InvoiceRepository invoiceRepository,
+                         ArchiveRepository archiveRepository, JsonMapper jsonMapper) {
+        this.appointmentRepository = appointmentRepository;
+        this.invoiceRepository = invoiceRepository;
+        this.archiveRepository = archiveRepository;
+        this.jsonMapper = jsonMapper;
+    }
+
+    // La transacción es necesaria para que PostgreSQL respete el fetch size (cursor del lado del servidor).
+    // Con includeHistory se exporta primero el histórico archivado y después las tablas calientes;
+    // Stream.concat cierra los dos cursores al cerrar el resultado.
+    @Transactional(readOnly = true)
+    public void exportAppointments(ExportFormat format, boolean includeHistory, OutputStream out) throws IOException {
+        try (Stream<AppointmentDTO> rows = includeHistory
+                ? Stream.concat(archiveRepository.streamAppointmentsForExport(), appointmentRepository.streamAllForExport())
+                : appointmentRepository.streamAllForExport()) {
+            if (format == ExportFormat.CSV) {
+                CsvWriter csv = new CsvWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                csv.writeRow("id", "dateTime", "serviceName", "status", "petName", "veterinarianName");
+                rows.forEach(row -> writeCsv(csv, row.id(), row.dateTime(), row.serviceName(), row.status(),
+                        row.petName(), row.veterinarianName()));
+                csv.flush();
+            } else {
+                writeNdjson(rows, out);
+            }
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void exportInvoices(ExportFormat format, boolean includeHistory, OutputStream out) throws IOException {
+        try (Stream<InvoiceExportRow> rows = includeHistory
+                ? Stream.concat(archiveRepository.streamInvoicesForExport(), invoiceRepository.streamAllForExport())
+                : invoiceRepository.streamAllForExport()) {
+            if (format == ExportFormat.CSV) {
+                CsvWriter csv = new CsvWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                csv.writeRow("id", "issueDate", "amount", "status", "appointmentId");
+                // amount admite null: CsvWriter lo escribe como campo vacío
+                rows.forEach(row -> writeCsv(csv, row.id(), row.issueDate(),
+                        row.amount() == null ? null : row.amount().toPlainString(),
+                        row.status(), row.appointmentId()));
+                csv.flush();
+            } else {
+                writeNdjson(rows, out);
+            }
+        }
+    }
+
+    // NDJSON: un objeto JSON por línea
+    private void writeNdjson(Stream<?> rows, OutputStream out) throws IOException {
+        BufferedOutputStream buffered = new BufferedOutputStream(out);
+        rows.forEach(row -> {
+            try {
+                buffered.write(jsonMapper.writeValueAsBytes(row));
+                buffered.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e); // p.j. el cliente ha cerrado la conexión
+            }
+        });
+        buffered.flush();
+    }
+
+    private static void writeCsv(CsvWriter csv, Object... values) {
+        try {
+            csv.writeRow(values);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
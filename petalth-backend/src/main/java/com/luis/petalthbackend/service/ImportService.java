@@ -0,0 +1,445 @@
+package com.luis.petalthbackend.service;
+
+import com.luis.petalthbackend.cache.InvalidationBus;
+import com.luis.petalthbackend.cache.InvalidationMessage;
+import com.luis.petalthbackend.cache.ResourceVersions;
+import com.luis.petalthbackend.dto.response.ImportReportDTO;
+import com.luis.petalthbackend.entity.*;
+import com.luis.petalthbackend.event.AppointmentChangedEvent;
+import com.luis.petalthbackend.importer.*;
+import com.luis.petalthbackend.repository.*;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+// Importación masiva desde CSV (alta de clínicas). El fichero se lee en streaming y se procesa por bloques:
+// cada bloque resuelve sus referencias con una consulta, se guarda en su propia transacción (INSERTs en lote)
+// y sus errores se anotan por fila sin abortar el resto de la importación.
+@Service
+public class ImportService {
+
+    static final List<String> OWNER_COLUMNS = List.of("email", "password", "firstName", "lastName", "phone", "address");
+    static final List<String> PET_COLUMNS = List.of("ownerEmail", "name", "birthDate", "photoUrl");
+    static final List<String> APPOINTMENT_COLUMNS = List.of(
+            "ownerEmail", "petName", "veterinarianEmail", "treatmentName", "dateTime", "status", "diagnosis");
+
+    // BCrypt solo usa los primeros 72 bytes y BCryptPasswordEncoder rechaza (IllegalArgumentException) los más largos
+    static final int MAX_PASSWORD_BYTES = 72;
+
+    private final UserRepository userRepository;
+    private final OwnerRepository ownerRepository;
+    private final PetRepository petRepository;
+    private final VeterinarianRepository veterinarianRepository;
+    private final MedicalTreatmentRepository medicalTreatmentRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final ExecutorService hashingExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ResourceVersions resourceVersions;
+    private final InvalidationBus invalidationBus;
+    private final int chunkSize;
+
+    public ImportService(UserRepository userRepository,
+                         OwnerRepository ownerRepository,
+                         PetRepository petRepository,
+                         VeterinarianRepository veterinarianRepository,
+                         MedicalTreatmentRepository medicalTreatmentRepository,
+                         AppointmentRepository appointmentRepository,
+                         PasswordEncoder passwordEncoder,
+                         @Qualifier("importHashingExecutor") ExecutorService hashingExecutor,
+                         PlatformTransactionManager transactionManager,
+                         ApplicationEventPublisher eventPublisher,
+                         ResourceVersions resourceVersions,
+                         InvalidationBus invalidationBus,
+                         @Value("${import.chunk-size:500}") int chunkSize) {
+        this.userRepository = userRepository;
+        this.ownerRepository = ownerRepository;
+        this.petRepository = petRepository;
+        this.veterinarianRepository = veterinarianRepository;
+        this.medicalTreatmentRepository = medicalTreatmentRepository;
+        this.appointmentRepository = appointmentRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.hashingExecutor = hashingExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.resourceVersions = resourceVersions;
+        this.invalidationBus = invalidationBus;
+        this.chunkSize = chunkSize;
+    }
+
+    // ============================================================
+    // DUEÑOS: email,password,firstName,lastName,phone,address
+    // ============================================================
+
+    public ImportReportDTO importOwners(InputStream csv) {
+        Set<String> seenEmails = new HashSet<>();
+        return importCsv(csv, OWNER_COLUMNS, (chunk, report) -> {
+            List<OwnerRow> rows = parse(chunk, report, row -> {
+                String email = required(row, 0, "email");
+                if (!email.contains("@")) {
+                    throw new InvalidRowException("Email no válido: " + email);
+                }
+                if (!seenEmails.add(email)) {
+                    throw new InvalidRowException("Email repetido en el fichero: " + email);
+                }
+                return new OwnerRow(row.line(), email, password(row, 1), required(row, 2, "firstName"),
+                        required(row, 3, "lastName"), row.get(4), row.get(5), null);
+            });
+            if (rows.isEmpty()) {
+                return;
+            }
+
+            Set<String> existing = new HashSet<>(userRepository.findExistingEmails(
+                    rows.stream().map(OwnerRow::email).toList()));
+            rows = rejectIf(rows, report, row -> existing.contains(row.email()), row -> "El email ya existe");
+
+            // BCrypt en paralelo sobre el pool acotado; la transacción solo empieza con todo ya hasheado
+            List<CompletableFuture<String>> hashes = rows.stream()
+                    .map(row -> CompletableFuture.supplyAsync(() -> passwordEncoder.encode(row.password()), hashingExecutor))
+                    .toList();
+            List<OwnerRow> hashed = new ArrayList<>(rows.size());
+            for (int i = 0; i < rows.size(); i++) {
+                try {
+                    hashed.add(rows.get(i).withPasswordHash(hashes.get(i).join()));
+                } catch (CompletionException e) {
+                    // Un hash que falla es un error de esa fila, no de la importación
+                    report.fail(rows.get(i).line(), rootMessage(e));
+                }
+            }
+
+            persist(hashed, report, this::saveOwners);
+        });
+    }
+
+    private void saveOwners(List<OwnerRow> rows) {
+        List<User> users = userRepository.saveAll(rows.stream()
+                .map(row -> User.builder()
+                        .email(row.email())
+                        .password(row.passwordHash())
+                        .firstName(row.firstName())
+                        .lastName(row.lastName())
+                        .rol(Rol.OWNER)
+                        .active(true)
+                        .build())
+                .toList());
+
+        List<Owner> owners = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            owners.add(Owner.builder()
+                    .user(users.get(i))
+                    .phone(rows.get(i).phone())
+                    .address(rows.get(i).address())
+                    .build());
+        }
+        ownerRepository.saveAll(owners);
+    }
+
+    // ============================================================
+    // MASCOTAS: ownerEmail,name,birthDate,photoUrl
+    // ============================================================
+
+    public ImportReportDTO importPets(InputStream csv) {
+        return importCsv(csv, PET_COLUMNS, (chunk, report) -> {
+            List<PetRow> rows = parse(chunk, report, row -> new PetRow(row.line(), required(row, 0, "ownerEmail"),
+                    required(row, 1, "name"), parseDate(row, 2), row.get(3), null));
+            if (rows.isEmpty()) {
+                return;
+            }
+
+            Map<String, Long> ownerIds = ownerRepository.findKeysByEmails(
+                            rows.stream().map(PetRow::ownerEmail).collect(Collectors.toSet())).stream()
+                    .collect(Collectors.toMap(EmailKey::email, EmailKey::id));
+            rows = rejectIf(rows, report, row -> !ownerIds.containsKey(row.ownerEmail()),
+                    row -> "No existe el dueño " + row.ownerEmail());
+
+            persist(rows.stream().map(row -> row.withOwnerId(ownerIds.get(row.ownerEmail()))).toList(),
+                    report, this::savePets);
+        });
+    }
+
+    private void savePets(List<PetRow> rows) {
+        // getReferenceById no consulta la BDD: solo necesitamos la FK del dueño
+        petRepository.saveAll(rows.stream()
+                .map(row -> Pet.builder()
+                        .name(row.name())
+                        .birthDate(row.birthDate())
+                        .photoUrl(row.photoUrl())
+                        .owner(ownerRepository.getReferenceById(row.ownerId()))
+                        .build())
+                .toList());
+        rows.stream().map(PetRow::ownerId).distinct().forEach(ownerId -> {
+            resourceVersions.ownerPetsChangedAfterCommit(ownerId);
+            invalidationBus.publishAfterCommit(InvalidationMessage.ownerPets(ownerId));
+        });
+    }
+
+    // ============================================================
+    // CITAS HISTÓRICAS: ownerEmail,petName,veterinarianEmail,treatmentName,dateTime,status,diagnosis
+    // ============================================================
+
+    public ImportReportDTO importAppointments(InputStream csv) {
+        // Los tratamientos son pocos: los cargamos una vez por importación
+        Map<String, MedicalTreatment> treatments = medicalTreatmentRepository.findAll().stream()
+                .collect(Collectors.toMap(t -> t.getName().toLowerCase(Locale.ROOT), t -> t, (a, b) -> a));
+
+        return importCsv(csv, APPOINTMENT_COLUMNS, (chunk, report) -> {
+            List<AppointmentRow> rows = parse(chunk, report, row -> {
+                MedicalTreatment treatment = treatments.get(required(row, 3, "treatmentName").toLowerCase(Locale.ROOT));
+                if (treatment == null) {
+                    throw new InvalidRowException("No existe el tratamiento " + row.get(3));
+                }
+                return new AppointmentRow(row.line(), required(row, 0, "ownerEmail"), required(row, 1, "petName"),
+                        required(row, 2, "veterinarianEmail"), treatment, parseDateTime(row, 4),
+                        parseStatus(row, 5), row.get(6), null, null);
+            });
+            if (rows.isEmpty()) {
+                return;
+            }
+
+            Map<String, List<Long>> petIds = petRepository.findKeysByOwnerEmails(
+                            rows.stream().map(AppointmentRow::ownerEmail).collect(Collectors.toSet())).stream()
+                    .collect(Collectors.groupingBy(key -> key.ownerEmail() + "|" + key.petName(),
+                            Collectors.mapping(PetKey::petId, Collectors.toList())));
+            Map<String, Long> vetIds = veterinarianRepository.findKeysByEmails(
+                            rows.stream().map(AppointmentRow::veterinarianEmail).collect(Collectors.toSet())).stream()
+                    .collect(Collectors.toMap(EmailKey::email, EmailKey::id));
+
+            List<AppointmentRow> resolved = new ArrayList<>(rows.size());
+            for (AppointmentRow row : rows) {
+                List<Long> pets = petIds.getOrDefault(row.ownerEmail() + "|" + row.petName(), List.of());
+                if (pets.size() != 1) {
+                    report.fail(row.line(), pets.isEmpty()
+                            ? "No existe la mascota " + row.petName() + " de " + row.ownerEmail()
+                            : "Hay varias mascotas llamadas " + row.petName() + " de " + row.ownerEmail());
+                } else if (!vetIds.containsKey(row.veterinarianEmail())) {
+                    report.fail(row.line(), "No existe el veterinario " + row.veterinarianEmail());
+                } else {
+                    resolved.add(row.withIds(pets.get(0), vetIds.get(row.veterinarianEmail())));
+                }
+            }
+
+            persist(resolved, report, this::saveAppointments);
+        });
+    }
+
+    private void saveAppointments(List<AppointmentRow> rows) {
+        List<Appointment> appointments = appointmentRepository.saveAll(rows.stream()
+                .map(row -> Appointment.builder()
+                        .dateTime(row.dateTime())
+                        .status(row.status())
+                        .diagnosis(row.diagnosis())
+                        .service(medicalTreatmentRepository.getReferenceById(row.treatment().getId()))
+                        .pet(petRepository.getReferenceById(row.petId()))
+                        .veterinarian(veterinarianRepository.getReferenceById(row.veterinarianId()))
+                        .build())
+                .toList());
+
+        // Las citas PENDING importadas ocupan hueco en las agendas en memoria (se aplica tras el commit) y todas
+        // cuentan en los resúmenes diarios del panel
+        for (int i = 0; i < rows.size(); i++) {
+            AppointmentRow row = rows.get(i);
+            eventPublisher.publishEvent(new AppointmentChangedEvent(appointments.get(i).getId(),
+                    row.veterinarianId(), row.treatment().getId(), row.dateTime(),
+                    row.treatment().getDurationMinutes(), null, row.status()));
+        }
+    }
+
+    // ============================================================
+    // INFRAESTRUCTURA COMÚN
+    // ============================================================
+
+    private ImportReportDTO importCsv(InputStream csv, List<String> columns, ChunkImporter importer) {
+        ImportReport report = new ImportReport();
+        try {
+            CsvReader reader = new CsvReader(new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8)));
+            checkHeader(reader.next(), columns);
+
+            List<CsvRow> chunk = new ArrayList<>(chunkSize);
+            for (CsvRow row = reader.next(); row != null; row = reader.next()) {
+                report.row();
+                chunk.add(row);
+                if (chunk.size() == chunkSize) {
+                    importer.importChunk(chunk, report);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                importer.importChunk(chunk, report);
+            }
+        } catch (IOException e) {
+            // Lo ya importado se queda: cada bloque va en su propia transacción
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "CSV no válido: " + e.getMessage());
+        }
+        return report.toDTO();
+    }
+
+    private static void checkHeader(CsvRow header, List<String> columns) {
+        if (header == null || header.values().size() < columns.size()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "La cabecera debe ser: " + String.join(",", columns));
+        }
+        for (int i = 0; i < columns.size(); i++) {
+            if (!columns.get(i).equalsIgnoreCase(header.values().get(i).trim())) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "La cabecera debe ser: " + String.join(",", columns));
+            }
+        }
+    }
+
+    // Convierte cada fila; las que no validan se anotan en el informe y se descartan
+    private static <R> List<R> parse(List<CsvRow> chunk, ImportReport report, RowParser<R> parser) {
+        List<R> rows = new ArrayList<>(chunk.size());
+        for (CsvRow row : chunk) {
+            try {
+                rows.add(parser.parse(row));
+            } catch (InvalidRowException e) {
+                report.fail(row.line(), e.getMessage());
+            }
+        }
+        return rows;
+    }
+
+    private static <R extends ImportRow> List<R> rejectIf(List<R> rows, ImportReport report,
+                                                         Predicate<R> rejected,
+                                                         Function<R, String> message) {
+        List<R> accepted = new ArrayList<>(rows.size());
+        for (R row : rows) {
+            if (rejected.test(row)) {
+                report.fail(row.line(), message.apply(row));
+            } else {
+                accepted.add(row);
+            }
+        }
+        return accepted;
+    }
+
+    // Guarda el bloque en una transacción. Si falla (p.ej. un email duplicado que ha llegado por otra vía),
+    // lo repetimos fila a fila para guardar las buenas e informar solo de las que fallan.
+    private <R extends ImportRow> void persist(List<R> rows, ImportReport report, Consumer<List<R>> writer) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> writer.accept(rows));
+            report.imported(rows.size());
+        } catch (RuntimeException chunkError) {
+            for (R row : rows) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> writer.accept(List.of(row)));
+                    report.imported(1);
+                } catch (RuntimeException rowError) {
+                    report.fail(row.line(), rootMessage(rowError));
+                }
+            }
+        }
+    }
+
+    private static String required(CsvRow row, int index, String column) {
+        String value = row.get(index);
+        if (value == null) {
+            throw new InvalidRowException("Falta el campo " + column);
+        }
+        return value;
+    }
+
+    // Obligatoria (una contraseña en blanco llega como null) y dentro del límite de BCrypt
+    private static String password(CsvRow row, int index) {
+        String value = required(row, index, "password");
+        if (value.getBytes(StandardCharsets.UTF_8).length > MAX_PASSWORD_BYTES) {
+            throw new InvalidRowException("La contraseña no puede superar " + MAX_PASSWORD_BYTES + " bytes");
+        }
+        return value;
+    }
+
+    private static LocalDate parseDate(CsvRow row, int index) {
+        String value = row.get(index);
+        try {
+            return value == null ? null : LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new InvalidRowException("Fecha no válida (yyyy-MM-dd): " + value);
+        }
+    }
+
+    private static LocalDateTime parseDateTime(CsvRow row, int index) {
+        String value = required(row, index, "dateTime");
+        try {
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new InvalidRowException("Fecha y hora no válida (yyyy-MM-ddTHH:mm): " + value);
+        }
+    }
+
+    private static AppointmentStatus parseStatus(CsvRow row, int index) {
+        String value = required(row, index, "status");
+        try {
+            return AppointmentStatus.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRowException("Estado no válido: " + value);
+        }
+    }
+
+    private static String rootMessage(Throwable error) {
+        Throwable root = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        return root.getMessage() != null ? root.getMessage() : root.getClass().getSimpleName();
+    }
+
+    @FunctionalInterface
+    private interface ChunkImporter {
+        void importChunk(List<CsvRow> chunk, ImportReport report);
+    }
+
+    @FunctionalInterface
+    private interface RowParser<R> {
+        R parse(CsvRow row);
+    }
+
+    private interface ImportRow {
+        long line();
+    }
+
+    private record OwnerRow(long line, String email, String password, String firstName, String lastName,
+                            String phone, String address, String passwordHash) implements ImportRow {
+        OwnerRow withPasswordHash(String hash) {
+            return new OwnerRow(line, email, null, firstName, lastName, phone, address, hash);
+        }
+    }
+
+    private record PetRow(long line, String ownerEmail, String name, LocalDate birthDate, String photoUrl,
+                          Long ownerId) implements ImportRow {
+        PetRow withOwnerId(Long id) {
+            return new PetRow(line, ownerEmail, name, birthDate, photoUrl, id);
+        }
+    }
+
+    private record AppointmentRow(long line, String ownerEmail, String petName, String veterinarianEmail,
+                                  MedicalTreatment treatment, LocalDateTime dateTime, AppointmentStatus status,
+                                  String diagnosis, Long petId, Long veterinarianId) implements ImportRow {
+        AppointmentRow withIds(Long pet, Long vet) {
+            return new AppointmentRow(line, ownerEmail, petName, veterinarianEmail, treatment, dateTime, status,
+                    diagnosis, pet, vet);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.luis.petalthbackend.service;
+
+import com.luis.petalthbackend.entity.Appointment;
+import com.luis.petalthbackend.entity.AppointmentStatus;
+import com.luis.petalthbackend.entity.Invoice;
+import com.luis.petalthbackend.entity.InvoiceOutbox;
+import com.luis.petalthbackend.entity.InvoiceStatus;
+import com.luis.petalthbackend.repository.AppointmentRepository;
+import com.luis.petalthbackend.repository.InvoiceOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Vacía la bandeja de salida de facturas (InvoiceOutbox) por lotes: por cada cita COMPLETED crea la factura
+// UNPAID con el precio base del tratamiento. Así el PATCH de estado solo añade un INSERT a su transacción.
+// Cada lote es una transacción: bloquea sus entradas con SKIP LOCKED (varias instancias reparten el trabajo),
+// inserta las facturas en lote (batch_size de Hibernate) y borra las entradas. Es idempotente: una cita que ya
+// tiene factura, que ya no está COMPLETED o que no existe se descarta sin crear nada.
+@Service
+@ConditionalOnProperty(name = "invoice-outbox.enabled", havingValue = "true", matchIfMissing = true)
+public class InvoiceOutboxWorker {
+
+    private static final Logger log = LoggerFactory.getLogger(InvoiceOutboxWorker.class);
+
+    private final InvoiceOutboxRepository outboxRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final RollupService rollupService;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Timer batchTimer;
+    private final Counter created;
+    private final Counter duplicates;
+    private final Counter skipped;
+    private final AtomicLong lagSeconds = new AtomicLong();
+
+    public InvoiceOutboxWorker(InvoiceOutboxRepository outboxRepository,
+                               AppointmentRepository appointmentRepository,
+                               RollupService rollupService,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${invoice-outbox.batch-size:200}") int batchSize,
+                               MeterRegistry meterRegistry) {
+        this.outboxRepository = outboxRepository;
+        this.appointmentRepository = appointmentRepository;
+        this.rollupService = rollupService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.batchTimer = Timer.builder("invoice.outbox.batch")
+                .description("Duración de cada lote de la bandeja de facturas")
+                .register(meterRegistry);
+        this.created = processed(meterRegistry, "created");
+        this.duplicates = processed(meterRegistry, "duplicate");
+        this.skipped = processed(meterRegistry, "skipped");
+        Gauge.builder("invoice.outbox.lag", lagSeconds, AtomicLong::get)
+                .description("Antigüedad de la entrada pendiente más antigua tras la última pasada")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    private static Counter processed(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("invoice.outbox.processed")
+                .description("Entradas de la bandeja de facturas procesadas")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    // Pasadas periódicas: procesa lotes hasta vaciar la bandeja (o hasta que lo que queda lo tengan otros workers)
+    @Scheduled(fixedDelayString = "${invoice-outbox.poll-interval:5s}")
+    public void drain() {
+        int processed;
+        do {
+            processed = processBatch();
+        } while (processed == batchSize);
+
+        lagSeconds.set(outboxRepository.findOldestCreatedAt()
+                .map(oldest -> Math.max(0, Duration.between(oldest, LocalDateTime.now()).toSeconds()))
+                .orElse(0L));
+    }
+
+    // Devuelve cuántas entradas se han procesado en el lote
+    public int processBatch() {
+        BatchResult result = batchTimer.record(() -> {
+            try {
+                return transactionTemplate.execute(status -> invoiceNextBatch());
+            } catch (DataIntegrityViolationException e) {
+                // Otro worker facturó la misma cita a la vez (dos entradas de la misma cita en lotes distintos).
+                // Al repetir el lote su factura ya está confirmada y la entrada se descarta como duplicada.
+                log.info("Lote de facturas repetido tras una factura duplicada: {}", e.getMostSpecificCause().getMessage());
+                return transactionTemplate.execute(status -> invoiceNextBatch());
+            }
+        });
+        // Las métricas solo cuentan lotes confirmados
+        created.increment(result.created());
+        duplicates.increment(result.duplicates());
+        skipped.increment(result.skipped());
+        return result.total();
+    }
+
+    private BatchResult invoiceNextBatch() {
+        List<InvoiceOutbox> entries = outboxRepository.lockNextBatch(Limit.of(batchSize));
+        if (entries.isEmpty()) {
+            return new BatchResult(0, 0, 0);
+        }
+        Set<Long> ids = entries.stream().map(InvoiceOutbox::getAppointmentId).collect(Collectors.toSet());
+        Map<Long, Appointment> appointments = appointmentRepository.findForInvoicing(ids).stream()
+                .collect(Collectors.toMap(Appointment::getId, Function.identity()));
+
+        LocalDateTime now = LocalDateTime.now();
+        Set<Long> invoiced = new HashSet<>();
+        int createdCount = 0;
+        int duplicateCount = 0;
+        int skippedCount = 0;
+        for (InvoiceOutbox entry : entries) {
+            Appointment appointment = appointments.get(entry.getAppointmentId());
+            if (appointment == null || appointment.getStatus() != AppointmentStatus.COMPLETED) {
+                skippedCount++;
+            } else if (appointment.getInvoice() != null || !invoiced.add(appointment.getId())) {
+                duplicateCount++;
+            } else {
+                // CascadeType.ALL en Appointment.invoice: la factura se inserta en el flush del commit
+                Invoice invoice = Invoice.builder()
+                        .issueDate(now)
+                        .amount(priceOf(appointment))
+                        .status(InvoiceStatus.UNPAID)
+                        .build();
+                appointment.addInvoice(invoice);
+                rollupService.invoiceCreated(appointment.getVeterinarian().getId(), appointment.getService().getId(),
+                        invoice.getIssueDate(), invoice.getStatus(), invoice.getAmount());
+                createdCount++;
+            }
+        }
+        outboxRepository.deleteAllInBatch(entries);
+        return new BatchResult(createdCount, duplicateCount, skippedCount);
+    }
+
+    private static BigDecimal priceOf(Appointment appointment) {
+        BigDecimal price = appointment.getService().getPrice();
+        if (price == null) {
+            log.warn("El tratamiento {} no tiene precio: factura de la cita {} a 0",
+                    appointment.getService().getId(), appointment.getId());
+            return BigDecimal.ZERO;
+        }
+        return price;
+    }
+
+    private record BatchResult(int created, int duplicates, int skipped) {
+        int total() {
+            return created + duplicates + skipped;
+        }
+    }
+}
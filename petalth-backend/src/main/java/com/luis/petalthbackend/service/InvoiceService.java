@@ -1,30 +1,64 @@
 package com.luis.petalthbackend.service;
 
+import com.luis.petalthbackend.dto.response.CursorPage;
 import com.luis.petalthbackend.dto.response.InvoiceDTO;
+import com.luis.petalthbackend.entity.Appointment;
+import com.luis.petalthbackend.entity.Invoice;
+import com.luis.petalthbackend.entity.InvoiceStatus;
+import com.luis.petalthbackend.pagination.Keyset;
+import com.luis.petalthbackend.pagination.KeysetCursor;
+import com.luis.petalthbackend.repository.ArchiveRepository;
 import com.luis.petalthbackend.repository.InvoiceRepository;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 @Service
 public class InvoiceService {
     private final InvoiceRepository invoiceRepository;
+    private final RollupService rollupService;
+    private final ArchiveRepository archiveRepository;
 
-    public InvoiceService(InvoiceRepository invoiceRepository) {
+    public InvoiceService(InvoiceRepository invoiceRepository, RollupService rollupService,
+                          ArchiveRepository archiveRepository) {
         this.invoiceRepository = invoiceRepository;
+        this.rollupService = rollupService;
+        this.archiveRepository = archiveRepository;
     }
 
+    // Con includeHistory también se leen las facturas archivadas (invoice_archive)
     @Transactional(readOnly = true)
-    public List<InvoiceDTO> getAllInvoices() {
-        return invoiceRepository.findAll()
-                .stream()
-                .map(inv -> new InvoiceDTO(
-                        inv.getId(),
-                        inv.getIssueDate(),
-                        inv.getAmount().doubleValue(),
-                        inv.getStatus().name()
-                ))
-                .toList();
+    public List<InvoiceDTO> getAllInvoices(boolean includeHistory) {
+        List<InvoiceDTO> invoices = new ArrayList<>(includeHistory ? archiveRepository.findAllInvoices() : List.of());
+        invoices.addAll(invoiceRepository.findAllAsDTO());
+        return invoices;
     }
-}
\ No newline at end of file
+
+    // Paginación por cursor (issueDate, id) con filtros opcionales de estado y rango de fechas
+    @Transactional(readOnly = true)
+    public CursorPage<InvoiceDTO> getInvoicesPage(String cursor, Integer size, InvoiceStatus status,
+                                                  LocalDateTime from, LocalDateTime to) {
+        int pageSize = Keyset.pageSize(size);
+        List<InvoiceDTO> rows = invoiceRepository.findPage(
+                status, from, to, KeysetCursor.decode(cursor), pageSize + 1);
+        return Keyset.toPage(rows, pageSize, dto -> new KeysetCursor(dto.issueDate(), dto.id()));
+    }
+
+    // Marca la factura como pagada. Idempotente: pagar una factura ya pagada no cambia nada (ni los resúmenes)
+    @Transactional
+    public InvoiceDTO markAsPaid(Long id) {
+        Invoice invoice = invoiceRepository.findById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Factura no encontrada"));
+        if (invoiceRepository.updateStatus(id, InvoiceStatus.UNPAID, InvoiceStatus.PAID) == 1) {
+            Appointment appointment = invoice.getAppointment();
+            rollupService.invoiceStatusChanged(appointment.getVeterinarian().getId(), appointment.getService().getId(),
+                    invoice.getIssueDate(), InvoiceStatus.UNPAID, InvoiceStatus.PAID, invoice.getAmount());
+        }
+        return new InvoiceDTO(invoice.getId(), invoice.getIssueDate(), invoice.getAmount(), InvoiceStatus.PAID.name());
+    }
+}
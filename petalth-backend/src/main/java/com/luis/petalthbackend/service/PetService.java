@@ -1,10 +1,14 @@
 package com.luis.petalthbackend.service;
 
+import com.luis.petalthbackend.cache.InvalidationBus;
+import com.luis.petalthbackend.cache.InvalidationMessage;
+import com.luis.petalthbackend.cache.ResourceVersions;
 import com.luis.petalthbackend.dto.request.PetRequest;
 import com.luis.petalthbackend.dto.response.PetResponse;
 import com.luis.petalthbackend.entity.Owner;
 import com.luis.petalthbackend.entity.Pet;
 import com.luis.petalthbackend.entity.User;
+import com.luis.petalthbackend.replica.RecentInvalidations;
 import com.luis.petalthbackend.repository.OwnerRepository;
 import com.luis.petalthbackend.repository.PetRepository;
 import com.luis.petalthbackend.repository.UserRepository;
@@ -19,16 +23,26 @@ public class PetService {
     private final PetRepository petRepository;
     private final OwnerRepository ownerRepository;
     private final UserRepository userRepository;
+    private final ResourceVersions resourceVersions;
+    private final InvalidationBus invalidationBus;
+    private final RecentInvalidations recentInvalidations;
 
-    public PetService(PetRepository petRepository, OwnerRepository ownerRepository, UserRepository userRepository) {
+    public PetService(PetRepository petRepository, OwnerRepository ownerRepository, UserRepository userRepository,
+                      ResourceVersions resourceVersions, InvalidationBus invalidationBus,
+                      RecentInvalidations recentInvalidations) {
         this.petRepository = petRepository;
         this.ownerRepository = ownerRepository;
         this.userRepository = userRepository;
+        this.resourceVersions = resourceVersions;
+        this.invalidationBus = invalidationBus;
+        this.recentInvalidations = recentInvalidations;
     }
 
     // Se usa en metodos donde se hace SELECT
     @Transactional(readOnly = true)
     public List<PetResponse> getOwnerPets(Long ownerId) {
+        // Respalda el ETag de /api/pets/owner/{ownerId}: recién cambiado, de la primaria
+        recentInvalidations.readFromPrimaryIfInvalidated(ResourceVersions.ownerPetsResource(ownerId));
         return petRepository.findByOwnerIdWithOwner(ownerId)
                 .stream()
                 .map(pet -> new PetResponse(
@@ -60,6 +74,9 @@ public class PetService {
         owner.addPet(pet);
 
         Pet savedPet = petRepository.save(pet);
+        // Nueva versión del listado de mascotas del dueño (ETag de GET /api/pets/owner/{ownerId})
+        resourceVersions.ownerPetsChangedAfterCommit(owner.getId());
+        invalidationBus.publishAfterCommit(InvalidationMessage.ownerPets(owner.getId()));
 
         return new PetResponse(
                 savedPet.getId(),
@@ -88,6 +105,8 @@ public class PetService {
 
         // 4. Guardamos y devolvemos la respuesta
         Pet updatedPet = petRepository.save(pet);
+        resourceVersions.ownerPetsChangedAfterCommit(updatedPet.getOwner().getId());
+        invalidationBus.publishAfterCommit(InvalidationMessage.ownerPets(updatedPet.getOwner().getId()));
 
         return new PetResponse(
                 updatedPet.getId(),
@@ -116,6 +135,8 @@ public class PetService {
         // Borrado lógico, no borramos de la BDD si no que lo marcamos como inactivo
         pet.setActive(false); // La marcamos como inactiva
         petRepository.save(pet); // Guardamos el cambio
+        resourceVersions.ownerPetsChangedAfterCommit(pet.getOwner().getId());
+        invalidationBus.publishAfterCommit(InvalidationMessage.ownerPets(pet.getOwner().getId()));
     }
 
 
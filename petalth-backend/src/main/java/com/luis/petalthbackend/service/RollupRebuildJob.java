@@ -0,0 +1,102 @@
+package com.luis.petalthbackend.service;
+
+import com.luis.petalthbackend.dto.response.RollupRebuildStatusDTO;
+import com.luis.petalthbackend.repository.RollupRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Recalcula los resúmenes diarios desde invoice y appointment (backfill tras una carga masiva, tras añadir
+// el panel a una BDD con histórico o si se sospecha que se han desviado). Un día por transacción: no bloquea
+// las tablas durante todo el recálculo y el progreso es visible. Solo se ejecuta un recálculo a la vez.
+@Service
+public class RollupRebuildJob {
+
+    private static final Logger log = LoggerFactory.getLogger(RollupRebuildJob.class);
+
+    private final RollupRepository rollupRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(
+            new CustomizableThreadFactory("rollup-rebuild-"));
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile RollupRebuildStatusDTO status =
+            new RollupRebuildStatusDTO(false, null, null, 0, 0, null, null, null);
+
+    public RollupRebuildJob(RollupRepository rollupRepository, PlatformTransactionManager transactionManager) {
+        this.rollupRepository = rollupRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // Lanza el recálculo en segundo plano. Sin fechas, cubre desde la primera hasta la última cita o factura.
+    public RollupRebuildStatusDTO start(LocalDate from, LocalDate to) {
+        if (!running.compareAndSet(false, true)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Ya hay un recálculo en curso");
+        }
+        try {
+            RollupRepository.DateRange dataRange = (from == null || to == null)
+                    ? transactionTemplate.execute(s -> rollupRepository.findDataRange().orElse(null))
+                    : null;
+            LocalDate first = from != null ? from : dataRange != null ? dataRange.from() : LocalDate.now();
+            LocalDate last = to != null ? to : dataRange != null ? dataRange.to() : LocalDate.now();
+            if (last.isBefore(first)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "'to' no puede ser anterior a 'from'");
+            }
+            int days = (int) ChronoUnit.DAYS.between(first, last) + 1;
+            status = new RollupRebuildStatusDTO(true, first, last, 0, days, LocalDateTime.now(), null, null);
+            runner.submit(() -> rebuild(first, last));
+            return status;
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+    }
+
+    public RollupRebuildStatusDTO status() {
+        return status;
+    }
+
+    private void rebuild(LocalDate first, LocalDate last) {
+        RollupRebuildStatusDTO started = status;
+        int done = 0;
+        long rows = 0;
+        try {
+            for (LocalDate day = first; !day.isAfter(last); day = day.plusDays(1)) {
+                LocalDate current = day;
+                rows += transactionTemplate.execute(s -> rollupRepository.rebuildDay(current));
+                done++;
+                status = progress(started, done, false, null);
+            }
+            log.info("Resúmenes del panel recalculados: {} días ({} - {}), {} filas", done, first, last, rows);
+            status = progress(started, done, true, null);
+        } catch (RuntimeException e) {
+            log.error("Error recalculando los resúmenes del panel ({} - {})", first, last, e);
+            status = progress(started, done, true, e.getMessage());
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private static RollupRebuildStatusDTO progress(RollupRebuildStatusDTO started, int done, boolean finished,
+                                                   String error) {
+        return new RollupRebuildStatusDTO(!finished, started.from(), started.to(), done, started.daysTotal(),
+                started.startedAt(), finished ? LocalDateTime.now() : null, error);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        runner.shutdownNow();
+    }
+}
@@ -0,0 +1,139 @@
+package com.luis.petalthbackend.service;
+
+import com.luis.petalthbackend.dto.request.RollupGroupBy;
+import com.luis.petalthbackend.dto.response.RevenueRollupDTO;
+import com.luis.petalthbackend.dto.response.WorkloadRollupDTO;
+import com.luis.petalthbackend.entity.AppointmentStatus;
+import com.luis.petalthbackend.entity.InvoiceStatus;
+import com.luis.petalthbackend.entity.RevenueRollupKey;
+import com.luis.petalthbackend.entity.WorkloadRollupKey;
+import com.luis.petalthbackend.event.AppointmentChangedEvent;
+import com.luis.petalthbackend.repository.RollupRepository;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Mantiene los resúmenes diarios del panel de forma incremental: cada cambio de cita o factura suma (o resta)
+// su parte en la fila de su día. Los deltas se acumulan durante la transacción del cambio y se escriben justo
+// antes del commit, agrupados por fila: el resumen se confirma o se deshace junto con el cambio, y una
+// importación de miles de citas hace un upsert por fila del resumen, no uno por cita.
+@Service
+public class RollupService {
+
+    private final RollupRepository rollupRepository;
+
+    public RollupService(RollupRepository rollupRepository) {
+        this.rollupRepository = rollupRepository;
+    }
+
+    private static final int DEFAULT_DAYS = 30;
+
+    // El coste depende de los días del rango y de las filas de cada día, no del número de facturas o citas
+    @Transactional(readOnly = true)
+    public List<RevenueRollupDTO> getRevenue(LocalDate from, LocalDate to, RollupGroupBy groupBy, InvoiceStatus status) {
+        LocalDate last = to != null ? to : LocalDate.now();
+        LocalDate first = from != null ? from : last.minusDays(DEFAULT_DAYS - 1);
+        checkRange(first, last);
+        return rollupRepository.findRevenue(first, last, groupBy, status);
+    }
+
+    @Transactional(readOnly = true)
+    public List<WorkloadRollupDTO> getWorkload(LocalDate from, LocalDate to, RollupGroupBy groupBy,
+                                               AppointmentStatus status) {
+        LocalDate last = to != null ? to : LocalDate.now();
+        LocalDate first = from != null ? from : last.minusDays(DEFAULT_DAYS - 1);
+        checkRange(first, last);
+        return rollupRepository.findWorkload(first, last, groupBy, status);
+    }
+
+    private static void checkRange(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "'to' no puede ser anterior a 'from'");
+        }
+    }
+
+    // Síncrono, en la transacción de quien publica (no @TransactionalEventListener)
+    @EventListener
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        if (event.veterinarianId() == null || event.treatmentId() == null || event.dateTime() == null
+                || event.newStatus() == event.previousStatus()) {
+            return;
+        }
+        long minutes = event.durationMinutes() != null ? event.durationMinutes() : 0;
+        record(deltas -> {
+            if (event.previousStatus() != null) {
+                deltas.addWorkload(workloadKey(event, event.previousStatus()), -1, -minutes);
+            }
+            deltas.addWorkload(workloadKey(event, event.newStatus()), 1, minutes);
+        });
+    }
+
+    public void invoiceCreated(Long veterinarianId, Long treatmentId, LocalDateTime issueDate,
+                               InvoiceStatus status, BigDecimal amount) {
+        if (veterinarianId == null || treatmentId == null || issueDate == null) {
+            return;
+        }
+        RevenueRollupKey key = new RevenueRollupKey(issueDate.toLocalDate(), veterinarianId, treatmentId, status);
+        record(deltas -> deltas.addRevenue(key, 1, amountOf(amount)));
+    }
+
+    public void invoiceStatusChanged(Long veterinarianId, Long treatmentId, LocalDateTime issueDate,
+                                     InvoiceStatus previousStatus, InvoiceStatus newStatus, BigDecimal amount) {
+        if (veterinarianId == null || treatmentId == null || issueDate == null || previousStatus == newStatus) {
+            return;
+        }
+        record(deltas -> {
+            deltas.addRevenue(new RevenueRollupKey(issueDate.toLocalDate(), veterinarianId, treatmentId,
+                    previousStatus), -1, amountOf(amount).negate());
+            deltas.addRevenue(new RevenueRollupKey(issueDate.toLocalDate(), veterinarianId, treatmentId,
+                    newStatus), 1, amountOf(amount));
+        });
+    }
+
+    // Acumula en los deltas de la transacción actual (se aplican en beforeCommit). Sin transacción, al momento.
+    private void record(Consumer<RollupRepository.Deltas> change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            RollupRepository.Deltas deltas = new RollupRepository.Deltas();
+            change.accept(deltas);
+            rollupRepository.apply(deltas);
+            return;
+        }
+        RollupRepository.Deltas deltas = (RollupRepository.Deltas) TransactionSynchronizationManager.getResource(this);
+        if (deltas == null) {
+            RollupRepository.Deltas created = new RollupRepository.Deltas();
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    rollupRepository.apply(created);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(RollupService.this);
+                }
+            });
+            deltas = created;
+        }
+        change.accept(deltas);
+    }
+
+    private static WorkloadRollupKey workloadKey(AppointmentChangedEvent event, AppointmentStatus status) {
+        return new WorkloadRollupKey(event.dateTime().toLocalDate(), event.veterinarianId(), event.treatmentId(),
+                status);
+    }
+
+    private static BigDecimal amountOf(BigDecimal amount) {
+        return amount != null ? amount : BigDecimal.ZERO;
+    }
+}
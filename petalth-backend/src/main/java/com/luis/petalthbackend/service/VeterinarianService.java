@@ -1,7 +1,13 @@
 package com.luis.petalthbackend.service;
 
+import com.luis.petalthbackend.cache.ResourceVersions;
+import com.luis.petalthbackend.dto.response.CursorPage;
 import com.luis.petalthbackend.dto.response.VeterinarianDTO;
+import com.luis.petalthbackend.pagination.Keyset;
+import com.luis.petalthbackend.pagination.KeysetCursor;
+import com.luis.petalthbackend.replica.RecentInvalidations;
 import com.luis.petalthbackend.repository.VeterinarianRepository;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional; // <-- Importamos Transactional
 
@@ -10,21 +16,33 @@ import java.util.List;
 @Service
 public class VeterinarianService {
     private final VeterinarianRepository veterinarianRepository;
+    private final RecentInvalidations recentInvalidations;
 
-    public VeterinarianService(VeterinarianRepository veterinarianRepository) {
+    public VeterinarianService(VeterinarianRepository veterinarianRepository,
+                               RecentInvalidations recentInvalidations) {
         this.veterinarianRepository = veterinarianRepository;
+        this.recentInvalidations = recentInvalidations;
     }
 
-    // Le añadimos el Transactional para asegurar que puede acceder a vet.getUser() sin errores
+    // Proyección al DTO con JOIN al usuario en una sola consulta (findAll() + getUser() era una consulta por fila)
     @Transactional(readOnly = true)
     public List<VeterinarianDTO> getAllVets() {
-        return veterinarianRepository.findAll()
-                .stream()
-                .map(vet -> new VeterinarianDTO(
-                        vet.getId(),
-                        vet.getUser().getFirstName() + " " + vet.getUser().getLastName(),
-                        vet.getSpeciality(),
-                        vet.getUser().isActive()
-                )).toList();
+        // Respalda el ETag de /api/veterinarians: recién cambiado, de la primaria
+        recentInvalidations.readFromPrimaryIfInvalidated(ResourceVersions.VETERINARIANS);
+        return veterinarianRepository.findAllAsDTO();
+    }
+
+    // Paginación por cursor sobre el id, opcionalmente filtrando por activos/inactivos
+    @Transactional(readOnly = true)
+    public CursorPage<VeterinarianDTO> getVetsPage(String cursor, Integer size, Boolean active) {
+        int pageSize = Keyset.pageSize(size);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        long afterId = after == null ? 0L : after.id();
+        Limit limit = Limit.of(pageSize + 1);
+
+        List<VeterinarianDTO> rows = active == null
+                ? veterinarianRepository.findPageAfter(afterId, limit)
+                : veterinarianRepository.findPageAfterByActive(afterId, active, limit);
+        return Keyset.toPage(rows, pageSize, dto -> new KeysetCursor(null, dto.id()));
     }
 }
\ No newline at end of file
@@ -2,13 +2,15 @@
 -- 1. TRATAMIENTOS / SERVICIOS MÉDICOS (Tabla:  medical_treatment)
 -- =================================================================================
 
-INSERT INTO medical_treatment (id, name, description, duration_minutes, active) VALUES
-(1, 'Consulta General', 'Revisión básica de salud y constantes', 30, true),
-(2, 'Vacunación Rabia', 'Administración de vacuna anual obligatoria', 15, true),
-(3, 'Cirugía Tejidos Blandos', 'Esterilizaciones y suturas complejas', 120, true),
-(4, 'Limpieza Dental', 'Limpieza con ultrasonidos bajo sedación', 60, true),
-(5, 'Fisioterapia', 'Rehabilitación post-operatoria', 45, false);
-
+INSERT INTO medical_treatment (id, name, description, duration_minutes, price, active) VALUES
+(1, 'Consulta General', 'Revisión básica de salud y constantes', 30, 45.00, true),
+(2, 'Vacunación Rabia', 'Administración de vacuna anual obligatoria', 15, 30.00, true),
+(3, 'Cirugía Tejidos Blandos', 'Esterilizaciones y suturas complejas', 120, 250.00, true),
+(4, 'Limpieza Dental', 'Limpieza con ultrasonidos bajo sedación', 60, 80.00, true),
+(5, 'Fisioterapia', 'Rehabilitación post-operatoria', 45, 60.00, false);
+
+-- Las secuencias las crea Hibernate con INCREMENT 50 (allocationSize) y el optimizador pooled-lo:
+-- RESTART WITH n hace que el siguiente bloque de ids empiece justo en n.
 ALTER SEQUENCE medical_treatment_id_seq RESTART WITH 6;
 
 
@@ -0,0 +1,69 @@
+package com.luis.petalthbackend.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+// Sin PostgreSQL: los buses no arrancan sus hilos y lo que un nodo deja en su cola se entrega a otro tal cual,
+// en el orden en que saldría. Commits concurrentes no pueden desordenar la secuencia (un hueco falso haría
+// resincronizar al resto de nodos y mandaría todas las lecturas a la primaria).
+class InvalidationBusOrderingTest {
+
+    private static final int PUBLISHERS = 8;
+    private static final int MESSAGES_PER_PUBLISHER = 5_000;
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+
+    @Test
+    void concurrentPublishersDoNotCauseGapResyncs() throws Exception {
+        InvalidationBus nodeA = bus(new SimpleMeterRegistry());
+        MeterRegistry registryB = new SimpleMeterRegistry();
+        InvalidationBus nodeB = bus(registryB);
+
+        ExecutorService executor = Executors.newFixedThreadPool(PUBLISHERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> publishers = new ArrayList<>();
+        for (int p = 0; p < PUBLISHERS; p++) {
+            publishers.add(executor.submit(() -> {
+                start.await();
+                for (long i = 0; i < MESSAGES_PER_PUBLISHER; i++) {
+                    // Sin transacción: se encola al momento, como tras cada commit
+                    nodeA.publishAfterCommit(InvalidationMessage.ownerPets(i));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> publisher : publishers) {
+            publisher.get();
+        }
+        executor.shutdown();
+
+        for (String payload : nodeA.drainOutgoing()) {
+            nodeB.receive(payload);
+        }
+
+        assertThat(registryB.get("cache.invalidation.resyncs").tag("reason", "gap").counter().count()).isZero();
+        assertThat(registryB.get("cache.invalidation.received").counter().count())
+                .isEqualTo(PUBLISHERS * MESSAGES_PER_PUBLISHER);
+    }
+
+    // Con URL de PostgreSQL para que esté activo; sin start() no se conecta a nada
+    private InvalidationBus bus(MeterRegistry meterRegistry) {
+        return new InvalidationBus("jdbc:postgresql://localhost:5432/unused", "", "", true,
+                PUBLISHERS * MESSAGES_PER_PUBLISHER, Duration.ofSeconds(10), Duration.ofSeconds(5),
+                mock(InvalidationHandler.class), jsonMapper, meterRegistry);
+    }
+}
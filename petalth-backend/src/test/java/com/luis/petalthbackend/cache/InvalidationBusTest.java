@@ -0,0 +1,168 @@
+package com.luis.petalthbackend.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Properties;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Dos "nodos" (dos buses) contra un PostgreSQL local. Solo se ejecuta si se indica la BDD, p. ej.:
+//   PETALTH_TEST_POSTGRES_URL=jdbc:postgresql://localhost:5432/petalth_db
+//   PETALTH_TEST_POSTGRES_USER=postgres PETALTH_TEST_POSTGRES_PASSWORD=... mvn test -Dtest=InvalidationBusTest
+@EnabledIfEnvironmentVariable(named = "PETALTH_TEST_POSTGRES_URL", matches = ".+")
+class InvalidationBusTest {
+
+    private static final String URL = System.getenv("PETALTH_TEST_POSTGRES_URL");
+    private static final String USER = System.getenv().getOrDefault("PETALTH_TEST_POSTGRES_USER", "postgres");
+    private static final String PASSWORD = System.getenv().getOrDefault("PETALTH_TEST_POSTGRES_PASSWORD", "");
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final RecordingHandler handlerA = new RecordingHandler();
+    private final RecordingHandler handlerB = new RecordingHandler();
+    private InvalidationBus nodeA;
+    private InvalidationBus nodeB;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        nodeA = bus(handlerA);
+        nodeB = bus(handlerB);
+        nodeA.start();
+        nodeB.start();
+        awaitListening();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        nodeA.stop();
+        nodeB.stop();
+    }
+
+    @Test
+    void deliversToOtherNodesButNotToItself() throws InterruptedException {
+        nodeA.publishAfterCommit(InvalidationMessage.ownerPets(7L));
+        nodeA.publishAfterCommit(InvalidationMessage.veterinarians());
+
+        assertThat(handlerB.next()).isEqualTo("OWNER_PETS:7");
+        assertThat(handlerB.next()).isEqualTo("VETERINARIANS:null");
+        assertThat(handlerA.events.poll(500, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    void gapInSequenceTriggersResync() throws Exception {
+        notifyRaw("other-node", 1, InvalidationMessage.ownerPets(1L));
+        notifyRaw("other-node", 1, InvalidationMessage.ownerPets(1L)); // Repetido: se ignora
+        notifyRaw("other-node", 3, InvalidationMessage.ownerPets(3L)); // Falta el 2
+
+        assertThat(handlerB.next()).isEqualTo("OWNER_PETS:1");
+        assertThat(handlerB.next()).isEqualTo("resync");
+        assertThat(handlerB.next()).isEqualTo("OWNER_PETS:3");
+        assertThat(handlerB.events.poll(500, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    void heartbeatDetectsLostLastMessage() throws Exception {
+        notifyRaw("other-node", 1, InvalidationMessage.ownerPets(1L));
+        notifyRaw("other-node", 1, null); // Latido sin novedades
+        // El 2 se pierde y el nodo no vuelve a cambiar nada: lo delata el latido
+        notifyRaw("other-node", 2, null);
+
+        assertThat(handlerB.next()).isEqualTo("OWNER_PETS:1");
+        assertThat(handlerB.next()).isEqualTo("resync");
+        assertThat(handlerB.events.poll(500, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    void heartbeatsWithoutLossesDoNotResync() throws InterruptedException {
+        nodeA.publishAfterCommit(InvalidationMessage.ownerPets(5L));
+
+        assertThat(handlerB.next()).isEqualTo("OWNER_PETS:5");
+        // Varios latidos de cada nodo (poll-interval de 200 ms)
+        assertThat(handlerA.events.poll(1, TimeUnit.SECONDS)).isNull();
+        assertThat(handlerB.events.poll(1, TimeUnit.SECONDS)).isNull();
+    }
+
+    @Test
+    void listenerReconnectTriggersResync() throws Exception {
+        try (Connection connection = connect();
+             PreparedStatement statement = connection.prepareStatement(
+                     "SELECT pg_terminate_backend(pid) FROM pg_stat_activity WHERE application_name = ?")) {
+            statement.setString(1, InvalidationBus.APPLICATION_NAME);
+            statement.executeQuery().close();
+        }
+
+        // Ambos nodos reconectan y, como se han podido perder mensajes, descartan sus cachés
+        assertThat(handlerA.next()).isEqualTo("resync");
+        assertThat(handlerB.next()).isEqualTo("resync");
+
+        // Tras reconectar sigue entregando
+        nodeA.publishAfterCommit(InvalidationMessage.ownerPets(9L));
+        assertThat(handlerB.next()).isEqualTo("OWNER_PETS:9");
+    }
+
+    private InvalidationBus bus(InvalidationHandler handler) {
+        return new InvalidationBus(URL, USER, PASSWORD, true, 100,
+                Duration.ofMillis(200), Duration.ofMillis(200), handler, jsonMapper, new SimpleMeterRegistry());
+    }
+
+    // Sin mensaje es un latido
+    private void notifyRaw(String node, long sequence, InvalidationMessage message) throws SQLException {
+        String payload = jsonMapper.writeValueAsString(new InvalidationBus.Envelope(node, sequence, message));
+        try (Connection connection = connect();
+             PreparedStatement statement = connection.prepareStatement("SELECT pg_notify(?, ?)")) {
+            statement.setString(1, InvalidationBus.CHANNEL);
+            statement.setString(2, payload);
+            statement.executeQuery().close();
+        }
+    }
+
+    // Espera a que los buses hayan hecho LISTEN: lo notificado antes no les llega
+    private void awaitListening() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!(nodeA.isListening() && nodeB.isListening())) {
+            assertThat(System.nanoTime()).as("listeners conectados a tiempo").isLessThan(deadline);
+            Thread.sleep(50);
+        }
+    }
+
+    private static Connection connect() throws SQLException {
+        Properties properties = new Properties();
+        properties.setProperty("user", USER);
+        properties.setProperty("password", PASSWORD);
+        properties.setProperty("ApplicationName", "petalth-invalidation-test");
+        return DriverManager.getConnection(URL, properties);
+    }
+
+    private static class RecordingHandler implements InvalidationHandler {
+
+        private final BlockingQueue<String> events = new LinkedBlockingQueue<>();
+
+        @Override
+        public void apply(InvalidationMessage message) {
+            events.add(message.type() + ":" + message.id());
+        }
+
+        @Override
+        public void resyncAll() {
+            events.add("resync");
+        }
+
+        String next() throws InterruptedException {
+            String event = events.poll(10, TimeUnit.SECONDS);
+            assertThat(event).as("evento recibido").isNotNull();
+            return event;
+        }
+    }
+}
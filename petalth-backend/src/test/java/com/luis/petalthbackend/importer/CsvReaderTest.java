@@ -0,0 +1,59 @@
+package com.luis.petalthbackend.importer;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CsvReaderTest {
+
+    @Test
+    void quotedFieldsWithCommasAndEscapedQuotes() throws IOException {
+        List<CsvRow> rows = readAll("name,address\n\"Pérez, Ana\",\"Calle \"\"Mayor\"\" 1\"\n");
+
+        assertThat(rows).hasSize(2);
+        assertThat(rows.get(1).values()).containsExactly("Pérez, Ana", "Calle \"Mayor\" 1");
+    }
+
+    @Test
+    void newlineInsideQuotesIsPartOfTheField() throws IOException {
+        List<CsvRow> rows = readAll("a,b\n\"línea 1\nlínea 2\",x\ny,z\n");
+
+        assertThat(rows).hasSize(3);
+        assertThat(rows.get(1).values()).containsExactly("línea 1\nlínea 2", "x");
+        // La fila siguiente empieza en la línea 4 del fichero: los errores se informan con la línea correcta
+        assertThat(rows.get(1).line()).isEqualTo(2);
+        assertThat(rows.get(2).line()).isEqualTo(4);
+    }
+
+    @Test
+    void crlfLineEndingsAndBlankLines() throws IOException {
+        List<CsvRow> rows = readAll("a,b\r\n1,2\r\n\r\n3,\r\n4,5");
+
+        assertThat(rows).extracting(CsvRow::values).containsExactly(
+                List.of("a", "b"), List.of("1", "2"), List.of("3", ""), List.of("4", "5"));
+        assertThat(rows).extracting(CsvRow::line).containsExactly(1L, 2L, 4L, 5L);
+        assertThat(rows.get(2).get(1)).isNull();
+    }
+
+    @Test
+    void unclosedQuoteIsAnError() {
+        assertThatThrownBy(() -> readAll("a,b\n\"sin cerrar,1\n"))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("línea 2");
+    }
+
+    private static List<CsvRow> readAll(String csv) throws IOException {
+        CsvReader reader = new CsvReader(new StringReader(csv));
+        List<CsvRow> rows = new ArrayList<>();
+        for (CsvRow row = reader.next(); row != null; row = reader.next()) {
+            rows.add(row);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,119 @@
+package com.luis.petalthbackend.monitoring;
+
+import com.luis.petalthbackend.config.SqlMonitorConfig;
+import com.luis.petalthbackend.entity.Owner;
+import com.luis.petalthbackend.entity.Pet;
+import com.luis.petalthbackend.entity.Rol;
+import com.luis.petalthbackend.entity.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jpa.test.autoconfigure.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// El filtro de verdad (con sql-monitor.fail-on-violation=true, como en los tests de integración) delante de un
+// controlador que lee las mascotas una a una: la petición tiene que fallar y decir qué sentencia se repite.
+@DataJpaTest(properties = {
+        "spring.sql.init.mode=never",
+        "entity-cache.enabled=false",
+        "sql-monitor.fail-on-violation=true",
+        "sql-monitor.max-repeated-statements=5"
+})
+@Import({SqlMonitorConfig.class, SqlMonitorFilter.class, SqlMonitorFilterTest.Metrics.class})
+class SqlMonitorFilterTest {
+
+    private static final int PETS = 10;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private SqlMonitorFilter sqlMonitorFilter;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        User user = entityManager.persist(User.builder()
+                .email("luis@owner.com").firstName("Luis").lastName("Rodríguez").rol(Rol.OWNER).build());
+        Owner owner = entityManager.persist(Owner.builder().user(user).build());
+        for (int i = 0; i < PETS; i++) {
+            Pet pet = Pet.builder().name("Pet " + i).birthDate(LocalDate.of(2020, 1, 1)).build();
+            owner.addPet(pet);
+            entityManager.persist(pet);
+        }
+        entityManager.flush();
+
+        mockMvc = MockMvcBuilders.standaloneSetup(new PetNamesController(entityManager.getEntityManager()))
+                .addFilters(sqlMonitorFilter)
+                .build();
+    }
+
+    @Test
+    void nPlusOneFailsTheRequest() {
+        assertThatThrownBy(() -> mockMvc.perform(get("/pet-names/one-by-one")))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Posible N+1 en GET /pet-names/one-by-one")
+                .hasMessageContaining("(" + PETS + "x)");
+    }
+
+    @Test
+    void singleQueryPasses() throws Exception {
+        mockMvc.perform(get("/pet-names")).andExpect(status().isOk());
+    }
+
+    @RestController
+    static class PetNamesController {
+
+        private final EntityManager entityManager;
+
+        PetNamesController(EntityManager entityManager) {
+            this.entityManager = entityManager;
+        }
+
+        @GetMapping("/pet-names")
+        List<String> names() {
+            return entityManager.createQuery("SELECT p.name FROM Pet p ORDER BY p.id", String.class)
+                    .getResultList();
+        }
+
+        // Una consulta por fila: lo que el filtro tiene que detectar
+        @GetMapping("/pet-names/one-by-one")
+        List<String> namesOneByOne() {
+            return entityManager.createQuery("SELECT p.id FROM Pet p ORDER BY p.id", Long.class)
+                    .getResultList()
+                    .stream()
+                    .map(id -> entityManager.createQuery("SELECT p.name FROM Pet p WHERE p.id = :id", String.class)
+                            .setParameter("id", id)
+                            .getSingleResult())
+                    .toList();
+        }
+    }
+
+    // @DataJpaTest no configura Micrometer
+    @TestConfiguration
+    static class Metrics {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.luis.petalthbackend.monitoring;
+
+import com.luis.petalthbackend.cache.InvalidationBus;
+import com.luis.petalthbackend.cache.ResourceVersions;
+import com.luis.petalthbackend.config.SqlMonitorConfig;
+import com.luis.petalthbackend.entity.*;
+import com.luis.petalthbackend.replica.RecentInvalidations;
+import com.luis.petalthbackend.repository.ArchiveRepository;
+import com.luis.petalthbackend.service.AppointmentService;
+import com.luis.petalthbackend.service.InvoiceService;
+import com.luis.petalthbackend.service.PetService;
+import com.luis.petalthbackend.service.RollupService;
+import com.luis.petalthbackend.service.VeterinarianService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jpa.test.autoconfigure.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Modo test del monitor de SQL: cuenta las sentencias de un listado con pocos datos y con muchos.
+// Si el número crece con los datos (una consulta por fila) el test falla y muestra la sentencia repetida.
+@DataJpaTest(properties = {"spring.sql.init.mode=never", "entity-cache.enabled=false"})
+@Import({SqlMonitorConfig.class, AppointmentService.class, ArchiveRepository.class, PetService.class,
+        ResourceVersions.class, RecentInvalidations.class, InvoiceService.class, VeterinarianService.class})
+class SqlStatementScalingTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private PetService petService;
+
+    @Autowired
+    private InvoiceService invoiceService;
+
+    @Autowired
+    private VeterinarianService veterinarianService;
+
+    // Sin PostgreSQL no hay otros nodos a los que avisar
+    @MockitoBean
+    private InvalidationBus invalidationBus;
+
+    // Solo se usa al cambiar el estado de una factura
+    @MockitoBean
+    private RollupService rollupService;
+
+    private MedicalTreatment treatment;
+    private Veterinarian vet;
+    private Owner owner;
+    private int created;
+
+    @BeforeEach
+    void setUp() {
+        treatment = entityManager.persist(MedicalTreatment.builder().name("Consulta General").durationMinutes(30).build());
+        User vetUser = entityManager.persist(User.builder()
+                .email("ana@vet.com").firstName("Ana").lastName("Pérez").rol(Rol.VET).build());
+        vet = entityManager.persist(Veterinarian.builder().user(vetUser).speciality("Medicina Interna").build());
+        User ownerUser = entityManager.persist(User.builder()
+                .email("luis@owner.com").firstName("Luis").lastName("Rodríguez").rol(Rol.OWNER).build());
+        owner = entityManager.persist(Owner.builder().user(ownerUser).build());
+    }
+
+    @Test
+    void getAllAppointmentsDoesNotGrowWithData() {
+        assertStatementsDoNotGrow(() -> appointmentService.getAllAppointments(false));
+    }
+
+    @Test
+    void getAppointmentsByVetEmailDoesNotGrowWithData() {
+        assertStatementsDoNotGrow(() -> appointmentService.getAppointmentsByVetEmail("ana@vet.com", false));
+    }
+
+    @Test
+    void getOwnerPetsDoesNotGrowWithData() {
+        assertStatementsDoNotGrow(() -> petService.getOwnerPets(owner.getId()));
+    }
+
+    @Test
+    void getAllInvoicesDoesNotGrowWithData() {
+        assertStatementsDoNotGrow(() -> invoiceService.getAllInvoices(false));
+    }
+
+    @Test
+    void getAllVetsDoesNotGrowWithData() {
+        assertStatementsDoNotGrow(() -> veterinarianService.getAllVets());
+    }
+
+    private void assertStatementsDoNotGrow(Runnable endpoint) {
+        addRows(2);
+        SqlStatementStats small = measure(endpoint);
+        assertThat(small.statements()).as("El inspector no ha visto ninguna sentencia").isPositive();
+
+        addRows(30);
+        SqlStatementStats large = measure(endpoint);
+
+        assertThat(large.statements())
+                .as("Sentencias con 32 filas frente a 2. Más repetida: %s", large.mostRepeated().orElse(null))
+                .isEqualTo(small.statements());
+    }
+
+    private SqlStatementStats measure(Runnable endpoint) {
+        // Nada pendiente de escribir ni servido desde el contexto de persistencia
+        entityManager.flush();
+        entityManager.clear();
+        SqlStatementStats stats = SqlStatementStats.begin();
+        try {
+            endpoint.run();
+        } finally {
+            SqlStatementStats.end();
+        }
+        return stats;
+    }
+
+    // Cada fila: una mascota con su cita y su factura, y un veterinario más
+    private void addRows(int count) {
+        Owner managedOwner = entityManager.find(Owner.class, owner.getId());
+        Veterinarian managedVet = entityManager.find(Veterinarian.class, vet.getId());
+        MedicalTreatment managedTreatment = entityManager.find(MedicalTreatment.class, treatment.getId());
+        for (int i = 0; i < count; i++, created++) {
+            Pet pet = Pet.builder().name("Pet " + created).birthDate(LocalDate.of(2020, 1, 1)).build();
+            managedOwner.addPet(pet);
+            entityManager.persist(pet);
+
+            Appointment appointment = Appointment.builder()
+                    .dateTime(LocalDateTime.of(2025, 10, 20, 9, 0).plusDays(created))
+                    .service(managedTreatment)
+                    .status(AppointmentStatus.PENDING)
+                    .build();
+            pet.addAppointment(appointment);
+            managedVet.addAppointment(appointment);
+            appointment.addInvoice(Invoice.builder()
+                    .issueDate(appointment.getDateTime())
+                    .amount(new BigDecimal("35.00"))
+                    .status(InvoiceStatus.UNPAID)
+                    .build());
+            entityManager.persist(appointment);
+
+            User vetUser = entityManager.persist(User.builder()
+                    .email("vet" + created + "@vet.com").firstName("Vet").lastName("Nº " + created).rol(Rol.VET).build());
+            entityManager.persist(Veterinarian.builder().user(vetUser).speciality("Cirugía").build());
+        }
+    }
+}
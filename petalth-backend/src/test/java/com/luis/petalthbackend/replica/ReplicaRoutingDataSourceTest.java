@@ -0,0 +1,114 @@
+package com.luis.petalthbackend.replica;
+
+import com.luis.petalthbackend.cache.ResourceVersions;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// La "réplica" es otra BDD H2 que nunca recibe los cambios: una réplica con todo el retraso posible (que el
+// monitor no detecta). Tras invalidar una caché, lo que la respalda tiene que leerse de la primaria.
+class ReplicaRoutingDataSourceTest {
+
+    // Ventana de RecentInvalidations: max-lag + lag-check-interval
+    private static final Duration MAX_LAG = Duration.ofMillis(500);
+    private static final Duration LAG_CHECK_INTERVAL = Duration.ofMillis(500);
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final DataSource primary = database("primary");
+    private final DataSource replica = database("replica");
+    private final RecentInvalidations recentInvalidations =
+            new RecentInvalidations("jdbc:h2:mem:replica", MAX_LAG, LAG_CHECK_INTERVAL);
+    private final ResourceVersions resourceVersions = new ResourceVersions(100, recentInvalidations);
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    void setUp() {
+        for (DataSource dataSource : new DataSource[]{primary, replica}) {
+            JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+            jdbc.execute("CREATE TABLE vet (id BIGINT PRIMARY KEY, active BOOLEAN)");
+            jdbc.update("INSERT INTO vet VALUES (1, TRUE)");
+        }
+        ReplicaLagMonitor lagMonitor = new ReplicaLagMonitor(replica, MAX_LAG, meterRegistry);
+        lagMonitor.check(); // Sin PostgreSQL el retraso medido es 0: la réplica se usa
+
+        DataSource dataSource = new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(
+                primary, replica, lagMonitor, recentInvalidations, Duration.ofSeconds(5), meterRegistry));
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @Test
+    void etagBackingReadAfterChangeGoesToPrimary() {
+        deactivateVet();
+
+        assertThat(readVetActive(ResourceVersions.VETERINARIANS)).as("leído de la primaria").isFalse();
+        assertThat(routed("recent-invalidation")).isEqualTo(1);
+        // Lo que no ha cambiado sigue en la réplica
+        assertThat(readVetActive(ResourceVersions.ownerPetsResource(5L))).as("leído de la réplica").isTrue();
+    }
+
+    @Test
+    void afterTheWindowReadsGoBackToTheReplica() throws InterruptedException {
+        deactivateVet();
+
+        Thread.sleep(MAX_LAG.plus(LAG_CHECK_INTERVAL).plusMillis(200));
+
+        assertThat(readVetActive(ResourceVersions.VETERINARIANS)).as("leído de la réplica").isTrue();
+    }
+
+    @Test
+    void fullInvalidationSendsEveryReadToPrimary() {
+        readWrite.executeWithoutResult(status -> {
+            jdbcTemplate.update("UPDATE vet SET active = FALSE WHERE id = 1");
+            // Como una resincronización o una expulsión de la caché de segundo nivel
+            resourceVersions.invalidateAll();
+        });
+
+        // Cualquier lectura, indique o no qué listado respalda
+        assertThat(readVetActive(ResourceVersions.ownerPetsResource(5L))).as("leído de la primaria").isFalse();
+        Boolean unmarkedRead = readOnly.execute(status ->
+                jdbcTemplate.queryForObject("SELECT active FROM vet WHERE id = 1", Boolean.class));
+        assertThat(unmarkedRead).as("leído de la primaria").isFalse();
+    }
+
+    // Escritura en la primaria que cambia el listado de veterinarios: su ETag sube tras el commit
+    private void deactivateVet() {
+        readWrite.executeWithoutResult(status -> {
+            jdbcTemplate.update("UPDATE vet SET active = FALSE WHERE id = 1");
+            resourceVersions.veterinariansChangedAfterCommit();
+        });
+    }
+
+    private Boolean readVetActive(String resource) {
+        return readOnly.execute(status -> {
+            recentInvalidations.readFromPrimaryIfInvalidated(resource);
+            return jdbcTemplate.queryForObject("SELECT active FROM vet WHERE id = 1", Boolean.class);
+        });
+    }
+
+    private double routed(String reason) {
+        return meterRegistry.get("datasource.routing").tag("reason", reason).counter().count();
+    }
+
+    private static DataSource database(String name) {
+        return new DriverManagerDataSource("jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+    }
+}
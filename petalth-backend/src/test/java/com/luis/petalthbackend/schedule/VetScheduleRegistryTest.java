@@ -0,0 +1,94 @@
+package com.luis.petalthbackend.schedule;
+
+import com.luis.petalthbackend.entity.AppointmentStatus;
+import com.luis.petalthbackend.event.AppointmentChangedEvent;
+import com.luis.petalthbackend.repository.AppointmentRepository;
+import com.luis.petalthbackend.repository.MedicalTreatmentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Cambios de citas que llegan mientras se reconstruyen las agendas desde la BDD: la lectura de la BDD puede
+// no verlos (o verlos ya), y en ningún caso deben perderse ni duplicarse al sustituir las agendas.
+class VetScheduleRegistryTest {
+
+    private static final Long VET = 1L;
+    private static final LocalDateTime START = LocalDateTime.now().plusDays(1).withHour(10).withMinute(0)
+            .withSecond(0).withNano(0);
+    private static final TimeInterval SLOT = TimeInterval.of(START, 30);
+
+    private final AppointmentRepository appointmentRepository = mock(AppointmentRepository.class);
+    private final MedicalTreatmentRepository medicalTreatmentRepository = mock(MedicalTreatmentRepository.class);
+    private VetScheduleRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        when(medicalTreatmentRepository.findMaxDurationMinutes()).thenReturn(30);
+        registry = new VetScheduleRegistry(appointmentRepository, medicalTreatmentRepository,
+                new WorkingHours(LocalTime.of(9, 0), LocalTime.of(18, 0), Duration.ofMinutes(30),
+                        EnumSet.allOf(DayOfWeek.class)));
+    }
+
+    @Test
+    void cancellationDuringRebuildIsNotLost() {
+        registry.onAppointmentChanged(changed(null, AppointmentStatus.PENDING));
+        // La lectura de la BDD es anterior a la cancelación, que se confirma mientras tanto
+        when(appointmentRepository.findScheduleFrom(any(), any())).thenAnswer(invocation -> {
+            registry.onAppointmentChanged(changed(AppointmentStatus.PENDING, AppointmentStatus.CANCELLED));
+            return List.of(pendingRow());
+        });
+
+        registry.rebuildFromDatabase();
+
+        assertThat(registry.isFree(VET, SLOT)).isTrue();
+    }
+
+    @Test
+    void bookingAlreadyReadDuringRebuildIsNotDuplicated() {
+        // La lectura de la BDD ya ve la cita nueva, cuyo evento llega durante la reconstrucción
+        when(appointmentRepository.findScheduleFrom(any(), any())).thenAnswer(invocation -> {
+            registry.onAppointmentChanged(changed(null, AppointmentStatus.PENDING));
+            return List.of(pendingRow());
+        });
+        registry.rebuildFromDatabase();
+
+        // Una sola cancelación libera el hueco
+        registry.onAppointmentChanged(changed(AppointmentStatus.PENDING, AppointmentStatus.CANCELLED));
+        assertThat(registry.isFree(VET, SLOT)).isTrue();
+    }
+
+    @Test
+    void failedRebuildKeepsCurrentSchedules() {
+        registry.onAppointmentChanged(changed(null, AppointmentStatus.PENDING));
+        when(appointmentRepository.findScheduleFrom(any(), any())).thenThrow(new IllegalStateException("BDD caída"));
+
+        try {
+            registry.rebuildFromDatabase();
+        } catch (IllegalStateException expected) {
+            // Se propaga, pero las agendas actuales siguen en uso
+        }
+
+        assertThat(registry.isFree(VET, SLOT)).isFalse();
+        registry.onAppointmentChanged(changed(AppointmentStatus.PENDING, AppointmentStatus.CANCELLED));
+        assertThat(registry.isFree(VET, SLOT)).isTrue();
+    }
+
+    private static AppointmentChangedEvent changed(AppointmentStatus from, AppointmentStatus to) {
+        return new AppointmentChangedEvent(10L, VET, 1L, START, 30, from, to);
+    }
+
+    private static ScheduledInterval pendingRow() {
+        return new ScheduledInterval(10L, VET, START, 30);
+    }
+}
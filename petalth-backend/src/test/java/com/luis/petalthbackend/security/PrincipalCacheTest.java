@@ -0,0 +1,62 @@
+package com.luis.petalthbackend.security;
+
+import com.luis.petalthbackend.entity.Rol;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Una carga del principal que se cruza con la desactivación del usuario no debe dejar cacheado el dato antiguo
+class PrincipalCacheTest {
+
+    private static final String EMAIL = "ana@vet.com";
+
+    private final PrincipalCache principalCache = new PrincipalCache(100, Duration.ofMinutes(5));
+
+    @Test
+    void loadRacingInvalidationIsNotCached() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch invalidated = new CountDownLatch(1);
+
+        // Petición A: no está en caché, lee el usuario todavía activo y se queda a mitad de la carga
+        CompletableFuture<CachedPrincipal> requestA = CompletableFuture.supplyAsync(() ->
+                principalCache.get(EMAIL, email -> {
+                    loading.countDown();
+                    await(invalidated);
+                    return principal(true);
+                }));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // Mientras tanto un admin lo desactiva (sin transacción el invalidate es inmediato)
+        principalCache.invalidateAfterCommit(EMAIL);
+        invalidated.countDown();
+
+        // A usa lo que leyó, pero no lo guarda: la siguiente petición vuelve a la BDD y ve la baja
+        assertThat(requestA.get(5, TimeUnit.SECONDS).active()).isTrue();
+        assertThat(principalCache.get(EMAIL, email -> principal(false)).active()).isFalse();
+    }
+
+    @Test
+    void loadWithoutInvalidationIsCached() {
+        principalCache.get(EMAIL, email -> principal(true));
+
+        assertThat(principalCache.get(EMAIL, email -> principal(false)).active()).isTrue();
+    }
+
+    private static CachedPrincipal principal(boolean active) {
+        return new CachedPrincipal(EMAIL, "{bcrypt}hash", active, Rol.VET);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
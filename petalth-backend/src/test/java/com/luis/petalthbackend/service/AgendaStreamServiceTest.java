@@ -0,0 +1,49 @@
+package com.luis.petalthbackend.service;
+
+import com.luis.petalthbackend.event.AgendaEventBus;
+import com.luis.petalthbackend.repository.AppointmentRepository;
+import com.luis.petalthbackend.repository.VeterinarianRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Un error leyendo la agenda no puede dejar la conexión abierta y la suscripción registrada sin nadie que la vacíe
+class AgendaStreamServiceTest {
+
+    private static final String EMAIL = "ana@vet.com";
+    private static final Long VET = 1L;
+
+    private final AppointmentRepository appointmentRepository = mock(AppointmentRepository.class);
+    private final VeterinarianRepository veterinarianRepository = mock(VeterinarianRepository.class);
+    private final AgendaEventBus eventBus = new AgendaEventBus(16, new SimpleMeterRegistry());
+    private final AgendaStreamService service = new AgendaStreamService(eventBus, appointmentRepository,
+            veterinarianRepository, Duration.ofMinutes(30), Duration.ofSeconds(25));
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void databaseErrorClosesTheSubscription() throws InterruptedException {
+        when(veterinarianRepository.findIdByUserEmail(EMAIL)).thenReturn(Optional.of(VET));
+        when(appointmentRepository.findAgendaByVeterinarianEmail(EMAIL))
+                .thenThrow(new DataAccessResourceFailureException("BDD caída"));
+
+        service.open(EMAIL);
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (eventBus.hasSubscribers(VET) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(eventBus.hasSubscribers(VET)).isFalse();
+    }
+}
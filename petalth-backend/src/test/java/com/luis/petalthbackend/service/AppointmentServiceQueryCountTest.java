@@ -0,0 +1,103 @@
+package com.luis.petalthbackend.service;
+
+import com.luis.petalthbackend.dto.response.AppointmentDTO;
+import com.luis.petalthbackend.entity.*;
+import com.luis.petalthbackend.repository.ArchiveRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jpa.test.autoconfigure.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Comprueba mediante las estadísticas de Hibernate que los listados de citas lanzan UNA sola sentencia SQL
+// independientemente del número de citas (sin N+1 Queries).
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.sql.init.mode=never",
+        // Sin caché de segundo nivel: cada entidad que no venga en la consulta se contaría como una sentencia
+        "entity-cache.enabled=false"
+})
+@Import({AppointmentService.class, ArchiveRepository.class})
+class AppointmentServiceQueryCountTest {
+
+    private static final int APPOINTMENTS = 20;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        MedicalTreatment treatment = entityManager.persist(MedicalTreatment.builder()
+                .name("Consulta General").durationMinutes(30).build());
+        Veterinarian ana = persistVet("ana@vet.com", "Ana");
+        Veterinarian carlos = persistVet("carlos@vet.com", "Carlos");
+
+        User ownerUser = entityManager.persist(User.builder()
+                .email("luis@owner.com").firstName("Luis").lastName("Rodríguez").rol(Rol.OWNER).build());
+        Owner owner = entityManager.persist(Owner.builder().user(ownerUser).build());
+
+        for (int i = 0; i < APPOINTMENTS; i++) {
+            Pet pet = Pet.builder().name("Pet " + i).birthDate(LocalDate.of(2020, 1, 1)).build();
+            owner.addPet(pet);
+            entityManager.persist(pet);
+
+            Appointment appointment = Appointment.builder()
+                    .dateTime(LocalDateTime.of(2025, 10, 20, 9, 0).plusDays(i))
+                    .service(treatment)
+                    .status(AppointmentStatus.PENDING)
+                    .build();
+            pet.addAppointment(appointment);
+            (i % 2 == 0 ? ana : carlos).addAppointment(appointment);
+            entityManager.persist(appointment);
+        }
+
+        // Vaciamos el contexto de persistencia para que nada se sirva desde la caché de primer nivel
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void getAllAppointmentsUsesSingleStatement() {
+        List<AppointmentDTO> appointments = appointmentService.getAllAppointments(false);
+
+        assertThat(appointments).hasSize(APPOINTMENTS);
+        assertThat(appointments.get(0).veterinarianName()).isIn("Ana Pérez", "Carlos Pérez");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void getAppointmentsByVetEmailUsesSingleStatement() {
+        List<AppointmentDTO> agenda = appointmentService.getAppointmentsByVetEmail("ana@vet.com", false);
+
+        assertThat(agenda).hasSize(APPOINTMENTS / 2)
+                .allMatch(dto -> dto.veterinarianName().equals("Ana Pérez"));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    private Veterinarian persistVet(String email, String firstName) {
+        User user = entityManager.persist(User.builder()
+                .email(email).firstName(firstName).lastName("Pérez").rol(Rol.VET).build());
+        return entityManager.persist(Veterinarian.builder().user(user).speciality("Medicina Interna").build());
+    }
+}
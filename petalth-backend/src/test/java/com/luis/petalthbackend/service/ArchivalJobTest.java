@@ -0,0 +1,209 @@
+package com.luis.petalthbackend.service;
+
+import com.luis.petalthbackend.dto.response.AppointmentDTO;
+import com.luis.petalthbackend.dto.response.InvoiceDTO;
+import com.luis.petalthbackend.entity.*;
+import com.luis.petalthbackend.repository.ArchiveRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Archivado contra H2 (tablas de histórico sin particionar), sin la transacción del test: un commit por lote.
+// Lotes de 2 para que la pasada necesite varios.
+@DataJpaTest(properties = {"spring.sql.init.mode=never", "entity-cache.enabled=false", "archive.batch-size=2"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ArchivalJob.class, ArchiveRepository.class, AppointmentService.class, InvoiceService.class,
+        ArchivalJobTest.Metrics.class})
+class ArchivalJobTest {
+
+    // Muy anterior a la retención (2 años): archivable si la historia está cerrada
+    private static final LocalDateTime OLD = LocalDateTime.of(2020, 3, 10, 9, 0);
+
+    @Autowired
+    private ArchivalJob archivalJob;
+
+    @Autowired
+    private ArchiveRepository archiveRepository;
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private InvoiceService invoiceService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @MockitoBean
+    private RollupService rollupService;
+
+    private TransactionTemplate transactionTemplate;
+    private MedicalTreatment treatment;
+    private Veterinarian vet;
+    private Pet pet;
+
+    @BeforeEach
+    void setUp(@Autowired PlatformTransactionManager transactionManager) {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        // Lo que haría el arranque (ApplicationReadyEvent): con ddl-auto=create-drop, histórico vacío
+        archivalJob.createSchema();
+        transactionTemplate.executeWithoutResult(status -> {
+            treatment = persist(MedicalTreatment.builder()
+                    .name("Consulta General").durationMinutes(30).price(new BigDecimal("35.00")).build());
+            User vetUser = persist(User.builder()
+                    .email("ana@vet.com").firstName("Ana").lastName("Pérez").rol(Rol.VET).build());
+            vet = persist(Veterinarian.builder().user(vetUser).speciality("Medicina Interna").build());
+            User ownerUser = persist(User.builder()
+                    .email("luis@owner.com").firstName("Luis").lastName("Rodríguez").rol(Rol.OWNER).build());
+            Owner owner = persist(Owner.builder().user(ownerUser).build());
+            pet = Pet.builder().name("Toby").birthDate(LocalDate.of(2019, 1, 1)).build();
+            owner.addPet(pet);
+            persist(pet);
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (String table : List.of("invoice_outbox", "invoice", "appointment", "pet", "owner", "veterinarian",
+                "petalth_user", "medical_treatment")) {
+            jdbcTemplate.update("DELETE FROM " + table);
+        }
+    }
+
+    @Test
+    void onlyClosedHistoryIsArchived() {
+        Long paid = appointment(OLD, AppointmentStatus.COMPLETED, InvoiceStatus.PAID);
+        Long cancelled = appointment(OLD.plusMonths(1), AppointmentStatus.CANCELLED, null);
+        Long paidLater = appointment(OLD.plusMonths(3), AppointmentStatus.COMPLETED, InvoiceStatus.PAID);
+        Long unpaid = appointment(OLD.plusDays(2), AppointmentStatus.COMPLETED, InvoiceStatus.UNPAID);
+        Long pending = appointment(OLD.plusDays(3), AppointmentStatus.PENDING, null);
+        Long recent = appointment(LocalDateTime.now().minusDays(1), AppointmentStatus.COMPLETED, InvoiceStatus.PAID);
+        // COMPLETED sin factura todavía: el outbox aún tiene que crearla
+        Long queued = appointment(OLD.plusDays(5), AppointmentStatus.COMPLETED, null);
+        transactionTemplate.executeWithoutResult(status -> persist(InvoiceOutbox.builder()
+                .appointmentId(queued).createdAt(OLD.plusDays(5)).build()));
+        // Los contadores son del contexto, compartido con los otros tests
+        double appointmentsBefore = archived("appointment");
+        double invoicesBefore = archived("invoice");
+
+        archivalJob.archive();
+
+        assertThat(ids("SELECT id FROM appointment_archive")).containsExactlyInAnyOrder(paid, cancelled, paidLater);
+        assertThat(ids("SELECT id FROM appointment")).containsExactlyInAnyOrder(unpaid, pending, recent, queued);
+        assertThat(ids("SELECT appointment_id FROM invoice_archive")).containsExactlyInAnyOrder(paid, paidLater);
+        assertThat(archived("appointment") - appointmentsBefore).isEqualTo(3);
+        assertThat(archived("invoice") - invoicesBefore).isEqualTo(2);
+    }
+
+    @Test
+    void invoiceMovesWithItsAppointment() {
+        Long paid = appointment(OLD, AppointmentStatus.COMPLETED, InvoiceStatus.PAID);
+        Long invoiceId = jdbcTemplate.queryForObject("SELECT id FROM invoice WHERE appointment_id = ?", Long.class,
+                paid);
+        LocalDateTime archivedAt = LocalDateTime.of(2025, 1, 1, 3, 30);
+
+        ArchiveRepository.ArchivedBatch batch = transactionTemplate.execute(status ->
+                archiveRepository.moveToArchive(List.of(paid), archivedAt));
+
+        assertThat(batch).isEqualTo(new ArchiveRepository.ArchivedBatch(1, 1));
+        assertThat(ids("SELECT id FROM appointment")).isEmpty();
+        assertThat(ids("SELECT id FROM invoice")).isEmpty();
+        assertThat(jdbcTemplate.queryForMap("SELECT id, appointment_id, status, amount " +
+                "FROM invoice_archive"))
+                .containsEntry("id", invoiceId)
+                .containsEntry("appointment_id", paid)
+                .containsEntry("status", "PAID")
+                .containsEntry("amount", new BigDecimal("35.00"));
+        assertThat(jdbcTemplate.queryForObject("SELECT archived_at FROM appointment_archive WHERE id = ?",
+                LocalDateTime.class, paid)).isEqualTo(archivedAt);
+    }
+
+    @Test
+    void includeHistoryMergesArchiveAndHotTables() {
+        Long archived = appointment(OLD, AppointmentStatus.COMPLETED, InvoiceStatus.PAID);
+        Long hot = appointment(LocalDateTime.now().plusDays(1), AppointmentStatus.PENDING, null);
+        Long hotInvoiced = appointment(LocalDateTime.now().minusDays(1), AppointmentStatus.COMPLETED,
+                InvoiceStatus.UNPAID);
+        archivalJob.archive();
+
+        assertThat(appointmentService.getAllAppointments(false)).extracting(AppointmentDTO::id)
+                .containsExactlyInAnyOrder(hot, hotInvoiced);
+        assertThat(appointmentService.getAllAppointments(true)).extracting(AppointmentDTO::id)
+                .containsExactlyInAnyOrder(archived, hot, hotInvoiced);
+        // La agenda con histórico sigue en orden de fecha
+        assertThat(appointmentService.getAppointmentsByVetEmail("ana@vet.com", true)).extracting(AppointmentDTO::id)
+                .containsExactly(archived, hotInvoiced, hot);
+        assertThat(invoiceService.getAllInvoices(false)).extracting(InvoiceDTO::status)
+                .containsExactly("UNPAID");
+        assertThat(invoiceService.getAllInvoices(true)).extracting(InvoiceDTO::status)
+                .containsExactly("PAID", "UNPAID");
+    }
+
+    // Cita (y su factura, si invoiceStatus no es null) con su propia transacción
+    private Long appointment(LocalDateTime dateTime, AppointmentStatus status, InvoiceStatus invoiceStatus) {
+        return transactionTemplate.execute(tx -> {
+            Appointment appointment = Appointment.builder()
+                    .dateTime(dateTime)
+                    .service(entityManager.merge(treatment))
+                    .status(status)
+                    .build();
+            entityManager.merge(pet).addAppointment(appointment);
+            entityManager.merge(vet).addAppointment(appointment);
+            if (invoiceStatus != null) {
+                appointment.addInvoice(Invoice.builder()
+                        .issueDate(dateTime).amount(treatment.getPrice()).status(invoiceStatus).build());
+            }
+            return persist(appointment).getId();
+        });
+    }
+
+    private <T> T persist(T entity) {
+        entityManager.persist(entity);
+        return entity;
+    }
+
+    private List<Long> ids(String sql) {
+        return jdbcTemplate.queryForList(sql, Long.class);
+    }
+
+    private double archived(String table) {
+        return meterRegistry.get("archive.rows").tag("table", table).counter().count();
+    }
+
+    // @DataJpaTest no configura Micrometer
+    @TestConfiguration
+    static class Metrics {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
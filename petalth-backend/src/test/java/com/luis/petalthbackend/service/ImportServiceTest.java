@@ -0,0 +1,128 @@
+package com.luis.petalthbackend.service;
+
+import com.luis.petalthbackend.cache.InvalidationBus;
+import com.luis.petalthbackend.cache.ResourceVersions;
+import com.luis.petalthbackend.dto.response.ImportReportDTO;
+import com.luis.petalthbackend.dto.response.ImportReportDTO.ImportRowError;
+import com.luis.petalthbackend.entity.Pet;
+import com.luis.petalthbackend.replica.RecentInvalidations;
+import com.luis.petalthbackend.repository.OwnerRepository;
+import com.luis.petalthbackend.repository.PetRepository;
+import com.luis.petalthbackend.security.hashing.PasswordEncoders;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Importación real contra H2, sin la transacción del test: cada bloque hace commit en su propia transacción,
+// como en producción. Las filas que fallan se informan y el resto de la importación sigue.
+@DataJpaTest(properties = {"spring.sql.init.mode=never", "entity-cache.enabled=false", "import.chunk-size=3"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ImportService.class, ResourceVersions.class, RecentInvalidations.class, ImportServiceTest.Hashing.class})
+class ImportServiceTest {
+
+    // Contraseña con la que el encoder de prueba falla, como BCrypt con una de más de 72 bytes
+    private static final String FAILING_PASSWORD = "rompe-el-hash";
+
+    @Autowired
+    private ImportService importService;
+
+    @Autowired
+    private OwnerRepository ownerRepository;
+
+    @Autowired
+    private PetRepository petRepository;
+
+    @MockitoBean
+    private InvalidationBus invalidationBus;
+
+    @Test
+    void badPasswordsAreRowErrors() {
+        ImportReportDTO report = importService.importOwners(csv("""
+                email,password,firstName,lastName,phone,address
+                uno@owner.com,123456,Uno,Pérez,,
+                largo@owner.com,%s,Largo,Pérez,,
+                blanco@owner.com,  ,Blanco,Pérez,,
+                hash@owner.com,%s,Hash,Pérez,,
+                dos@owner.com,123456,Dos,Pérez,,
+                """.formatted("x".repeat(ImportService.MAX_PASSWORD_BYTES + 1), FAILING_PASSWORD)));
+
+        assertThat(report.totalRows()).isEqualTo(5);
+        assertThat(report.imported()).isEqualTo(2);
+        assertThat(report.failed()).isEqualTo(3);
+        assertThat(report.errors()).extracting(ImportRowError::line).containsExactly(3L, 4L, 5L);
+        assertThat(report.errors().get(0).message()).contains("72 bytes");
+        assertThat(report.errors().get(1).message()).contains("password");
+    }
+
+    @Test
+    void failedChunkIsRetriedRowByRow() {
+        importService.importOwners(csv("""
+                email,password,firstName,lastName,phone,address
+                mascotas@owner.com,123456,Luis,Rodríguez,,
+                """));
+        Long ownerId = ownerRepository.findKeysByEmails(List.of("mascotas@owner.com")).get(0).id();
+
+        // La segunda fila no cabe en la columna: el primer bloque falla entero al guardarse
+        ImportReportDTO report = importService.importPets(csv("""
+                ownerEmail,name,birthDate,photoUrl
+                mascotas@owner.com,Toby,2020-01-01,
+                mascotas@owner.com,Luna,2020-01-01,http://img/%s
+                mascotas@owner.com,Kira,2020-01-01,
+                mascotas@owner.com,Coco,2020-01-01,
+                """.formatted("x".repeat(300))));
+
+        assertThat(report.imported()).isEqualTo(3);
+        assertThat(report.failed()).isEqualTo(1);
+        assertThat(report.errors()).extracting(ImportRowError::line).containsExactly(3L);
+        assertThat(petRepository.findByOwnerIdWithOwner(ownerId))
+                .extracting(Pet::getName)
+                .containsExactlyInAnyOrder("Toby", "Kira", "Coco");
+    }
+
+    private static ByteArrayInputStream csv(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @TestConfiguration
+    static class Hashing {
+
+        @Bean
+        PasswordEncoder passwordEncoder() {
+            PasswordEncoder bcrypt = PasswordEncoders.create(PasswordEncoders.BCRYPT, 4);
+            return new PasswordEncoder() {
+                @Override
+                public String encode(CharSequence rawPassword) {
+                    if (FAILING_PASSWORD.contentEquals(rawPassword)) {
+                        throw new IllegalArgumentException("password cannot be more than 72 bytes");
+                    }
+                    return bcrypt.encode(rawPassword);
+                }
+
+                @Override
+                public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                    return bcrypt.matches(rawPassword, encodedPassword);
+                }
+            };
+        }
+
+        @Bean(destroyMethod = "shutdown")
+        ExecutorService importHashingExecutor() {
+            return Executors.newFixedThreadPool(2);
+        }
+    }
+}
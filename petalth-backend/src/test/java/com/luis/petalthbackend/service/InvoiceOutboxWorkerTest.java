@@ -0,0 +1,138 @@
+package com.luis.petalthbackend.service;
+
+import com.luis.petalthbackend.entity.*;
+import com.luis.petalthbackend.repository.InvoiceOutboxRepository;
+import com.luis.petalthbackend.repository.InvoiceRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+// Un lote con dos entradas de la misma cita COMPLETED y una de una cita que ya no lo está: una sola factura,
+// cada entrada contada en su resultado y la bandeja vacía. Sin la transacción del test: el lote hace commit.
+@DataJpaTest(properties = {"spring.sql.init.mode=never", "entity-cache.enabled=false"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({InvoiceOutboxWorker.class, InvoiceOutboxWorkerTest.Metrics.class})
+class InvoiceOutboxWorkerTest {
+
+    private static final BigDecimal PRICE = new BigDecimal("35.00");
+
+    @Autowired
+    private InvoiceOutboxWorker worker;
+
+    @Autowired
+    private InvoiceOutboxRepository outboxRepository;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @MockitoBean
+    private RollupService rollupService;
+
+    @Test
+    void duplicateAndStaleEntriesDoNotCreateInvoices() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            MedicalTreatment treatment = persist(MedicalTreatment.builder()
+                    .name("Consulta General").durationMinutes(30).price(PRICE).build());
+            User vetUser = persist(User.builder()
+                    .email("ana@vet.com").firstName("Ana").lastName("Pérez").rol(Rol.VET).build());
+            Veterinarian vet = persist(Veterinarian.builder().user(vetUser).speciality("Medicina Interna").build());
+            User ownerUser = persist(User.builder()
+                    .email("luis@owner.com").firstName("Luis").lastName("Rodríguez").rol(Rol.OWNER).build());
+            Owner owner = persist(Owner.builder().user(ownerUser).build());
+            Pet pet = Pet.builder().name("Toby").birthDate(LocalDate.of(2020, 1, 1)).build();
+            owner.addPet(pet);
+            persist(pet);
+
+            Appointment completed = appointment(pet, vet, treatment, AppointmentStatus.COMPLETED, 1);
+            // Marcada COMPLETED y luego devuelta a otro estado antes de que pase el worker
+            Appointment reverted = appointment(pet, vet, treatment, AppointmentStatus.PENDING, 2);
+
+            // La cita completada dos veces (COMPLETED -> otro estado -> COMPLETED) deja dos entradas
+            queue(completed);
+            queue(completed);
+            queue(reverted);
+        });
+
+        int processed = worker.processBatch();
+
+        assertThat(processed).isEqualTo(3);
+        assertThat(invoiceRepository.findAll())
+                .singleElement()
+                .satisfies(invoice -> {
+                    assertThat(invoice.getAmount()).isEqualByComparingTo(PRICE);
+                    assertThat(invoice.getStatus()).isEqualTo(InvoiceStatus.UNPAID);
+                });
+        assertThat(processed("created")).isEqualTo(1);
+        assertThat(processed("duplicate")).isEqualTo(1);
+        assertThat(processed("skipped")).isEqualTo(1);
+        assertThat(outboxRepository.count()).isZero();
+        verify(rollupService, times(1)).invoiceCreated(anyLong(), anyLong(), any(), eq(InvoiceStatus.UNPAID),
+                any());
+    }
+
+    private Appointment appointment(Pet pet, Veterinarian vet, MedicalTreatment treatment,
+                                    AppointmentStatus status, int day) {
+        Appointment appointment = Appointment.builder()
+                .dateTime(LocalDateTime.of(2025, 10, day, 9, 0))
+                .service(treatment)
+                .status(status)
+                .build();
+        pet.addAppointment(appointment);
+        vet.addAppointment(appointment);
+        return persist(appointment);
+    }
+
+    private void queue(Appointment appointment) {
+        persist(InvoiceOutbox.builder().appointmentId(appointment.getId()).createdAt(LocalDateTime.now()).build());
+    }
+
+    private <T> T persist(T entity) {
+        entityManager.persist(entity);
+        return entity;
+    }
+
+    private double processed(String result) {
+        return meterRegistry.get("invoice.outbox.processed").tag("result", result).counter().count();
+    }
+
+    // @DataJpaTest no configura Micrometer
+    @TestConfiguration
+    static class Metrics {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.luis.petalthbackend.service;
+
+import com.luis.petalthbackend.entity.*;
+import com.luis.petalthbackend.event.AppointmentChangedEvent;
+import com.luis.petalthbackend.repository.ArchiveRepository;
+import com.luis.petalthbackend.repository.InvoiceRepository;
+import com.luis.petalthbackend.repository.RollupRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Los resúmenes mantenidos al vuelo (deltas de RollupService aplicados con MERGE antes de cada commit) tienen
+// que coincidir con los que calcula rebuildDay desde invoice y appointment para los mismos datos.
+// Sin la transacción del test: cada cambio hace commit y aplica sus deltas en beforeCommit, como en producción.
+@DataJpaTest(properties = {"spring.sql.init.mode=never", "entity-cache.enabled=false"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({RollupService.class, RollupRepository.class, AppointmentService.class, ArchiveRepository.class,
+        InvoiceService.class, InvoiceOutboxWorker.class, RollupServiceTest.Metrics.class})
+class RollupServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 10, 20);
+
+    // Filas que el recálculo no crea: los deltas dejan a 0 las de un estado del que ya no queda ninguna
+    private static final String REVENUE = "SELECT rollup_date, veterinarian_id, treatment_id, status, " +
+            "invoice_count, amount FROM daily_revenue_rollup WHERE invoice_count <> 0 " +
+            "ORDER BY rollup_date, veterinarian_id, treatment_id, status";
+    private static final String WORKLOAD = "SELECT rollup_date, veterinarian_id, treatment_id, status, " +
+            "appointment_count, minutes FROM daily_workload_rollup WHERE appointment_count <> 0 " +
+            "ORDER BY rollup_date, veterinarian_id, treatment_id, status";
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private InvoiceService invoiceService;
+
+    @Autowired
+    private InvoiceOutboxWorker invoiceOutboxWorker;
+
+    @Autowired
+    private RollupRepository rollupRepository;
+
+    @Autowired
+    private ArchiveRepository archiveRepository;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void incrementalRollupsMatchTheRebuild() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        // El recálculo también lee el histórico (aquí vacío)
+        transactionTemplate.executeWithoutResult(status -> archiveRepository.createSchema(true));
+        List<Long> appointments = transactionTemplate.execute(status -> createAppointments());
+
+        // Cambios de estado: completadas (con su factura por el outbox), canceladas y una que vuelve atrás
+        appointmentService.updateAppointmentStatus(appointments.get(0), AppointmentStatus.COMPLETED);
+        appointmentService.updateAppointmentStatus(appointments.get(1), AppointmentStatus.COMPLETED);
+        appointmentService.updateAppointmentStatus(appointments.get(2), AppointmentStatus.CANCELLED);
+        appointmentService.updateAppointmentStatus(appointments.get(3), AppointmentStatus.COMPLETED);
+        appointmentService.updateAppointmentStatus(appointments.get(3), AppointmentStatus.PENDING);
+        invoiceOutboxWorker.processBatch();
+        invoiceService.markAsPaid(invoiceRepository.findAll().get(0).getId());
+
+        List<List<Object>> incrementalRevenue = rows(REVENUE);
+        List<List<Object>> incrementalWorkload = rows(WORKLOAD);
+        assertThat(incrementalRevenue).hasSize(2); // Una factura UNPAID y otra PAID
+        assertThat(incrementalWorkload).isNotEmpty();
+
+        RollupRepository.DateRange range = rollupRepository.findDataRange().orElseThrow();
+        for (LocalDate day = range.from(); !day.isAfter(range.to()); day = day.plusDays(1)) {
+            LocalDate current = day;
+            transactionTemplate.execute(status -> rollupRepository.rebuildDay(current));
+        }
+
+        assertThat(rows(REVENUE)).isEqualTo(incrementalRevenue);
+        assertThat(rows(WORKLOAD)).isEqualTo(incrementalWorkload);
+    }
+
+    // Como al reservar: cada cita nueva publica su evento (sin estado anterior) en la transacción que la crea
+    private List<Long> createAppointments() {
+        MedicalTreatment consultation = persist(MedicalTreatment.builder()
+                .name("Consulta General").durationMinutes(30).price(new BigDecimal("35.00")).build());
+        MedicalTreatment vaccination = persist(MedicalTreatment.builder()
+                .name("Vacunación").durationMinutes(15).price(new BigDecimal("20.50")).build());
+        Veterinarian ana = persistVet("ana@vet.com", "Ana");
+        Veterinarian carlos = persistVet("carlos@vet.com", "Carlos");
+        User ownerUser = persist(User.builder()
+                .email("luis@owner.com").firstName("Luis").lastName("Rodríguez").rol(Rol.OWNER).build());
+        Owner owner = persist(Owner.builder().user(ownerUser).build());
+        Pet pet = Pet.builder().name("Toby").birthDate(LocalDate.of(2020, 1, 1)).build();
+        owner.addPet(pet);
+        persist(pet);
+
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            MedicalTreatment treatment = i % 3 == 0 ? vaccination : consultation;
+            Appointment appointment = Appointment.builder()
+                    .dateTime(DAY.atTime(9, 0).plusDays(i % 2).plusHours(i))
+                    .service(treatment)
+                    .status(AppointmentStatus.PENDING)
+                    .build();
+            pet.addAppointment(appointment);
+            (i < 3 ? ana : carlos).addAppointment(appointment);
+            persist(appointment);
+            eventPublisher.publishEvent(new AppointmentChangedEvent(appointment.getId(),
+                    appointment.getVeterinarian().getId(), treatment.getId(), appointment.getDateTime(),
+                    treatment.getDurationMinutes(), null, AppointmentStatus.PENDING));
+            ids.add(appointment.getId());
+        }
+        return ids;
+    }
+
+    private Veterinarian persistVet(String email, String firstName) {
+        User user = persist(User.builder()
+                .email(email).firstName(firstName).lastName("Pérez").rol(Rol.VET).build());
+        return persist(Veterinarian.builder().user(user).speciality("Medicina Interna").build());
+    }
+
+    private <T> T persist(T entity) {
+        entityManager.persist(entity);
+        return entity;
+    }
+
+    private List<List<Object>> rows(String sql) {
+        return jdbcTemplate.query(sql, (rs, rowNum) -> {
+            List<Object> row = new ArrayList<>();
+            for (int column = 1; column <= rs.getMetaData().getColumnCount(); column++) {
+                Object value = rs.getObject(column);
+                // Mismo importe con distinta escala (35.00 y 35.0) sigue siendo el mismo importe
+                row.add(value instanceof BigDecimal amount ? amount.stripTrailingZeros() : value);
+            }
+            return row;
+        });
+    }
+
+    // @DataJpaTest no configura Micrometer
+    @TestConfiguration
+    static class Metrics {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}